@@ -0,0 +1,94 @@
+package plugin_metrics;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Class VectorKernels computes the kernels of DenseKernels with the Vector
+ * API (jdk.incubator.vector): the arrays are processed as many values at a
+ * time as the preferred vector of the processor holds, and the values that
+ * are left are processed one at a time. It is compiled and used separately
+ * from the other classes (see DenseKernels).
+ */
+public class VectorKernels extends DenseKernels{
+	private static final VectorSpecies<Double> SPECIES =
+			DoubleVector.SPECIES_PREFERRED;
+
+	/**
+	 * This method computes the dot product of two arrays.
+	 * @param q - values of the first document
+	 * @param r - values of the second document
+	 * @param size - number of values
+	 * @return dot
+	 */
+	public double dot( double[] q, double[] r, int size ){
+		DoubleVector sums = DoubleVector.zero(SPECIES);
+		int bound = SPECIES.loopBound(size);
+		int i = 0;
+		for( ; i < bound; i = i + SPECIES.length() ){
+			DoubleVector a = DoubleVector.fromArray(SPECIES, q, i);
+			DoubleVector b = DoubleVector.fromArray(SPECIES, r, i);
+			sums = a.fma(b, sums);
+		}
+		double dot = sums.reduceLanes(VectorOperators.ADD);
+		for( ; i < size; i++ ){
+			dot = dot + q[i] * r[i];
+		}
+		return dot;
+	}
+
+	/**
+	 * This method computes the sum of the square roots of the products of
+	 * two arrays.
+	 * @param q - values of the first document
+	 * @param r - values of the second document
+	 * @param size - number of values
+	 * @return roots - sum(sqrt(q * r))
+	 */
+	public double sumOfRoots( double[] q, double[] r, int size ){
+		DoubleVector sums = DoubleVector.zero(SPECIES);
+		int bound = SPECIES.loopBound(size);
+		int i = 0;
+		for( ; i < bound; i = i + SPECIES.length() ){
+			DoubleVector a = DoubleVector.fromArray(SPECIES, q, i);
+			DoubleVector b = DoubleVector.fromArray(SPECIES, r, i);
+			sums = sums.add(a.mul(b).lanewise(VectorOperators.SQRT));
+		}
+		double roots = sums.reduceLanes(VectorOperators.ADD);
+		for( ; i < size; i++ ){
+			roots = roots + Math.sqrt(q[i] * r[i]);
+		}
+		return roots;
+	}
+
+	/**
+	 * This method adds abs(q - r) - abs(r) for the values of two arrays,
+	 * divided by the divisors of the documents, to a sum.
+	 * @param sum - sum to which the terms are added
+	 * @param q - values of the first document
+	 * @param sizeQ - divisor of the first document
+	 * @param r - values of the second document
+	 * @param sizeR - divisor of the second document
+	 * @param size - number of values
+	 * @return sum
+	 */
+	public double sumOfDifferences( double sum, double[] q, double sizeQ,
+			double[] r, double sizeR, int size ){
+		DoubleVector sums = DoubleVector.zero(SPECIES);
+		int bound = SPECIES.loopBound(size);
+		int i = 0;
+		for( ; i < bound; i = i + SPECIES.length() ){
+			DoubleVector q1 = DoubleVector.fromArray(SPECIES, q, i).div(sizeQ);
+			DoubleVector r1 = DoubleVector.fromArray(SPECIES, r, i).div(sizeR);
+			sums = sums.add(q1.sub(r1).abs().sub(r1.abs()));
+		}
+		sum = sum + sums.reduceLanes(VectorOperators.ADD);
+		for( ; i < size; i++ ){
+			double q1 = q[i] / sizeQ;
+			double r1 = r[i] / sizeR;
+			sum = sum + Math.abs(q1 - r1) - Math.abs(r1);
+		}
+		return sum;
+	}
+}
@@ -0,0 +1,70 @@
+package Test;
+
+import metrics.*;
+import java.util.ArrayList;
+import java.io.IOException;
+import io.*;
+
+/**
+ * Class AllComputeSimilarity computes the similarity scores for each pair of
+ * documents using all metrics in one sweep over the pairs (see
+ * metrics.MetricSweep), instead of running CosComputeSimilarity,
+ * JSComputeSimilarity etc. one after the other. It writes the same .csv
+ * files and filenameslists as those classes, or condensed matrix files
+ * (see io.CondensedMatrixFile) instead of the .csv files.
+ */
+public class AllComputeSimilarity{
+	public static void main(String[] args){
+		String directory = "../Testdata/dataset/English";
+		String directoryDutch = "../Testdata/dataset/Dutch/";
+		ArrayList<String> files = FileLoadingUtils.listFilesDirectory(directory);
+		String language = null; // no shortlist used
+		boolean condensed = false; // .bin files instead of .csv files
+		boolean floatPrecision = false; // scores of the .bin files as floats
+		String extension = condensed ? ".bin" : ".csv";
+		// In the order of MetricSweep.ALL
+		String[] namesEN = { "fileNamesListENCOSINE.txt",
+				"fileNamesListEN-EUCLIDIAN.txt", "fileNamesListEN-HELLINGER.txt",
+				"fileNamesListEN-JS.txt", "fileNamesListEN-JACCARDS.txt",
+				"fileNamesListEN-KL.txt", "fileNamesListEN-L1.txt",
+				"fileNamesListEN-CHISQUARE.txt" };
+		String[] namesNL = { "fileNamesListNLCOSINE.txt",
+				"fileNamesListNL-EUCLIDIAN.txt", "fileNamesListNL-HELLINGER.txt",
+				"fileNamesListNL-JS.txt", "fileNamesListNL-JACCARDS.txt",
+				"fileNamesListNL-KL.txt", "fileNamesListNL-L1.txt",
+				"fileNamesListNL-CHISQUARE.txt" };
+		String[] matricesEN = new String[MetricSweep.ALL.length];
+		String[] matricesNL = new String[MetricSweep.ALL.length];
+		for( int m = 0; m < MetricSweep.ALL.length; m++ ){
+			matricesEN[m] = "EN-Results" + MetricSweep.ALL[m] + extension;
+			matricesNL[m] = "NL-Results" + MetricSweep.ALL[m] + extension;
+		}
+		SimilarityEngine engine = new SimilarityEngine(
+				new MetricSweep(MetricSweep.ALL, language, false, null));
+
+		// Similarity scores computed for the English dataset
+		try{
+			if( condensed ){
+				engine.writeCondensed(files, files, MetricSweep.ALL, matricesEN,
+						namesEN, floatPrecision);
+			}
+			else engine.writeMatrices(files, files, matricesEN, namesEN);
+		} catch(IOException e){
+			System.err.println(e.getMessage());
+		};
+
+		// Similarity scores computed for the Dutch dataset
+		ArrayList<String> filesDutch = FileLoadingUtils.listTranslations(files,
+				".en", directoryDutch, ".nl");
+		try{
+			if( condensed ){
+				engine.writeCondensed(filesDutch, filesDutch, MetricSweep.ALL,
+						matricesNL, namesNL, floatPrecision);
+			}
+			else engine.writeMatrices(filesDutch, filesDutch, matricesNL, namesNL);
+		} catch(IOException e){
+			System.err.println(e.getMessage());
+		};
+		engine.shutdown();
+	}
+}
@@ -2,7 +2,6 @@ package Test;
 
 import metrics.*;
 import java.util.ArrayList;
-import java.io.PrintWriter;
 import java.io.IOException;
 import io.*;
 
@@ -13,6 +12,8 @@ import io.*;
  * pair of documents using the cosine distance. It writes these similarity
  * scores to a .csv file. It also creates a filenameslist, listing all the
  * names of the documents in the dataset.
+ * Every document is parsed once, and the pairs are compared in parallel
+ * (see metrics.SimilarityEngine).
  */
 public class CosComputeSimilarity{
 	public static void main(String[] args){
@@ -20,61 +21,26 @@ public class CosComputeSimilarity{
 		String directoryDutch = "../Testdata/dataset/Dutch/";
 		ArrayList<String> files = FileLoadingUtils.listFilesDirectory(directory);
 		String language = null; // no shortlist used
+		SimilarityEngine engine = new SimilarityEngine(
+				CosineMetric.pairMetric(language, false, null));
 
 		// Similarity scores computed for the English dataset
 		try{
-			PrintWriter writerF1 = new PrintWriter("fileNamesListENCOSINE.txt");
-			PrintWriter writer = new PrintWriter("EN-ResultsCosine.csv", "UTF-8");
-			for( int i = 0; i < files.size(); i++ ){
-				writerF1.println(files.get(i));
-				for( int j = 0; j < i; j++ ){
-					String a = files.get(i);
-					String b = files.get(j);
-
-					CosineMetric m = new CosineMetric( a, b, language,false );
-					writer.print(m.computeSimilarity()+",");
-				}
-				if( i != 0 ){
-					writer.println("");
-				}
-			}
-			writer.close();
-			writerF1.close();
+			engine.writeMatrix(files, "EN-ResultsCosine.csv",
+					"fileNamesListENCOSINE.txt");
 		} catch(IOException e){
 			System.err.println(e.getMessage());
 		};
 
 		// Similarity scores computed for the Dutch dataset
+		ArrayList<String> filesDutch = FileLoadingUtils.listTranslations(files,
+				".en", directoryDutch, ".nl");
 		try{
-			PrintWriter writer2 = new PrintWriter("NL-ResultsCosine.csv", "UTF-8");
-			PrintWriter writerF2 = new PrintWriter("fileNamesListNLCOSINE.txt");
-			for( int i = 0; i < files.size(); i++ ){
-				if( files.get(i).contains(".en") ){
-					int index = files.get(i).indexOf(".en");
-					int index2 = files.get(i).lastIndexOf("/")+1;
-					String a = directoryDutch+
-							files.get(i).substring(index2, index) + ".nl";
-					writerF2.println(a);
-					for( int j = 0; j < i; j++ ){
-
-						if( files.get(j).contains(".en") ){
-							int index3 = files.get(j).indexOf(".en");
-							int index4 = files.get(j).lastIndexOf("/")+1;
-							String b = directoryDutch+
-									files.get(j).substring(index4, index3) + ".nl";
-							CosineMetric m2 = 
-									new CosineMetric(a, b, language,false);
-							writer2.print(m2.computeSimilarity()+",");
-						}
-
-					}
-					writer2.println("");
-				}
-			}
-			writer2.close();
-			writerF2.close();
+			engine.writeMatrix(filesDutch, "NL-ResultsCosine.csv",
+					"fileNamesListNLCOSINE.txt");
 		} catch(IOException e){
 			System.err.println(e.getMessage());
 		};
+		engine.shutdown();
 	}
 }
\ No newline at end of file
@@ -0,0 +1,48 @@
+package Test;
+
+import metrics.*;
+import java.util.ArrayList;
+import java.io.IOException;
+import io.*;
+
+/**
+ * Class IndexComputeSimilarity computes the cosine and Jaccard's coefficient
+ * for each pair of documents from an inverted index (see
+ * metrics.InvertedIndexEngine), which only visits the pairs of documents
+ * that have words in common. It writes the same .csv files and
+ * filenameslists as CosComputeSimilarity and JaccComputeSimilarity.
+ */
+public class IndexComputeSimilarity{
+	public static void main(String[] args){
+		String directory = "../Testdata/dataset/English";
+		String directoryDutch = "../Testdata/dataset/Dutch/";
+		ArrayList<String> files = FileLoadingUtils.listFilesDirectory(directory);
+		String language = null; // no shortlist used
+		InvertedIndexEngine engine = new InvertedIndexEngine(
+				InvertedIndexEngine.METRICS, language, false, null);
+		// engine.dfCap = files.size() / 2; // skip words in half the documents
+
+		// Similarity scores computed for the English dataset
+		try{
+			engine.writeMatrices(files, files, new String[]{
+					"EN-ResultsCosine.csv", "EN-ResultsJaccards.csv" },
+					new String[]{ "fileNamesListENCOSINE.txt",
+					"fileNamesListEN-JACCARDS.txt" });
+		} catch(IOException e){
+			System.err.println(e.getMessage());
+		};
+
+		// Similarity scores computed for the Dutch dataset
+		ArrayList<String> filesDutch = FileLoadingUtils.listTranslations(files,
+				".en", directoryDutch, ".nl");
+		try{
+			engine.writeMatrices(filesDutch, filesDutch, new String[]{
+					"NL-ResultsCosine.csv", "NL-ResultsJaccards.csv" },
+					new String[]{ "fileNamesListNLCOSINE.txt",
+					"fileNamesListNL-JACCARDS.txt" });
+		} catch(IOException e){
+			System.err.println(e.getMessage());
+		};
+		engine.shutdown();
+	}
+}
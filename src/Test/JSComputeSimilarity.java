@@ -2,7 +2,6 @@ package Test;
 
 import metrics.*;
 import java.util.ArrayList;
-import java.io.PrintWriter;
 import java.io.IOException;
 import io.*;
 
@@ -13,6 +12,8 @@ import io.*;
  * pair of documents using the Jensen-Shannon metric. It writes these similarity
  * scores to a .csv file. It also creates a filenameslist, listing all the
  * names of the documents in the dataset.
+ * Every document is parsed once, and the pairs are compared in parallel
+ * (see metrics.SimilarityEngine).
  */
 public class JSComputeSimilarity{
 	public static void main(String[] args){
@@ -20,61 +21,26 @@ public class JSComputeSimilarity{
 		String directoryDutch = "../Testdata/dataset/Dutch/";
 		ArrayList<String> files = FileLoadingUtils.listFilesDirectory(directory);
 		String language = null; // no shortlist used
+		SimilarityEngine engine = new SimilarityEngine(
+				JSdivergenceMetric.pairMetric(language, false, null));
 
 		// Similarity scores computed for the English dataset
 		try{
-			PrintWriter writer = new PrintWriter("EN-ResultsJSDivergence.csv", "UTF-8");
-			PrintWriter writerF = new PrintWriter("fileNamesListEN-JS.txt");
-			for( int i = 0; i < files.size(); i++ ){
-				writerF.println(files.get(i));
-				for( int j = 0; j < i; j++ ){
-					String a = files.get(i);
-					String b = files.get(j);
-
-					JSdivergenceMetric m = 
-							new JSdivergenceMetric( a, b, language, false );
-					writer.print(m.computeSimilarity()+",");
-				}
-				if( i != 0 ){
-					writer.println("");
-				}
-			}
-			writer.close();
-			writerF.close();
+			engine.writeMatrix(files, "EN-ResultsJSDivergence.csv",
+					"fileNamesListEN-JS.txt");
 		} catch(IOException e){
 			System.err.println(e.getMessage());
 		};
 
 		// Similarity scores computed for the Dutch dataset
+		ArrayList<String> filesDutch = FileLoadingUtils.listTranslations(files,
+				".en", directoryDutch, ".nl");
 		try{
-			PrintWriter writer2 = new PrintWriter("NL-ResultsJSDivergence.csv", "UTF-8");
-			PrintWriter writerF2 = new PrintWriter("fileNamesListNL-JS.txt");
-			for( int i = 0; i < files.size(); i++ ){
-				if( files.get(i).contains(".en") ){
-					int index = files.get(i).indexOf(".en");
-					int index2 = files.get(i).lastIndexOf("/")+1;
-					String a = directoryDutch+
-							files.get(i).substring(index2, index) + ".nl";
-					writerF2.println(a);
-					for( int j = 0; j < i; j++ ){
-						if( files.get(j).contains(".en") ){
-							int index3 = files.get(j).indexOf(".en");
-							int index4 = files.get(j).lastIndexOf("/")+1;
-							String b = directoryDutch+
-									files.get(j).substring(index4, index3) + ".nl";
-
-							JSdivergenceMetric m2 = 
-									new JSdivergenceMetric(a, b, language,false);
-							writer2.print(m2.computeSimilarity()+",");
-						}
-					}
-					writer2.println("");
-				}
-			}
-			writer2.close();
-			writerF2.close();
+			engine.writeMatrix(filesDutch, "NL-ResultsJSDivergence.csv",
+					"fileNamesListNL-JS.txt");
 		} catch(IOException e){
 			System.err.println(e.getMessage());
 		};
+		engine.shutdown();
 	}
 }
\ No newline at end of file
@@ -0,0 +1,46 @@
+package TestBilingual;
+
+import metrics.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.io.IOException;
+import io.*;
+
+/**
+ * Class AllComputeSimilarity computes the similarity scores for each pair of
+ * documents using all metrics in one sweep over the pairs (see
+ * metrics.MetricSweep), instead of running CosComputeSimilarity,
+ * JSComputeSimilarity etc. one after the other. It writes the same .csv
+ * files and filenameslists as those classes.
+ */
+public class AllComputeSimilarity{
+	public static void main(String[] args){
+		String directory = "/scratch/clust_init/models";
+		String fileName = "/model/lex.e2f";
+		String[] files = FileLoadingUtils.listDirectoriesDirectory(directory);
+		boolean bilingual = true;
+		String language = null;
+		ArrayList<String> paths = new ArrayList<String>();
+		for( int i = 0; i < files.length; i++ ){
+			paths.add(directory+"/"+files[i]+fileName);
+		}
+		// In the order of MetricSweep.ALL
+		String[] names = { "fileNames2.txt", "fileNames3.txt", "fileNames4.txt",
+				"fileNames6.txt", "fileNames5.txt", "fileNames7.txt",
+				"fileNames8.txt", "fileNames.txt" };
+		String[] matrices = new String[MetricSweep.ALL.length];
+		for( int m = 0; m < MetricSweep.ALL.length; m++ ){
+			matrices[m] = "Biling-Results" + MetricSweep.ALL[m] + ".csv";
+		}
+		SimilarityEngine engine = new SimilarityEngine(
+				new MetricSweep(MetricSweep.ALL, language, bilingual, null));
+
+		// Computing similarity scores for bilingual dataset
+		try{
+			engine.writeMatrices(paths, Arrays.asList(files), matrices, names);
+		} catch(IOException e){
+			System.err.println(e.getMessage());
+		};
+		engine.shutdown();
+	}
+}
@@ -0,0 +1,75 @@
+package TestBilingual;
+
+import metrics.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.io.IOException;
+import io.*;
+
+/**
+ * Class CheckpointComputeSimilarity computes the similarity scores for each
+ * pair of documents using all metrics, as AllComputeSimilarity, but keeps
+ * every completed block of rows in a directory (see metrics.CheckpointedRun).
+ * If it is stopped, running it again continues with the blocks that are not
+ * done yet. The blocks are computed by several worker processes at the same
+ * time; this class starts the workers, computes blocks itself, and writes the
+ * .csv files and filenameslists when all blocks are done.
+ */
+public class CheckpointComputeSimilarity{
+	public static void main(String[] args){
+		String directory = "/scratch/clust_init/models";
+		String fileName = "/model/lex.e2f";
+		String checkpoints = "Biling-Checkpoints";
+		String[] files = FileLoadingUtils.listDirectoriesDirectory(directory);
+		boolean bilingual = true;
+		String language = null;
+		int workers = 4; // processes, including this one
+		boolean worker = args.length > 0 && args[0].equals("worker");
+		ArrayList<String> paths = new ArrayList<String>();
+		for( int i = 0; i < files.length; i++ ){
+			paths.add(directory+"/"+files[i]+fileName);
+		}
+		// In the order of MetricSweep.ALL
+		String[] names = { "fileNames2.txt", "fileNames3.txt", "fileNames4.txt",
+				"fileNames6.txt", "fileNames5.txt", "fileNames7.txt",
+				"fileNames8.txt", "fileNames.txt" };
+		String[] matrices = new String[MetricSweep.ALL.length];
+		for( int m = 0; m < MetricSweep.ALL.length; m++ ){
+			matrices[m] = "Biling-Results" + MetricSweep.ALL[m] + ".csv";
+		}
+		int parallelism = Math.max(Runtime.getRuntime().availableProcessors() /
+				workers, 1);
+		SimilarityEngine engine = new SimilarityEngine(
+				new MetricSweep(MetricSweep.ALL, language, bilingual, null),
+				parallelism);
+		CheckpointedRun run = new CheckpointedRun(engine, MetricSweep.ALL, paths,
+				checkpoints);
+
+		// Computing similarity scores for bilingual dataset
+		try{
+			ArrayList<Process> processes = new ArrayList<Process>();
+			if( !worker ){
+				for( int w = 1; w < workers; w++ ){
+					processes.add(CheckpointedRun.startWorker(
+							CheckpointComputeSimilarity.class.getName(),
+							new String[]{"worker"}));
+				}
+			}
+			run.run();
+			if( !worker ){
+				for( int w = 0; w < processes.size(); w++ ){
+					processes.get(w).waitFor();
+				}
+				// Blocks of workers that stopped are computed here
+				if( run.run() ){
+					run.writeMatrices(Arrays.asList(files), matrices, names);
+				}
+			}
+		} catch(IOException e){
+			System.err.println(e.getMessage());
+		} catch(InterruptedException e){
+			System.err.println(e.getMessage());
+		};
+		engine.shutdown();
+	}
+}
@@ -1,7 +1,8 @@
 package TestBilingual;
 
 import metrics.*;
-import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.io.IOException;
 import io.*;
 
@@ -12,6 +13,8 @@ import io.*;
  * pair of documents using the chisquare metric. It writes these similarity
  * scores to a .csv file. It also creates a filenameslist, listing all the
  * names of the documents in the dataset.
+ * Every document is parsed once, and the pairs are compared in parallel
+ * (see metrics.SimilarityEngine).
  */
 public class ChisquareComputeSimilarity{
 	public static void main(String[] args){
@@ -20,30 +23,21 @@ public class ChisquareComputeSimilarity{
 		String[] files = FileLoadingUtils.listDirectoriesDirectory(directory);
 		boolean bilingual = true;
 		String language = null;
+		ArrayList<String> paths = new ArrayList<String>();
+		for( int i = 0; i < files.length; i++ ){
+			paths.add(directory+"/"+files[i]+fileName);
+		}
+		SimilarityEngine engine = new SimilarityEngine(
+				ChisquareMetric.pairMetric(language, "minimum",
+				bilingual, null));
 
-        // Computing similarity scores for bilingual dataset
+		// Computing similarity scores for bilingual dataset
 		try{
-			PrintWriter writer2 = new PrintWriter("fileNames.txt");
-			PrintWriter writer = new PrintWriter("Biling-ResultsChisquare.csv",
-					"UTF-8");
-			for( int i = 0; i < files.length; i++ ){
-				writer2.println(files[i]);
-				for( int j = 0; j < i; j++ ){
-					String a = directory+"/"+files[i]+fileName;
-					String b = directory+"/"+files[j]+fileName;
-
-					ChisquareMetric m = new ChisquareMetric( a, b, language, 
-							"minimum", bilingual );
-					writer.print(m.computeSimilarity()+",");
-				}
-				if( i != 0 ){
-					writer.println("");
-				}
-			}
-			writer.close();
-			writer2.close();
+			engine.writeMatrix(paths, Arrays.asList(files),
+					"Biling-ResultsChisquare.csv", "fileNames.txt");
 		} catch(IOException e){
 			System.err.println(e.getMessage());
 		};
+		engine.shutdown();
 	}
 }
\ No newline at end of file
@@ -0,0 +1,40 @@
+package TestBilingual;
+
+import metrics.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.io.IOException;
+import io.*;
+
+/**
+ * Class IndexComputeSimilarity computes the cosine and Jaccard's coefficient
+ * for each pair of documents from an inverted index (see
+ * metrics.InvertedIndexEngine), which only visits the pairs of documents
+ * that have wordpairs in common. It writes the same .csv files and
+ * filenameslists as CosComputeSimilarity and JaccComputeSimilarity.
+ */
+public class IndexComputeSimilarity{
+	public static void main(String[] args){
+		String directory = "/scratch/clust_init/models";
+		String fileName = "/model/lex.e2f";
+		String[] files = FileLoadingUtils.listDirectoriesDirectory(directory);
+		boolean bilingual = true;
+		String language = null;
+		ArrayList<String> paths = new ArrayList<String>();
+		for( int i = 0; i < files.length; i++ ){
+			paths.add(directory+"/"+files[i]+fileName);
+		}
+		InvertedIndexEngine engine = new InvertedIndexEngine(
+				InvertedIndexEngine.METRICS, language, bilingual, null);
+
+		// Computing similarity scores for bilingual dataset
+		try{
+			engine.writeMatrices(paths, Arrays.asList(files), new String[]{
+					"Biling-ResultsCosine.csv", "Biling-ResultsJaccards.csv" },
+					new String[]{ "fileNames2.txt", "fileNames5.txt" });
+		} catch(IOException e){
+			System.err.println(e.getMessage());
+		};
+		engine.shutdown();
+	}
+}
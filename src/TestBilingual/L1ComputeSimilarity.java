@@ -1,7 +1,8 @@
 package TestBilingual;
 
 import metrics.*;
-import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.io.IOException;
 import io.*;
 
@@ -12,37 +13,31 @@ import io.*;
  * pair of documents using the L1 norm metric. It writes these similarity
  * scores to a .csv file. It also creates a filenameslist, listing all the
  * names of the documents in the dataset.
+ * Every document is parsed once, and the pairs are compared in parallel
+ * (see metrics.SimilarityEngine).
  */
 public class L1ComputeSimilarity{
 	public static void main(String[] args){
-	    //String directory = "/scratch/clust_init/models";
-	String directory = "/home/mellebeek/uva/dataptor/map/clust_init/models";
-        String fileName = "/model/lex.e2f";
-        String[] files = FileLoadingUtils.listDirectoriesDirectory(directory);
-        boolean bilingual = true;
-        String language = null;
+		//String directory = "/scratch/clust_init/models";
+		String directory = "/home/mellebeek/uva/dataptor/map/clust_init/models";
+		String fileName = "/model/lex.e2f";
+		String[] files = FileLoadingUtils.listDirectoriesDirectory(directory);
+		boolean bilingual = true;
+		String language = null;
+		ArrayList<String> paths = new ArrayList<String>();
+		for( int i = 0; i < files.length; i++ ){
+			paths.add(directory+"/"+files[i]+fileName);
+		}
+		SimilarityEngine engine = new SimilarityEngine(
+				L1normMetric.pairMetric(language, bilingual, null));
 
-        // Computing similarity scores for bilingual dataset
+		// Computing similarity scores for bilingual dataset
 		try{
-			PrintWriter writer = new PrintWriter("Biling-ResultsL1norm.csv", "UTF-8");
-			PrintWriter writer2 = new PrintWriter("fileNames8.txt");				
-			for( int i = 0; i < files.length; i++ ){
-				 writer2.println(files[i]);					
-				for( int j = 0; j < i; j++ ){
-                    String a = directory+"/"+files[i]+fileName;
-                    String b = directory+"/"+files[j]+fileName;	
-
-					L1normMetric m = new L1normMetric( a, b, language, bilingual );
-					writer.print(m.computeSimilarity()+",");		
-				}
-				if( i != 0 ){
-					writer.println("");
-				}
-			}
-			writer.close();
-			writer2.close();
+			engine.writeMatrix(paths, Arrays.asList(files),
+					"Biling-ResultsL1norm.csv", "fileNames8.txt");
 		} catch(IOException e){
 			System.err.println(e.getMessage());
 		};
+		engine.shutdown();
 	}
-}
+}
\ No newline at end of file
@@ -4,6 +4,8 @@ import java.io.IOException;
 import java.util.Scanner;
 import java.io.File;
 import java.util.ArrayList;
+import plugin_metrics.MetricProperties;
+import plugin_metrics.MetricRegistry;
 
 /**
  * 
@@ -22,8 +24,6 @@ public class HierarchicalClusteringMain{
 		String fileNames = directory+"filenameLists.txt";
 		String sDirectory = directory+"SimilarityScores/";
 		String similarityScores = directory+"SimilarityScores.txt";
-		String cosine = "Cosine";
-		String jaccards = "Jaccards";		
 		ArrayList<String> fileNamesLists = new ArrayList<String>();
 		ArrayList<String> similarityScoresFiles = new ArrayList<String>();		
 		File file1, file2; 
@@ -52,12 +52,13 @@ public class HierarchicalClusteringMain{
 			/*
 			 *  Cosine and Jaccards both assign higher scores to more similar
 			 *  documents, whereas the other metrics assign lower scores
-			 *  to more similar documents (more of a distance).
+			 *  to more similar documents (more of a distance), see
+			 *  plugin_metrics.MetricRegistry.
 			 */
-			boolean lowScoreIsSimilar = true;
-			if( matrixFile.contains(cosine) || matrixFile.contains(jaccards) ){
-				lowScoreIsSimilar = false;
-			}
+			// The metric of the scores is recognised by the name of the file
+			MetricProperties properties = MetricRegistry.forFileName(matrixFile);
+			boolean lowScoreIsSimilar = properties == null ||
+					!properties.higherIsSimilar;
 			SingleLinkClustering c = new SingleLinkClustering(matrixFile, 
 					documentNamesFile, numberOfDocs, lowScoreIsSimilar);
 			c.init();
@@ -2,6 +2,7 @@ package clustering;
 
 import io.FileLoadingUtils;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -19,6 +20,19 @@ import data_representation.*;
  * the documents (Then a shortlist can be used).
  * After creating a Kmeans object, the startClustering() method has to be 
  * called in order to start the clustering process.
+ * The documents can be represented with feature hashing instead of the words
+ * themselves by setting the field hashing before the clustering is started
+ * (see data_representation.FeatureHashing); the centroids then contain at
+ * most one value per bucket.
+ * For metrics that satisfy the triangle inequality (see
+ * plugin_metrics.MetricProperties) a document is not compared to the
+ * centroids again if it is certainly still closest to the centroid of its
+ * cluster (see assignMembers()); this can be switched off with the field
+ * pruning.
+ * With the field floatPrecision the counts of the documents and the values
+ * of the centroids are stored as floats, which halves their memory; the
+ * sums and the metrics are still computed in double precision, so the
+ * distances differ from those in double precision by rounding only.
  */
 public class Kmeans{
 	public int k;
@@ -30,6 +44,15 @@ public class Kmeans{
 	public String filePath;
 	public boolean changes = true;
 	public boolean relativeFreq = true;
+	public FeatureHashing hashing; // null if the words themselves are used
+	private FeatureHashing documentHashing; // hashing the documents use
+	public boolean pruning = true;
+	public boolean floatPrecision = false;
+	// Margin for rounding errors in the distances used for pruning
+	static final double PRUNING_SLACK = 1e-6;
+	private int[] assigned; // cluster of every document
+	private double[] upperBounds; // bound on the distance to that centroid
+	private Centroid[] previousCentroids; // centroids at the last assignment
 	ArrayList<Document> documentObjects = new ArrayList<Document>();
 	public ArrayList<Cluster> clusters = new ArrayList<Cluster>();
 	Random r = new Random();
@@ -93,10 +116,21 @@ public class Kmeans{
 		Centroid allWords = new Centroid();
 		Random r = new Random();
 		r.setSeed(seed);
+		// Only the cosine and euclidian distance can handle negative values;
+		// the field hashing is left as it was set
+		documentHashing = hashing;
+		if( hashing != null && !(metric instanceof Cosine) &&
+				!(metric instanceof EuclidianDistance) ){
+			documentHashing = hashing.unsigned();
+		}
 		for( int i = 0; i < documentNames.size(); i++ ){
 			Document doc = new Document( documentNames.get(i), language );
+			doc.setFeatureHashing(documentHashing);
+			doc.setFloatPrecision(floatPrecision);
 			documentObjects.add(doc);
 		}
+		// Parse the textfiles in parallel, the lists are created in order
+		ParallelParser.parseAll(documentObjects);
 		for( int i = 0; i < documentObjects.size(); i++ ){
 			documentObjects.get(i).createList( allWords, "forgy" );
 			System.out.println("Document parsed...");
@@ -193,15 +227,53 @@ public class Kmeans{
 
 	/**
 	 * This method assigns documents to clusters based on the distance function
+	 * If the metric satisfies the triangle inequality, an upper bound on the
+	 * distance of every document to the centroid of its cluster is kept: the
+	 * distance when it was computed plus the distances the centroid moved
+	 * since. A document of which the bound is smaller than half the distance
+	 * of its centroid to every other centroid is closer to its own centroid
+	 * than to any other, so it stays in its cluster without being compared
+	 * to the centroids (Elkan's pruning).
 	 */
 	private void assignMembers(){
 		for( int c = 0; c < clusters.size(); c++ ){
 			clusters.get(c).members.clear();
 		}
 
+		MetricProperties properties = metric.getProperties();
+		// The documents are compared to all centroids at once if possible
+		CentroidIndex index = null;
+		if( properties != null && properties.dotProduct ){
+			index = CentroidIndex.build(clusters);
+		}
+		boolean prune = pruning && properties != null &&
+				properties.triangleInequality && !properties.higherIsSimilar;
+		double[] halfGaps = null;
+		double[] drifts = null;
+		if( prune ){
+			halfGaps = halfGaps(properties.symmetric);
+			drifts = drifts();
+		}
 		for( int i = 0; i < documentObjects.size(); i++ ){
-			int bestCluster = metric.getBestCluster(documentObjects.get(i), clusters);
-			clusters.get(bestCluster).addMember( documentObjects.get(i) );
+			Document doc = documentObjects.get(i);
+			int bestCluster;
+			if( prune && assigned[i] >= 0 && upperBounds[i] +
+					drifts[assigned[i]] + PRUNING_SLACK < halfGaps[assigned[i]] ){
+				bestCluster = assigned[i];
+				upperBounds[i] = upperBounds[i] + drifts[bestCluster];
+			}
+			else{
+				if( index != null ){
+					bestCluster = metric.getBestCluster(doc, index);
+				}
+				else bestCluster = metric.getBestCluster(doc, clusters);
+				if( prune ){
+					upperBounds[i] = metric.computeDistance(
+							clusters.get(bestCluster).centroid, doc);
+					assigned[i] = bestCluster;
+				}
+			}
+			clusters.get(bestCluster).addMember( doc );
 		}
 		for( int i = 0; i < clusters.size(); i++ ){
 			clusters.get(i).updateSizeDistrCentroid();
@@ -209,6 +281,60 @@ public class Kmeans{
 		}
 	}
 
+	/**
+	 * This method computes for every centroid half the distance to the
+	 * closest other centroid.
+	 * @param symmetric - the metric is symmetric, so the distance between
+	 * two centroids is computed once
+	 * @return halfGaps - half the distance to the closest other centroid
+	 */
+	private double[] halfGaps( boolean symmetric ){
+		double[] halfGaps = new double[clusters.size()];
+		Arrays.fill(halfGaps, Double.POSITIVE_INFINITY);
+		for( int c = 0; c < clusters.size(); c++ ){
+			for( int d = symmetric ? c + 1 : 0; d < clusters.size(); d++ ){
+				if( c == d ){
+					continue;
+				}
+				double half = 0.5 * metric.computeDistance(
+						clusters.get(c).centroid, clusters.get(d).centroid);
+				halfGaps[c] = Math.min(halfGaps[c], half);
+				if( symmetric ){
+					halfGaps[d] = Math.min(halfGaps[d], half);
+				}
+			}
+		}
+		return halfGaps;
+	}
+
+	/**
+	 * This method computes for every centroid the distance it moved since
+	 * the last assignment, and remembers the current centroids for the next
+	 * assignment. The distance is infinite for the first assignment.
+	 * @return drifts - distance every centroid moved
+	 */
+	private double[] drifts(){
+		if( assigned == null ){
+			assigned = new int[documentObjects.size()];
+			Arrays.fill(assigned, -1);
+			upperBounds = new double[documentObjects.size()];
+		}
+		double[] drifts = new double[clusters.size()];
+		Centroid[] current = new Centroid[clusters.size()];
+		for( int c = 0; c < clusters.size(); c++ ){
+			Centroid centroid = clusters.get(c).centroid;
+			current[c] = new Centroid(centroid.distribution);
+			current[c].distributionSize = centroid.distributionSize;
+			if( previousCentroids == null ){
+				drifts[c] = Double.POSITIVE_INFINITY;
+			}
+			else drifts[c] = metric.computeDistance(previousCentroids[c],
+					current[c]);
+		}
+		previousCentroids = current;
+		return drifts;
+	}
+
 	/**
 	 * This method reestimates the clustercentroids by computing the average
 	 * of its members (the mean).
@@ -221,14 +347,42 @@ public class Kmeans{
 
 	/**
 	 * This method computes the mean of the cluster it receives as input by
-	 * computing the average of its members.
+	 * computing the average of its members. The sums are computed in an array
+	 * that is indexed by the ids of the words, and the mean is stored as a
+	 * vector (see data_representation.TermVectorMap), so that the metrics can
+	 * use its statistics (see data_representation.VectorStatistics). The sums
+	 * are doubles, also if the mean is stored as floats.
 	 * @param cluster - a cluster of which to compute the mean
 	 * @return newMean - the newly computed mean of the cluster
 	 */
 	private Map<String, Double> computeMean( Cluster cluster ){
 		Map<String, Double> currentMean = cluster.centroid.distribution;
 		Map<String, Double> newMean = new HashMap<String, Double>();
+		TermDictionary dictionary = null;
+		int[] ids = null;
 		if( cluster.members.size() > 0 ){
+			dictionary = cluster.members.get(0).getDictionary();
+			ids = meanIds(currentMean, dictionary);
+		}
+		if( ids != null ){
+			double[] sums = new double[dictionary.size()];
+			for( int i = 0; i < cluster.members.size(); i++ ){
+				SparseVector vector = cluster.members.get(i).getVector();
+				for( int j = 0; j < vector.size; j++ ){
+					sums[vector.ids[j]] += vector.value(j);
+				}
+			}
+			double[] values = new double[ids.length];
+			for( int i = 0; i < ids.length; i++ ){
+				values[i] = sums[ids[i]] / (double) cluster.members.size();
+			}
+			SparseVector mean = new SparseVector(ids, values, ids.length);
+			if( floatPrecision ){
+				mean = mean.toFloat();
+			}
+			newMean = new TermVectorMap(mean, dictionary, null);
+		}
+		else if( cluster.members.size() > 0 ){
 			for( Entry<String, Double> entry:currentMean.entrySet() ){
 				String word = entry.getKey();
 				double value = 0;
@@ -245,4 +399,32 @@ public class Kmeans{
 
 		return newMean;
 	}
+
+	/**
+	 * This method returns the sorted ids of the words in the current mean of
+	 * a cluster, which are the words of the new mean.
+	 * @param currentMean - current mean of the cluster
+	 * @param dictionary - dictionary of the documents
+	 * @return ids - ids of the words, or null if a word is not in the
+	 * dictionary
+	 */
+	private int[] meanIds( Map<String, Double> currentMean,
+			TermDictionary dictionary ){
+		if( currentMean instanceof TermVectorMap &&
+				((TermVectorMap) currentMean).getDictionary() == dictionary ){
+			SparseVector vector = ((TermVectorMap) currentMean).getVector();
+			return Arrays.copyOf(vector.ids, vector.size);
+		}
+		int[] ids = new int[currentMean.size()];
+		int n = 0;
+		for( String word:currentMean.keySet() ){
+			int id = dictionary.lookup(word);
+			if( id < 0 ){
+				return null;
+			}
+			ids[n++] = id;
+		}
+		Arrays.sort(ids);
+		return ids;
+	}
 }
\ No newline at end of file
@@ -16,15 +16,17 @@ public class SingleLinkClustering{
 	String documentNamesFile;
 	int numberOfDocuments;
 	boolean lowScoreIsSimilar;
-	ArrayList<Integer> indicesMinDistanceDocs;
+	int[] indicesMinDistanceDocs;
 	ArrayList<HierarchicalCluster> clusters;
 	public AdjacencyMatrix matrix;
 	PrintWriter writer;
+	public boolean floatPrecision = false; // scores stored as floats
 
 	/**
 	 * Constructor
-	 * @param matrixFile - the name of the .csv file containing the matrix
-	 * with the similarity scores
+	 * @param matrixFile - the name of the .csv file (or condensed matrix
+	 * file, see io.CondensedMatrixFile) containing the matrix with the
+	 * similarity scores
 	 * @param documentNamesFile - the name of the file that contains the 
 	 * names of the documents
 	 * @param numberOfDocuments - the number of documents in the data set
@@ -49,6 +51,7 @@ public class SingleLinkClustering{
 	public void init(){
 		matrix = new AdjacencyMatrix(matrixFile, documentNamesFile, 
 				numberOfDocuments, lowScoreIsSimilar);
+		matrix.setFloatPrecision(floatPrecision);
 		matrix.init();
 		indicesMinDistanceDocs = matrix.getIndicesMinDistanceDocs();
 		clusters = new ArrayList<HierarchicalCluster>();
@@ -70,9 +73,9 @@ public class SingleLinkClustering{
 	 * which visualises this layering of clusters. 
 	 */
 	public void startClustering(){
-		for( int i = 0; i < indicesMinDistanceDocs.size(); i++){
-			int arrayIndex = indicesMinDistanceDocs.get(i);
-			double minDistance = matrix.matrixValues.get(arrayIndex);
+		for( int i = 0; i < indicesMinDistanceDocs.length; i++){
+			int arrayIndex = indicesMinDistanceDocs[i];
+			double minDistance = matrix.value(arrayIndex);
 			ArrayList<String> docs = matrix.arrayIndexToDocumentNames(arrayIndex);
 			String doc1 = docs.get(0);
 			String doc2 = docs.get(1);
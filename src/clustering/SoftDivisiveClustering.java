@@ -9,6 +9,7 @@ import plugin_metrics.KLdivergence;
 
 import data_representation.Centroid;
 import data_representation.Document;
+import data_representation.ParallelParser;
 
 /**
  * 
@@ -38,6 +39,8 @@ public class SoftDivisiveClustering {
 			Document doc = new Document( documentNames.get(i), language );
 			documentObjects.add(doc);
 		}
+		// Parse the textfiles in parallel, the lists are created in order
+		ParallelParser.parseAll(documentObjects);
 		Centroid basicInitialCentroid = new Centroid();
 		for( int i = 0; i < documentObjects.size(); i++ ){
 			documentObjects.get(i).createList( basicInitialCentroid, "soft" );
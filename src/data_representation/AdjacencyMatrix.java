@@ -6,7 +6,8 @@ import java.io.File;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
+import io.CondensedMatrixFile;
 
 /**
  * @author miriamhuijser
@@ -15,21 +16,38 @@ import java.util.Collections;
  * matrix is merely the lower triangle of the full adjacency matrix.
  * To use this class, one needs a .csv file with the matrix and a textfile
  * containing the names of the documents in the dataset.
+ * The scores are stored row after row in one array (row r holds the scores
+ * of document r and documents 0 up to r-1), as doubles or, to halve the
+ * memory of a large matrix, as floats (see setFloatPrecision()). They are
+ * read as doubles with value().
+ * The matrix file can also be a condensed matrix file (see
+ * io.CondensedMatrixFile), which is recognised by its first bytes. Its
+ * scores are then read from the mapped file by value(), without parsing
+ * them or copying them to the heap; its precision is the precision of the
+ * file. The scores are indexed by an int, so a matrix has at most
+ * MAX_DOCUMENTS documents.
  */
 public class AdjacencyMatrix{
+	public static final int MAX_DOCUMENTS = 65536; // n * (n-1) / 2 fits an int
+	private static final int MAX_SIZE = (int) CondensedMatrixFile.index(
+			MAX_DOCUMENTS, 0); // scores of MAX_DOCUMENTS documents
 	String matrixFile;
 	String documentNamesFile;
 	int numberOfDocuments;
 	boolean lowScoreIsSimilar;
 	Map<Integer, MatrixIndices> toMatrixIndices;
-	public ArrayList<Double> matrixValues;
-	public ArrayList<ArrayList<Double>> matrixValuesPerRow;
+	double[] values; // null if the scores are stored as floats
+	float[] floats;
+	int[] rowStart; // scores of row r are rowStart[r] up to rowStart[r+1]
+	int size;
+	boolean floatPrecision = false;
+	CondensedMatrixFile condensed; // null if the matrix file is a .csv file
 	public ArrayList<String> documentList;
-	ArrayList<Double> listValues;
 
 	/**
 	 * Constructor
-	 * @param matrixFile - name of .csv file that contains adjacency matrix
+	 * @param matrixFile - name of .csv file (or condensed matrix file) that
+	 * contains adjacency matrix
 	 * @param documentNamesFile - name of textfile that contains the names of
 	 * the documents in the dataset
 	 * @param numberOfDocuments - number of documents in the dataset
@@ -52,17 +70,30 @@ public class AdjacencyMatrix{
 	 * that contains the names of the documents that are in the dataset.
 	 */
 	public void init(){
-		createMatrixRepresentation();
 		initializeValuesMatrix();
+		// The indices of a condensed matrix are computed from its rows
+		if( condensed == null ){
+			createMatrixRepresentation();
+		}
 		initializeDocumentList();
 	}
 
+	/**
+	 * This method sets whether the scores are stored as floats instead of
+	 * doubles. It should be called before init(). It is not used for a
+	 * condensed matrix file, which has a precision of its own.
+	 * @param floatPrecision - the scores are stored as floats
+	 */
+	public void setFloatPrecision( boolean floatPrecision ){
+		this.floatPrecision = floatPrecision;
+	}
+
 	/**
 	 * This method creates the matrix representation.
 	 */
 	public void createMatrixRepresentation(){
-		int numberOfIndices = (int) (Math.pow(numberOfDocuments, 2) - 
-				numberOfDocuments) / 2;
+		int numberOfIndices = (int) CondensedMatrixFile.index(numberOfDocuments,
+				0);
 		toMatrixIndices = new HashMap<Integer, MatrixIndices>();
 		int row = 1;
 		int column = 0; 
@@ -83,32 +114,152 @@ public class AdjacencyMatrix{
 	/**
 	 * This method initializes the matrix representation by reading its values
 	 * from the matrix file.
+	 * @throws IllegalArgumentException if the dataset or the matrix file has
+	 * more than MAX_DOCUMENTS documents
 	 */
 	public void initializeValuesMatrix(){
-		matrixValues = new ArrayList<Double>();
-		matrixValuesPerRow = new ArrayList<ArrayList<Double>>();
+		if( CondensedMatrixFile.isCondensed(matrixFile) ){
+			mapCondensedMatrix();
+			return;
+		}
+		if( numberOfDocuments > MAX_DOCUMENTS ){
+			throw new IllegalArgumentException("The dataset has " +
+					numberOfDocuments + " documents, an adjacency matrix has at most " +
+					MAX_DOCUMENTS);
+		}
+		// The number of scores is computed as a long, n * (n-1) overflows an int
+		int capacity = (int) Math.max(CondensedMatrixFile.index(
+				numberOfDocuments, 0), 16);
+		if( floatPrecision ){
+			floats = new float[capacity];
+		}
+		else values = new double[capacity];
+		rowStart = new int[Math.max(numberOfDocuments, 1) + 1];
+		int rows = 1;
+		size = 0;
 		File file; 
 		Scanner s;
 		try{
 			file = new File(matrixFile);
 			s = new Scanner(file);
-			matrixValuesPerRow.add(new ArrayList<Double>());
 			while(s.hasNextLine()){
-				ArrayList<Double> row = new ArrayList<Double>();
 				String line = s.nextLine();
 				Scanner s2 = new Scanner(line);
 				s2.useDelimiter(",");
 				while( s2.hasNext() ){
-					double value = Double.parseDouble(s2.next());
-					matrixValues.add(value);
-					row.add(value);
+					add(Double.parseDouble(s2.next()));
 				}
 				s2.close();
-				matrixValuesPerRow.add(row);
+				if( rows + 1 >= rowStart.length ){
+					rowStart = Arrays.copyOf(rowStart, 2 * rowStart.length);
+				}
+				rows++;
+				rowStart[rows] = size;
 			}
 		} catch( IOException e){
 			System.err.println(e.getMessage());
 		}
+		rowStart = Arrays.copyOf(rowStart, rows + 1);
+	}
+
+	/**
+	 * This method maps the scores of a condensed matrix file. The rows follow
+	 * from the number of documents in the file.
+	 * @throws IllegalArgumentException if the file has more than
+	 * MAX_DOCUMENTS documents
+	 */
+	private void mapCondensedMatrix(){
+		rowStart = new int[2];
+		size = 0;
+		try{
+			condensed = CondensedMatrixFile.open(matrixFile);
+		} catch( IOException e ){
+			System.err.println(e.getMessage());
+			return;
+		}
+		int n = condensed.numberOfDocuments;
+		if( n > MAX_DOCUMENTS ){
+			condensed = null;
+			throw new IllegalArgumentException(matrixFile + " has " + n +
+					" documents, an adjacency matrix has at most " + MAX_DOCUMENTS);
+		}
+		rowStart = new int[Math.max(n, 1) + 1];
+		for( int row = 1; row <= n; row++ ){
+			rowStart[row] = (int) CondensedMatrixFile.index(row, 0);
+		}
+		size = (int) condensed.size();
+	}
+
+	private void add( double value ){
+		int capacity = floatPrecision ? floats.length : values.length;
+		if( size == capacity ){
+			if( capacity >= MAX_SIZE ){
+				throw new IllegalArgumentException(matrixFile + " has more scores " +
+						"than an adjacency matrix of " + MAX_DOCUMENTS + " documents");
+			}
+			// Doubled, but not beyond the scores of MAX_DOCUMENTS documents
+			capacity = (int) Math.min(2L * capacity, MAX_SIZE);
+			if( floatPrecision ){
+				floats = Arrays.copyOf(floats, capacity);
+			}
+			else values = Arrays.copyOf(values, capacity);
+		}
+		if( floatPrecision ){
+			floats[size] = (float) value;
+		}
+		else values[size] = value;
+		size++;
+	}
+
+	/**
+	 * This method returns the similarity score at an index of the matrix, in
+	 * the order of the matrix file (see arrayIndexToDocumentNames()).
+	 * @param arrayIndex - index of the similarity score
+	 * @return value - similarity score
+	 */
+	public double value( int arrayIndex ){
+		if( condensed != null ){
+			return condensed.value(arrayIndex);
+		}
+		return values != null ? values[arrayIndex] : floats[arrayIndex];
+	}
+
+	/**
+	 * This method returns the similarity score of two documents.
+	 * @param row - index of the first document
+	 * @param column - index of the second document, lower than row
+	 * @return value - similarity score
+	 */
+	public double value( int row, int column ){
+		return value(rowStart[row] + column);
+	}
+
+	/**
+	 * This method returns the number of similarity scores in a row of the
+	 * matrix.
+	 * @param row - index of the document
+	 * @return length - number of scores (row, if the file is complete)
+	 */
+	public int rowLength( int row ){
+		return rowStart[row + 1] - rowStart[row];
+	}
+
+	/**
+	 * This method returns the number of rows of the matrix: the number of
+	 * lines of the matrix file plus the first row, which is empty (or the
+	 * number of documents of a condensed matrix file).
+	 * @return rows - number of rows
+	 */
+	public int rows(){
+		return rowStart.length - 1;
+	}
+
+	/**
+	 * This method returns the number of similarity scores in the matrix.
+	 * @return size - number of scores
+	 */
+	public int size(){
+		return size;
 	}
 
 	/**
@@ -142,9 +293,17 @@ public class AdjacencyMatrix{
 	 */
 	public ArrayList<String> arrayIndexToDocumentNames( int arrayIndex ){
 		ArrayList<String> documentNames = new ArrayList<String>();
-		MatrixIndices indices = toMatrixIndices.get(arrayIndex);
-		int row = indices.row;
-		int column = indices.column;
+		int row;
+		int column;
+		if( toMatrixIndices != null ){
+			MatrixIndices indices = toMatrixIndices.get(arrayIndex);
+			row = indices.row;
+			column = indices.column;
+		}
+		else{
+			row = rowOf(arrayIndex);
+			column = arrayIndex - rowStart[row];
+		}
 		String doc1 = documentList.get(row);
 		String doc2 = documentList.get(column);
 		documentNames.add(doc1);
@@ -153,30 +312,79 @@ public class AdjacencyMatrix{
 	}
 
 	/**
-	 * This method returns a list of indices from the matrix that have
-	 * minimal values.
-	 * @return similarValues - List of matrix indices that have minimal values
+	 * This method returns the row of the similarity score at an index of the
+	 * matrix: the last row that starts at or before the index.
+	 * @param arrayIndex - index of the similarity score
+	 * @return row
 	 */
-	public ArrayList<Integer> getIndicesMinDistanceDocs(){
-		ArrayList<Integer> similarValues = new ArrayList<Integer>();
-		listValues = new ArrayList<Double>();
-		for( int i = 0; i < matrixValues.size(); i++ ){
-			listValues.add(matrixValues.get(i));
+	private int rowOf( int arrayIndex ){
+		int low = 0;
+		int high = rows() - 1;
+		while( low < high ){
+			int middle = (low + high + 1) >>> 1;
+			if( rowStart[middle] <= arrayIndex ){
+				low = middle;
+			}
+			else high = middle - 1;
+		}
+		return low;
+	}
+
+	/**
+	 * This method returns the indices of the matrix ordered from the most
+	 * similar documents to the least similar documents. Indices with the same
+	 * value are ordered by index. The indices are sorted as ints with a
+	 * merge sort, so no object is created per score.
+	 * @return similarValues - matrix indices, most similar first
+	 */
+	public int[] getIndicesMinDistanceDocs(){
+		int[] indices = new int[size];
+		int[] buffer = new int[size];
+		for( int i = 0; i < size; i++ ){
+			indices[i] = i;
 		}
-		if(lowScoreIsSimilar){
-			for( int i = 0; i < listValues.size(); i++ ){
-				int minIndex = listValues.indexOf(Collections.min(listValues));
-				similarValues.add(minIndex);
-				listValues.set(minIndex,Double.POSITIVE_INFINITY);
+		// Runs of width 1, 2, 4, ... are merged back and forth between the
+		// arrays; the merge is stable, so equal values keep the order of their
+		// indices
+		for( int width = 1; width < size; width = 2 * width ){
+			for( int low = 0; low < size; low = low + 2 * width ){
+				int middle = Math.min(low + width, size);
+				int high = Math.min(low + 2 * width, size);
+				merge(indices, buffer, low, middle, high);
 			}
+			int[] swap = indices;
+			indices = buffer;
+			buffer = swap;
 		}
-		else{
-			for( int i = 0; i < listValues.size(); i++ ){
-				int maxIndex = listValues.indexOf(Collections.max(listValues));
-				similarValues.add(maxIndex);
-				listValues.set(maxIndex,Double.NEGATIVE_INFINITY);
-			}			
+		return indices;
+	}
+
+	/**
+	 * This method merges two sorted runs of indices.
+	 * @param from - array with the runs from low up to middle and from middle
+	 * up to high
+	 * @param to - array in which the merged run is stored
+	 * @param low - start of the first run
+	 * @param middle - start of the second run
+	 * @param high - end of the second run
+	 */
+	private void merge( int[] from, int[] to, int low, int middle, int high ){
+		int i = low;
+		int j = middle;
+		for( int k = low; k < high; k++ ){
+			if( j == high || (i < middle && !ranksBefore(from[j], from[i])) ){
+				to[k] = from[i++];
+			}
+			else to[k] = from[j++];
 		}
-		return similarValues;
+	}
+
+	/**
+	 * This method checks whether the score at an index is more similar than
+	 * the score at another index.
+	 */
+	private boolean ranksBefore( int index1, int index2 ){
+		int c = Double.compare(value(index1), value(index2));
+		return lowScoreIsSimilar ? c < 0 : c > 0;
 	}
 }
\ No newline at end of file
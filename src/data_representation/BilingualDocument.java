@@ -1,24 +1,38 @@
 package data_representation;
 
-import java.io.File;
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.Map;
-import java.util.Scanner;
+import java.util.zip.Checksum;
+import io.DocumentCache;
+import io.MappedFileReader;
 
 /**
  * @author miriamhuijser
- * Class BilingualDocument saves a bilingual representation. It expects a 
+ * Class BilingualDocument saves a bilingual representation. It expects a
  * textfile with at each line a (source-target)wordpair and its probability.
  * After creating a BilingualDocument object, the method createList should be
  * called to parse the textfile and create a list of the wordpairs/probabilities.
+ * The source and target words are stored by their id in dictionaries of
+ * their own (see TermDictionary.getSourceDictionary() and
+ * TermDictionary.getTargetDictionary()) and every wordpair is encoded as a
+ * single long (see data_representation.PairVector). The list with wordpairs
+ * and probabilities is a view on the resulting vector, with the highest
+ * probabilities up top.
+ * If feature hashing is used (see setFeatureHashing()), the probabilities of
+ * the wordpairs are added up per bucket instead and the list contains the
+ * buckets.
  */
 public class BilingualDocument extends Document{
-	public Map<String, Double> wordContainer;
-	
+	public PairSet wordContainer;
+	protected TermDictionary sourceDictionary = TermDictionary.getSourceDictionary();
+	protected TermDictionary targetDictionary = TermDictionary.getTargetDictionary();
+	protected PairTable table;
+	protected PairVector pairs;
+
 	/**
 	 * Constructor
-	 * @param textFile - name of textfile that contains the wordpairs and 
+	 * @param textFile - name of textfile that contains the wordpairs and
 	 * probabilities.
 	 */
 	public BilingualDocument( String textFile ){
@@ -27,54 +41,190 @@ public class BilingualDocument extends Document{
 
 	/**
 	 * This method creates a list of all the wordpairs and their probabilities.
-	 * @param wordContainer - container of words that appear in this document,
-	 * but also in previously instantiated bilingual documents. Its purpose
-	 * is to collect all the words that appear in the entire dataset.
-	 * @return
+	 * @param wordContainer - container of wordpairs that appear in this
+	 * document, but also in previously instantiated bilingual documents. Its
+	 * purpose is to collect all the wordpairs that appear in the entire
+	 * dataset. (May be null)
+	 * @return list - list of wordpairs and their probabilities
 	 */
-	public Map<String, Double> createList(Map<String, Double> wordContainer){
-		Map<String, Double> list = new HashMap<String, Double>();
+	public Map<String, Double> createList( PairSet wordContainer ){
 		this.wordContainer = wordContainer;
+		table = new PairTable();
 		parseFile();
-		list = words;
+		pairs = table.toVector();
+		table = null;
+		if( hashing != null ){
+			vector = hashPairs();
+			limitList = vector.size;
+			order = selectTop(vector.values, vector.size, vector.size);
+			list = new TermVectorMap(vector, hashing.getDictionary(), order);
+		}
+		else{
+			limitList = pairs.size;
+			order = selectTop(pairs.values, pairs.size, pairs.size);
+			list = new PairVectorMap(pairs, sourceDictionary, targetDictionary, order);
+			if( wordContainer != null ){
+				for( int i = 0; i < pairs.size; i++ ){
+					wordContainer.add( pairs.keys[i] );
+				}
+			}
+		}
+		words = list;
 
 		return list;
 	}
 
+	/**
+	 * This method creates a list of all the wordpairs and their probabilities,
+	 * without collecting the wordpairs of the entire dataset.
+	 * @return list - list of wordpairs and their probabilities
+	 */
+	public Map<String, Double> createList(){
+		return createList( (PairSet) null );
+	}
+
+	/**
+	 * This method adds up the probabilities of the wordpairs per bucket (see
+	 * data_representation.FeatureHashing). The buckets of the wordpairs
+	 * are also added to the word container.
+	 * @return vector - the buckets and their (signed) probabilities
+	 */
+	private SparseVector hashPairs(){
+		double[] sums = new double[hashing.buckets];
+		boolean[] used = new boolean[hashing.buckets];
+		int size = 0;
+		for( int i = 0; i < pairs.size; i++ ){
+			int hash = FeatureHashing.pairHash(
+					sourceDictionary.term(PairVector.source(pairs.keys[i])).hashCode(),
+					targetDictionary.term(PairVector.target(pairs.keys[i])).hashCode());
+			int bucket = hashing.bucket(hash);
+			sums[bucket] += hashing.sign(hash) * pairs.values[i];
+			if( !used[bucket] ){
+				used[bucket] = true;
+				size++;
+				if( wordContainer != null ){
+					wordContainer.add( bucket );
+				}
+			}
+		}
+		int[] ids = new int[size];
+		double[] values = new double[size];
+		int n = 0;
+		for( int bucket = 0; bucket < sums.length; bucket++ ){
+			if( used[bucket] ){
+				ids[n] = bucket;
+				values[n] = sums[bucket];
+				n++;
+			}
+		}
+		return new SparseVector(ids, values, size);
+	}
+
+	/**
+	 * Getter for the vector with the wordpairs and their probabilities
+	 * @return pairs
+	 */
+	public PairVector getPairVector(){
+		return pairs;
+	}
+
 	/**
 	 * This method reads and parses the textfile that contains the wordpairs
 	 * and probabilities. It then adds these values to the list.
+	 * The textfile is read as UTF-8 through a memory-mapped buffer
+	 * (see io.MappedFileReader) and split on whitespace.
+	 * If a cache is used (see io.DocumentCache), the stored wordpairs are
+	 * loaded instead if the textfile did not change; otherwise the wordpairs
+	 * are stored.
 	 */
 	protected void parseFile(){
-		File fileName;
-		Scanner s;
+		DocumentCache cache = DocumentCache.getDefault();
+		if( cache == null ){
+			tokenizeFile(null, null, null);
+			return;
+		}
+		DocumentCache.CachedPairs cached = cache.loadPairs(textFile);
+		if( cached != null ){
+			for( int i = 0; i < cached.probabilities.length; i++ ){
+				addToList( PairVector.pack(
+						sourceDictionary.intern(cached.sources[i]),
+						targetDictionary.intern(cached.targets[i])),
+						cached.probabilities[i] );
+			}
+			return;
+		}
+		ArrayList<Long> keys = new ArrayList<Long>();
+		ArrayList<Double> probabilities = new ArrayList<Double>();
+		// The state is taken before parsing, so that a textfile that changes
+		// in the meantime is not stored with the old content
+		DocumentCache.SourceState state = cache.getState(textFile);
+		tokenizeFile(keys, probabilities, state.checksum);
+		cached = new DocumentCache.CachedPairs();
+		cached.sources = new String[keys.size()];
+		cached.targets = new String[keys.size()];
+		cached.probabilities = new double[keys.size()];
+		for( int i = 0; i < keys.size(); i++ ){
+			long key = keys.get(i);
+			cached.sources[i] = sourceDictionary.term(PairVector.source(key));
+			cached.targets[i] = targetDictionary.term(PairVector.target(key));
+			cached.probabilities[i] = probabilities.get(i);
+		}
+		cache.storePairs(textFile, state, cached);
+	}
+
+	/**
+	 * This method tokenizes the textfile and adds the wordpairs and their
+	 * probabilities to the list.
+	 * @param keys - list to which the keys of the wordpairs are added in
+	 * the order of the textfile (or null)
+	 * @param probabilities - list to which the probabilities are added as
+	 * well (or null)
+	 * @param checksum - checksum to which the bytes of the textfile are
+	 * added (or null)
+	 */
+	private void tokenizeFile( final ArrayList<Long> keys,
+			final ArrayList<Double> probabilities, Checksum checksum ){
 		try{
-			fileName = new File(textFile);
-			s = new Scanner( fileName );
-			while( s.hasNext() ){
-				String word1 = s.next();
-				String word2 = s.next();
-				double probability = Double.parseDouble(s.next());
-				String wordpair = word1+"-"+word2;
-				if( (word1 != null) && (word2 != null) ){
-					addToList( wordpair, probability );
+			Tokenizer tokenizer = new Tokenizer( new Tokenizer.TokenHandler(){
+				int sourceId;
+				int targetId;
+				int field = 0;
+
+				public void handleToken( char[] buffer, int offset, int length ){
+					if( field == 0 ){
+						sourceId = sourceDictionary.intern(buffer, offset, length);
+					}
+					else if( field == 1 ){
+						targetId = targetDictionary.intern(buffer, offset, length);
+					}
+					else{
+						double probability = Double.parseDouble(
+								new String(buffer, offset, length));
+						long key = PairVector.pack(sourceId, targetId);
+						addToList( key, probability );
+						if( keys != null ){
+							keys.add( key );
+							probabilities.add( probability );
+						}
+					}
+					field = (field + 1) % 3;
 				}
-			}
-			s.close();
+			}, false, true );
+			MappedFileReader.tokenize( textFile, tokenizer, checksum );
 		}	catch (IOException e) {
 			e.printStackTrace();
 		}
 	}
 
 	/**
-	 * This method adds a wordpair and its probability to the list and to
-	 * the word container (which contains the words of the entire dataset)
-	 * @param wordpair - wordpair as appearing in the textfile
-	 * @param probability - corresponding probability as appearing in the 
+	 * This method adds a wordpair and its probability to the list. (The
+	 * wordpairs are added to the word container, which contains the wordpairs
+	 * of the entire dataset, once the list is created.)
+	 * @param key - key of the wordpair (see data_representation.PairVector)
+	 * @param probability - corresponding probability as appearing in the
 	 * textfile
 	 */
-	private void addToList( String wordpair, double probability ){
-		words.put( wordpair, probability );
-		wordContainer.put(wordpair, 0.0);
+	private void addToList( long key, double probability ){
+		table.put( key, probability );
 	}
-}
\ No newline at end of file
+}
@@ -10,12 +10,23 @@ import java.util.List;
  * @author miriamhuijser
  * Class Centroid contains variables that store a centroid's distribution.
  * It also provides a method that creates a twin centroid.
+ * A distribution that is a view on a vector (see
+ * data_representation.TermVectorMap) can not be changed; it is replaced by a
+ * new distribution instead.
  */
 public class Centroid {
 	public Map<String, Double> distribution;
 	public double initialDivergenceTwin = 0;
 	public double divergenceWithTwin = 0;
 	public int distributionSize = 10000;
+	// Density above which the distribution is also stored as a dense vector
+	public static double denseThreshold = 0.25;
+	private VectorStatistics statistics;
+	private Map<String, Double> statisticsOf; // distribution of the statistics
+	private DenseVector dense;
+	private Map<String, Double> denseOf; // distribution of the dense vector
+	private LogVector logVector;
+	private Map<String, Double> logVectorOf; // distribution of the log vector
 	
 	/**
 	 * Default constructor
@@ -32,6 +43,75 @@ public class Centroid {
 		this.distribution = distribution;
 	}
 
+	/**
+	 * This method returns the statistics of the values of the distribution
+	 * (see data_representation.VectorStatistics) if the distribution is a
+	 * view on a vector (see data_representation.TermVectorMap), as it is after
+	 * a Kmeans iteration. They are computed once for every new distribution.
+	 * @return statistics - statistics, or null if the distribution is not a
+	 * view on a vector
+	 */
+	public VectorStatistics getStatistics(){
+		if( !(distribution instanceof TermVectorMap) ){
+			return null;
+		}
+		if( statisticsOf != distribution ){
+			statistics = new VectorStatistics(
+					((TermVectorMap) distribution).getVector());
+			statisticsOf = distribution;
+		}
+		return statistics;
+	}
+
+	/**
+	 * This method returns the distribution as a dense vector (see
+	 * data_representation.DenseVector) if the distribution is a view on a
+	 * vector (see data_representation.TermVectorMap) that contains at least
+	 * denseThreshold of its dictionary. It is built once for every new
+	 * distribution.
+	 * @return dense - dense vector, or null if the distribution is not a view
+	 * on a vector or is too sparse
+	 */
+	public DenseVector getDense(){
+		if( !(distribution instanceof TermVectorMap) ){
+			return null;
+		}
+		if( denseOf != distribution ){
+			TermVectorMap map = (TermVectorMap) distribution;
+			int dimension = map.getDictionary().size();
+			dense = null;
+			if( DenseVector.density(map.getVector(), dimension) >= denseThreshold ){
+				dense = new DenseVector(map.getVector(), dimension);
+			}
+			denseOf = distribution;
+		}
+		return dense;
+	}
+
+	/**
+	 * This method returns the probabilities of the distribution and their
+	 * logarithms (see data_representation.LogVector) if the distribution is a
+	 * view on a vector (see data_representation.TermVectorMap). They are
+	 * computed once for every new distribution.
+	 * @param relativeFreq - boolean that indicates whether the representation
+	 * uses relative frequency/probability or the "normal" frequency of the
+	 * words
+	 * @return logVector - log vector, or null if the distribution is not a
+	 * view on a vector
+	 */
+	public LogVector getLogVector( boolean relativeFreq ){
+		if( !(distribution instanceof TermVectorMap) ){
+			return null;
+		}
+		if( logVectorOf != distribution ||
+				!logVector.matches(distributionSize, relativeFreq) ){
+			logVector = new LogVector(((TermVectorMap) distribution).getVector(),
+					distributionSize, relativeFreq);
+			logVectorOf = distribution;
+		}
+		return logVector;
+	}
+
 	/**
 	 * This method returns a twin centroid by roughly duplicating
 	 * the distribution of the current centroid.
@@ -0,0 +1,97 @@
+package data_representation;
+
+import java.util.ArrayList;
+
+/**
+ * Class CentroidIndex stores the centroids of a list of clusters word by
+ * word (an inverted index): for every id of the dictionary it stores the
+ * centroids in which the word occurs, together with the position and the
+ * value of the word in the vector of the centroid. A document can then be
+ * compared to all centroids at once by going through its own words only
+ * (see plugin_metrics.Metric.getClosestCentroids(Document, CentroidIndex)).
+ * The postings of the word with id t are start[t] up to start[t+1].
+ * The index can only be built if the distributions of all centroids are
+ * views on a vector (see data_representation.TermVectorMap) with the same
+ * dictionary, as they are after a Kmeans iteration.
+ */
+public class CentroidIndex{
+	public ArrayList<Cluster> clusters;
+	public TermDictionary dictionary;
+	public int[] start;
+	public int[] centroids;
+	public int[] positions;
+	public double[] values;
+
+	private CentroidIndex( ArrayList<Cluster> clusters,
+			TermDictionary dictionary ){
+		this.clusters = clusters;
+		this.dictionary = dictionary;
+		int dimension = dictionary.size();
+		start = new int[dimension + 1];
+		int postings = 0;
+		for( int c = 0; c < clusters.size(); c++ ){
+			SparseVector vector = vectorOf(clusters.get(c));
+			for( int i = 0; i < vector.size; i++ ){
+				start[vector.ids[i] + 1]++;
+			}
+			postings = postings + vector.size;
+		}
+		for( int t = 0; t < dimension; t++ ){
+			start[t + 1] = start[t + 1] + start[t];
+		}
+		centroids = new int[postings];
+		positions = new int[postings];
+		values = new double[postings];
+		int[] next = new int[dimension];
+		System.arraycopy(start, 0, next, 0, dimension);
+		for( int c = 0; c < clusters.size(); c++ ){
+			SparseVector vector = vectorOf(clusters.get(c));
+			for( int i = 0; i < vector.size; i++ ){
+				int posting = next[vector.ids[i]]++;
+				centroids[posting] = c;
+				positions[posting] = i;
+				values[posting] = vector.value(i);
+			}
+		}
+	}
+
+	/**
+	 * This method builds the index of the centroids of a list of clusters.
+	 * @param clusters - clusters
+	 * @return index - index, or null if not all distributions are views on a
+	 * vector with the same dictionary
+	 */
+	public static CentroidIndex build( ArrayList<Cluster> clusters ){
+		TermDictionary dictionary = null;
+		for( int c = 0; c < clusters.size(); c++ ){
+			Centroid centroid = clusters.get(c).centroid;
+			if( !(centroid.distribution instanceof TermVectorMap) ){
+				return null;
+			}
+			TermDictionary of =
+					((TermVectorMap) centroid.distribution).getDictionary();
+			if( dictionary != null && of != dictionary ){
+				return null;
+			}
+			dictionary = of;
+		}
+		if( dictionary == null ){
+			return null;
+		}
+		return new CentroidIndex(clusters, dictionary);
+	}
+
+	/**
+	 * This method returns the number of ids in the index; words with a
+	 * higher id (added to the dictionary afterwards) do not occur in any
+	 * centroid.
+	 * @return dimension
+	 */
+	public int dimension(){
+		return start.length - 1;
+	}
+
+	private static SparseVector vectorOf( Cluster cluster ){
+		return ((TermVectorMap) cluster.centroid.distribution).getVector();
+	}
+}
@@ -0,0 +1,48 @@
+package data_representation;
+
+import java.util.Arrays;
+
+/**
+ * Class DenseVector stores the values of a vector (see
+ * data_representation.SparseVector) in an array that is indexed by the ids of
+ * the dictionary, so that the value of a word can be looked up directly
+ * instead of being searched for. This pays off for vectors that contain a
+ * large part of the dictionary, like the centroids of Kmeans (see
+ * data_representation.Centroid.getDense()).
+ * The values are stored as returned by SparseVector.value(), so including its
+ * divisor, together with the position of every word in the vector; words
+ * that do not occur in the vector have value 0 and position -1.
+ */
+public class DenseVector{
+	public double[] values;
+	public int[] positions;
+
+	/**
+	 * Constructor
+	 * @param vector - vector of which the values are stored
+	 * @param dimension - number of ids in the dictionary of the vector
+	 */
+	public DenseVector( SparseVector vector, int dimension ){
+		values = new double[dimension];
+		positions = new int[dimension];
+		Arrays.fill(positions, -1);
+		for( int i = 0; i < vector.size; i++ ){
+			values[vector.ids[i]] = vector.value(i);
+			positions[vector.ids[i]] = i;
+		}
+	}
+
+	/**
+	 * This method computes the density of a vector: the part of the
+	 * dictionary that occurs in the vector.
+	 * @param vector - vector
+	 * @param dimension - number of ids in the dictionary of the vector
+	 * @return density - density between 0 and 1
+	 */
+	public static double density( SparseVector vector, int dimension ){
+		if( dimension == 0 ){
+			return 0;
+		}
+		return vector.size / (double) dimension;
+	}
+}
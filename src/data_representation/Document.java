@@ -1,12 +1,8 @@
 package data_representation;
 
-import java.io.File;
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Scanner;
 import java.util.Random;
 
 /**
@@ -15,6 +11,8 @@ import java.util.Random;
  * As opposed to FrequencyList, this class creates a FrecuencyList of the document
  * with the relative frequency instead of the mere count of words.
  * mainly used for clustering
+ * (The vector keeps the counts of the words and uses the corpus size as its
+ * divisor, see data_representation.SparseVector)
  */
 public class Document extends FrequencyList {
 	public Centroid initCentroid = new Centroid();
@@ -22,6 +20,7 @@ public class Document extends FrequencyList {
 	public ArrayList<ArrayList<Double>> membershipProbTwin = new ArrayList<ArrayList<Double>>();
 	public Map<String, Double> words = new HashMap<String, Double>();
 	String c;
+	boolean relativeFreq = false;
 	Random random = new Random();
 	
 	/**
@@ -47,11 +46,9 @@ public class Document extends FrequencyList {
 	public Map<String, Double> createList( Centroid initCentroid, String c ){
 		this.c = c;
 		this.initCentroid = initCentroid;
-		if( language != null){
-			standardVocab = new StandardVocabulary(language);
-			standardVocabUsed = true;
+		if( vector == null ){
+			parse(dictionary);
 		}
-		parseFile();
 		
 		if( c != null && (c.equals("forgy") || c.equals("soft")) ){
 			addRelativeFreq(c);
@@ -64,47 +61,18 @@ public class Document extends FrequencyList {
 	}
 
 	/**
-	 * This method reads and parses the textfile that contains the corpus and
-	 * adds each word to the wordlist.
+	 * This method updates the relative frequencies to the new corpus size
+	 * after text was added to or removed from the document (see
+	 * FrequencyList.addText() and FrequencyList.removeText()). The centroids
+	 * are not changed; the returned ids of those methods tell which words
+	 * changed.
 	 */
-	protected void parseFile(){
-		File fileName;
-		Scanner s;
-		try {
-			fileName = new File(textFile);
-			s = new Scanner( fileName );
-			s.useDelimiter("[ ,!?.:()\"\n]+");
-			while( s.hasNext() ){
-				String word = s.next();
-				word = removePunctuation(word);
-
-				if( (word != null) ){
-					addToList(word);
-				}
-			}
-			s.close();
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
-	}
-
-	/**
-	 * This method adds a word to the wordlist and its frequency is recorded.
-	 * @param word - word to be added.
-	 */
-	private void addToList( String word ){
-		/* If a shortlist is used and the word appear in it, it is not added
-		 * to the wordlist
-		 */
-		if( !standardVocabUsed || !standardVocab.shortlist.containsKey(word) ){ 
-			corpusSize++;	
-			if( list.containsKey( word ) ){
-				double frequency = list.get( word );
-				frequency++;
-				list.put( word, frequency );
-			}
-			else list.put( word, 1.0 );	
+	protected void countsChanged(){
+		if( relativeFreq ){
+			full.divisor = corpusSize;
+			vector.divisor = corpusSize;
 		}
+		words = list;
 	}
 
 	/**
@@ -115,19 +83,20 @@ public class Document extends FrequencyList {
 	 * @param c - centroid initialization method used
 	 */
 	private void addRelativeFreq(String c){
+		vector.divisor = corpusSize;
+		relativeFreq = true;
+		statistics = null;
+		logVector = null;
 		if( c.equals("forgy") ){
-			for( Entry<String, Double> entry:list.entrySet() ){
-				String word = entry.getKey();
-				double relativeFreq = entry.getValue()/(double) corpusSize;
-				list.put(word, relativeFreq );
+			for( int i = 0; i < vector.size; i++ ){
+				String word = dictionary.term(vector.ids[i]);
 				initCentroid.distribution.put(word, 0.0);
 			}
 		}
 		else if( c.equals("soft") ){
-			for( Entry<String, Double> entry:list.entrySet() ){
-				String word = entry.getKey();
-				double relativeFreq = entry.getValue()/(double) corpusSize;
-				list.put(word, relativeFreq );
+			for( int i = 0; i < vector.size; i++ ){
+				String word = dictionary.term(vector.ids[i]);
+				double relativeFreq = vector.value(i);
 				if( initCentroid.distribution.containsKey( word ) ){
 					double value = initCentroid.distribution.get(word);
 					value = value + relativeFreq;
@@ -147,10 +116,12 @@ public class Document extends FrequencyList {
 	 * 0 and 1.
 	 */
 	private void addRelativeFreq(){
-		for( Entry<String, Double> entry:list.entrySet() ){
-			String word = entry.getKey();
-			double relativeFreq = entry.getValue()/(double) corpusSize;
-			list.put(word, relativeFreq );
+		vector.divisor = corpusSize;
+		relativeFreq = true;
+		statistics = null;
+		logVector = null;
+		for( int i = 0; i < vector.size; i++ ){
+			String word = dictionary.term(vector.ids[i]);
 			double newValue = random.nextDouble();
 			initCentroid.distribution.put(word, newValue);
 		}
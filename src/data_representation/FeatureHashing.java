@@ -0,0 +1,178 @@
+package data_representation;
+
+/**
+ * Class FeatureHashing maps words (or wordpairs) to a fixed number of
+ * buckets, so that the size of a representation no longer grows with the
+ * vocabulary of the corpus (feature hashing, or the "hashing trick").
+ * A document that uses feature hashing (see
+ * FrequencyList.setFeatureHashing()) counts the buckets of its words
+ * instead of the words themselves. The buckets are named "#0", "#1", ...
+ * (see getDictionary()), so the Map-based representations and the
+ * centroids keep working and contain at most one entry per bucket.
+ * With signed hashing every word also gets a sign (+1 or -1), so that
+ * collisions cancel out on average; this keeps inner products and
+ * distances unbiased (cosine, euclidian distance), but gives negative
+ * values that the divergence metrics can not handle (see unsigned()).
+ */
+public class FeatureHashing{
+	public final int buckets;
+	public final boolean signed;
+	private TermDictionary dictionary;
+
+	/**
+	 * Constructor
+	 * @param buckets - number of buckets
+	 * @param signed - boolean that indicates whether signed hashing is used
+	 */
+	public FeatureHashing( int buckets, boolean signed ){
+		if( buckets <= 0 ){
+			throw new IllegalArgumentException("Number of buckets should be positive");
+		}
+		this.buckets = buckets;
+		this.signed = signed;
+		this.dictionary = new BucketDictionary(buckets);
+	}
+
+	/**
+	 * This method returns feature hashing with the same buckets, but without
+	 * signs.
+	 * @return hashing
+	 */
+	public FeatureHashing unsigned(){
+		if( !signed ){
+			return this;
+		}
+		return new FeatureHashing(buckets, false);
+	}
+
+	/**
+	 * This method returns the dictionary of the buckets: the id of a bucket
+	 * is its number and its name is "#" followed by the number.
+	 * @return dictionary
+	 */
+	public TermDictionary getDictionary(){
+		return dictionary;
+	}
+
+	/**
+	 * This method returns a fingerprint of the settings, so that stored
+	 * results (see io.DocumentCache) can be told apart.
+	 * @return fingerprint
+	 */
+	public long getFingerprint(){
+		return ((long) buckets << 1) | (signed ? 1 : 0) | (1L << 62);
+	}
+
+	/**
+	 * This method computes the hash of a word.
+	 * @param buffer - buffer that contains the word
+	 * @param offset - index of the first character of the word
+	 * @param length - number of characters of the word
+	 * @return hash
+	 */
+	public static int hash( char[] buffer, int offset, int length ){
+		int h = 0;
+		int end = offset + length;
+		for( int i = offset; i < end; i++ ){
+			h = 31 * h + buffer[i];
+		}
+		return h;
+	}
+
+	/**
+	 * This method combines the hashes of the source and target word of a
+	 * wordpair into the hash of the wordpair.
+	 * @param sourceHash - hash of the source word
+	 * @param targetHash - hash of the target word
+	 * @return hash
+	 */
+	public static int pairHash( int sourceHash, int targetHash ){
+		return mix(sourceHash) * 31 + targetHash;
+	}
+
+	/**
+	 * This method returns the bucket of a hash.
+	 * @param hash - hash of a word (see hash())
+	 * @return bucket
+	 */
+	public int bucket( int hash ){
+		return (int) ((mix(hash) & 0xFFFFFFFFL) % buckets);
+	}
+
+	/**
+	 * This method returns the sign of a hash, which is always 1 if signed
+	 * hashing is not used.
+	 * @param hash - hash of a word (see hash())
+	 * @return sign - 1 or -1
+	 */
+	public int sign( int hash ){
+		if( !signed ){
+			return 1;
+		}
+		return (mix(hash ^ 0x9E3779B9) & 1) == 0 ? 1 : -1;
+	}
+
+	/**
+	 * This method spreads the bits of a hash (the finalization step of
+	 * MurmurHash3), so that similar words end up in different buckets.
+	 */
+	private static int mix( int h ){
+		h ^= h >>> 16;
+		h *= 0x85EBCA6B;
+		h ^= h >>> 13;
+		h *= 0xC2B2AE35;
+		h ^= h >>> 16;
+		return h;
+	}
+
+	/**
+	 * Class BucketDictionary is the dictionary of the buckets. The names of
+	 * the buckets are not stored, but created when they are asked for.
+	 */
+	private static class BucketDictionary extends TermDictionary{
+		private int buckets;
+
+		BucketDictionary( int buckets ){
+			super(1);
+			this.buckets = buckets;
+		}
+
+		public int intern( char[] buffer, int offset, int length ){
+			return lookup(new String(buffer, offset, length));
+		}
+
+		public int intern( String term ){
+			return lookup(term);
+		}
+
+		public int lookup( char[] buffer, int offset, int length ){
+			return lookup(new String(buffer, offset, length));
+		}
+
+		public int lookup( String term ){
+			if( term.length() < 2 || term.charAt(0) != '#' ){
+				return -1;
+			}
+			int bucket = 0;
+			for( int i = 1; i < term.length(); i++ ){
+				char c = term.charAt(i);
+				if( c < '0' || c > '9' || (i == 1 && c == '0' && term.length() > 2) ){
+					return -1;
+				}
+				bucket = bucket * 10 + (c - '0');
+				if( bucket >= buckets ){
+					return -1;
+				}
+			}
+			return bucket;
+		}
+
+		public String term( int id ){
+			return "#" + id;
+		}
+
+		public int size(){
+			return buckets;
+		}
+	}
+}
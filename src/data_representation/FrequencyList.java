@@ -1,14 +1,12 @@
 package data_representation;
 
-import java.util.Scanner;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.zip.Checksum;
 import java.io.*;
+import io.DocumentCache;
+import io.MappedFileReader;
 
 /**
  * @author miriamhuijser
@@ -16,15 +14,38 @@ import java.io.*;
  * listed with their frequency in the document. There is an option to use
  * a shortlist that will filter out highly frequent non-representative stopwords
  * (see class data_represenation.StandardVocabulary). 
+ * The words are stored by their id in the dictionary of the corpus (see
+ * class data_representation.TermDictionary) in a SparseVector; the list with
+ * words and frequencies is a view on this vector.
  */
 public class FrequencyList{
 	protected int topN;
 	public String textFile;
 	protected String language;
 	protected Map<String, Double> list = new HashMap<String, Double>();
+	protected TermDictionary dictionary = TermDictionary.getCorpusDictionary();
+	protected TermCounter counts;
+	protected SparseVector vector;
+	protected SparseVector full; // all words, also those outside the top N
+	private TermCounter addedWords; // words that are not in full yet
+	private int removedWords; // words in full with a count of 0
+	private int numberOfWords; // words with a count above 0
+	// Ranking of the top N words and a reserve of words after them, with
+	// their counts and words (see update())
+	private int[] rankedIds;
+	private double[] rankedCounts;
+	private String[] rankedTerms;
+	private int rankedSize;
+	private boolean rankedAll; // the ranking contains all words
+	protected int[] order;
+	protected TermPrefix prefix;
+	protected VectorStatistics statistics;
+	protected LogVector logVector;
+	protected FeatureHashing hashing;
 	protected StandardVocabulary standardVocab;
 	public int corpusSize = 0;
 	protected boolean standardVocabUsed = false;
+	protected boolean floatPrecision = false;
 	public int limitList;
 
 	/**
@@ -50,15 +71,192 @@ public class FrequencyList{
 	 * @return list - created list with words and corresponding frequencies
 	 */
 	public Map<String, Double> createList(){
+		if( vector == null ){
+			parse(dictionary);
+		}
+		sortList();
+
+		return list;
+	}
+
+	/**
+	 * This method creates a document with only the top N words of this
+	 * document, without parsing the textfile again: the counts of all words
+	 * are copied and the top N words are selected from them, as createList()
+	 * would have done for a document that was created with that N.
+	 * createList() has to be called first.
+	 * @param topN - number of words that are kept, -1 for all words
+	 * @return copy - created document
+	 */
+	public FrequencyList copyTop( int topN ){
+		if( full == null ){
+			throw new IllegalStateException("createList() has to be called first");
+		}
+		compact();
+		FrequencyList copy = new FrequencyList(textFile, language, topN);
+		copy.dictionary = dictionary;
+		copy.hashing = hashing;
+		copy.standardVocab = standardVocab;
+		copy.standardVocabUsed = standardVocabUsed;
+		copy.floatPrecision = floatPrecision;
+		copy.corpusSize = corpusSize;
+		// The counts are copied, since they are changed in place by addText()
+		SparseVector counts = new SparseVector(Arrays.copyOf(full.ids, full.size),
+				new double[full.size], full.size);
+		for( int i = 0; i < full.size; i++ ){
+			counts.values[i] = full.raw(i);
+		}
+		counts.divisor = full.divisor;
+		copy.vector = counts;
+		copy.sortList();
+		return copy;
+	}
+
+	/**
+	 * This method parses the textfile and counts the words, using the given
+	 * dictionary for the ids of the words. It is called by createList() if
+	 * the document has not been parsed before, but it can also be called
+	 * beforehand with a dictionary of its own, e.g. to parse several
+	 * documents at the same time (see data_representation.ParallelParser).
+	 * If feature hashing is used, the dictionary of the buckets is used
+	 * instead.
+	 * @param dictionary - dictionary used for the ids of the words
+	 */
+	public void parse( TermDictionary dictionary ){
+		this.dictionary = hashing != null ? hashing.getDictionary() : dictionary;
 		// Use shortlist
 		if( language != null){
-			standardVocab = new StandardVocabulary(language);
+			standardVocab = StandardVocabulary.getInstance(language);
 			standardVocabUsed = true;
 		}
 		parseFile();
-		sortList();
+	}
 
-		return list;
+	/**
+	 * This method adds the words of this document to another dictionary
+	 * and replaces the ids in the vector by the ids in that dictionary.
+	 * The words are added in the order of their ids in the current
+	 * dictionary, so a document that was parsed with a dictionary of its own
+	 * gets the same ids as it would have gotten by parsing it with the
+	 * other dictionary directly.
+	 * @param target - dictionary that will be used from now on
+	 */
+	public void mergeDictionary( TermDictionary target ){
+		// The ids of buckets are the same in every document
+		if( target == dictionary || hashing != null ){
+			return;
+		}
+		compact();
+		rankedIds = null;
+		int[] mapping = new int[dictionary.size()];
+		for( int id = 0; id < mapping.length; id++ ){
+			mapping[id] = target.intern(dictionary.term(id));
+		}
+		if( full != null && full != vector ){
+			full = remap(full, mapping, new int[full.size]);
+		}
+		if( vector != null ){
+			int[] newPosition = new int[vector.size];
+			boolean shared = vector == full;
+			vector = remap(vector, mapping, newPosition);
+			if( shared ){
+				full = vector;
+			}
+			if( order != null ){
+				for( int i = 0; i < order.length; i++ ){
+					order[i] = newPosition[order[i]];
+				}
+				list = new TermVectorMap(vector, target, order);
+				prefix = null;
+			}
+		}
+		dictionary = target;
+	}
+
+	/**
+	 * This method replaces the ids of a vector and sorts it by the new ids.
+	 * @param vector - the vector
+	 * @param mapping - new id for every old id
+	 * @param newPosition - array in which the new position of every old
+	 * position is stored
+	 * @return remapped - vector with the new ids
+	 */
+	private static SparseVector remap( SparseVector vector, int[] mapping,
+			int[] newPosition ){
+		// Sort the positions of the vector by their new ids
+		long[] entries = new long[vector.size];
+		for( int i = 0; i < vector.size; i++ ){
+			entries[i] = ((long) mapping[vector.ids[i]] << 32) | i;
+		}
+		Arrays.sort(entries);
+		int[] ids = new int[vector.size];
+		double[] values = new double[vector.size];
+		for( int i = 0; i < vector.size; i++ ){
+			int position = (int) entries[i];
+			ids[i] = (int) (entries[i] >>> 32);
+			values[i] = vector.raw(position);
+			newPosition[position] = i;
+		}
+		SparseVector remapped = new SparseVector(ids, values, vector.size);
+		remapped.divisor = vector.divisor;
+		return vector.isFloat() ? remapped.toFloat() : remapped;
+	}
+
+	/**
+	 * This method sets the feature hashing that is used to represent the
+	 * document (see data_representation.FeatureHashing): instead of the
+	 * words, the buckets of the words are counted. It should be called before
+	 * the list is created. null means that the words themselves are used.
+	 * @param hashing - feature hashing (or null)
+	 */
+	public void setFeatureHashing( FeatureHashing hashing ){
+		this.hashing = hashing;
+		if( hashing != null ){
+			dictionary = hashing.getDictionary();
+		}
+	}
+
+	/**
+	 * This method sets whether the counts of the words are stored as floats
+	 * instead of doubles (see data_representation.SparseVector.toFloat()),
+	 * which halves the memory of the values. The metrics still compute in
+	 * double precision. The counts are stored exactly up to 2^24, also when
+	 * text is added or removed, which changes the float counts in place.
+	 * @param floatPrecision - the counts are stored as floats
+	 */
+	public void setFloatPrecision( boolean floatPrecision ){
+		this.floatPrecision = floatPrecision;
+		if( vector == null || order == null ){
+			return;
+		}
+		compact();
+		boolean shared = vector == full;
+		if( floatPrecision ){
+			vector = vector.toFloat();
+			full = shared ? vector : full.toFloat();
+		}
+		else{
+			vector = vector.toDouble();
+			full = shared ? vector : full.toDouble();
+		}
+		list = new TermVectorMap(vector, dictionary, order);
+	}
+
+	/**
+	 * Getter for the precision of the counts
+	 * @return floatPrecision - the counts are stored as floats
+	 */
+	public boolean getFloatPrecision(){
+		return floatPrecision;
+	}
+
+	/**
+	 * Getter for the feature hashing that is used to represent the document
+	 * @return hashing - feature hashing, or null if the words themselves
+	 * are used
+	 */
+	public FeatureHashing getFeatureHashing(){
+		return hashing;
 	}
 
 	/**
@@ -69,101 +267,775 @@ public class FrequencyList{
 		return list;
 	}
 
+	/**
+	 * Getter for the vector with the ids of the words and their frequencies
+	 * (sorted by id).
+	 * @return vector
+	 */
+	public SparseVector getVector(){
+		return vector;
+	}
+
+	/**
+	 * Getter for the dictionary that contains the words of the ids in the
+	 * vector.
+	 * @return dictionary
+	 */
+	public TermDictionary getDictionary(){
+		return dictionary;
+	}
+
 	/**
 	 * This method parses the document by removing punctuation. Furthermore,
-	 * it adds the words to the list.
+	 * it adds the words to the list and creates the vector. The textfile is
+	 * read as UTF-8 through a memory-mapped buffer (see io.MappedFileReader).
+	 * If a cache is used (see io.DocumentCache), a stored result is loaded
+	 * instead if the textfile did not change; otherwise the result is stored.
 	 */
 	protected void parseFile(){
-		File fileName;
-		Scanner s;
-		try {
-			fileName = new File(textFile);
-			s = new Scanner( fileName );
-			s.useDelimiter("[ ,!?.:()\"\n]+");
-			while( s.hasNext() ){
-				String word = s.next();
-				word = removePunctuation(word);
-
-				if( (word != null) ){
-					addToList(word);
+		DocumentCache cache = DocumentCache.getDefault();
+		if( cache == null ){
+			tokenizeFile(null);
+			return;
+		}
+		long fingerprint = standardVocabUsed ? standardVocab.getFingerprint() : 0;
+		if( hashing != null ){
+			fingerprint = fingerprint ^ hashing.getFingerprint();
+		}
+		DocumentCache.CachedVector cached = cache.loadVector(textFile, language,
+				fingerprint);
+		// The words are stored in the order in which they were first seen, so
+		// parse with a dictionary of its own and merge it afterwards. The ids
+		// of buckets are fixed, so they do not need a dictionary of their own.
+		TermDictionary target = dictionary;
+		if( hashing == null ){
+			dictionary = new TermDictionary();
+		}
+		if( cached != null ){
+			counts = new TermCounter();
+			for( int i = 0; i < cached.terms.length; i++ ){
+				int id = dictionary.intern(cached.terms[i]);
+				if( cached.counts[i] != 0 ){
+					counts.add(id, cached.counts[i]);
+				}
+			}
+			corpusSize = cached.corpusSize;
+			vector = counts.toVector();
+			counts = null;
+		}
+		else{
+			// The state is taken before parsing, so that a textfile that changes
+			// in the meantime is not stored with the old content
+			DocumentCache.SourceState state = cache.getState(textFile);
+			tokenizeFile(state.checksum);
+			cached = new DocumentCache.CachedVector();
+			if( hashing == null ){
+				cached.terms = new String[dictionary.size()];
+				cached.counts = new int[dictionary.size()];
+				for( int id = 0; id < cached.terms.length; id++ ){
+					cached.terms[id] = dictionary.term(id);
+				}
+				for( int i = 0; i < vector.size; i++ ){
+					cached.counts[vector.ids[i]] = (int) vector.values[i];
 				}
 			}
-			s.close();
+			else{
+				cached.terms = new String[vector.size];
+				cached.counts = new int[vector.size];
+				for( int i = 0; i < vector.size; i++ ){
+					cached.terms[i] = dictionary.term(vector.ids[i]);
+					cached.counts[i] = (int) vector.values[i];
+				}
+			}
+			cached.corpusSize = corpusSize;
+			cache.storeVector(textFile, language, fingerprint, state, cached);
+		}
+		if( hashing == null ){
+			mergeDictionary(target);
+		}
+	}
+
+	/**
+	 * This method tokenizes the textfile, adds the words to the list and
+	 * creates the vector.
+	 * @param checksum - checksum to which the bytes of the textfile are
+	 * added (or null)
+	 */
+	private void tokenizeFile( Checksum checksum ){
+		counts = new TermCounter();
+		try {
+			Tokenizer tokenizer = new Tokenizer( new Tokenizer.TokenHandler(){
+				public void handleToken( char[] buffer, int offset, int length ){
+					addToList( buffer, offset, length );
+				}
+			}, true );
+			MappedFileReader.tokenize( textFile, tokenizer, checksum );
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
+		vector = counts.toVector();
+		counts = null;
+	}
+
+	/**
+	 * This method adds a segment of text (e.g. text that was appended to the
+	 * textfile) to the document, without parsing the textfile again. The
+	 * counts, the corpus size, the relative frequencies and the top N words
+	 * are updated. The segment is tokenized on its own, as if it were a
+	 * separate textfile. createList() has to be called first.
+	 * See update() for the time it takes.
+	 * @param text - text to be added
+	 * @return changedIds - ids of the words whose count changed, sorted
+	 * @throws UnsupportedOperationException if signed feature hashing is
+	 * used; the document is not changed
+	 */
+	public int[] addText( String text ){
+		return update(text, 1);
+	}
+
+	/**
+	 * This method removes a segment of text (that was part of the document)
+	 * from the document, without parsing the textfile again. The counts,
+	 * the corpus size, the relative frequencies and the top N words are
+	 * updated. createList() has to be called first.
+	 * See update() for the time it takes.
+	 * @param text - text to be removed
+	 * @return changedIds - ids of the words whose count changed, sorted
+	 * @throws IllegalArgumentException if the text contains words that do
+	 * not occur (often enough) in the document; the document is not changed
+	 * @throws UnsupportedOperationException if signed feature hashing is
+	 * used; the document is not changed
+	 */
+	public int[] removeText( String text ){
+		return update(text, -1);
+	}
+
+	/**
+	 * This method counts the words of a segment of text and adds these
+	 * counts to, or subtracts them from, the counts of the document.
+	 * The segment is checked completely before anything is changed.
+	 * The counts of all words are changed in place (also if they are stored
+	 * as floats). Words that do not occur in the vector of all words yet are
+	 * counted in a hash table (see data_representation.TermCounter) and
+	 * merged into the vector later, when there are many of them (see
+	 * compact()). The top N words follow from a ranking of the top N words
+	 * and a reserve of the words after them, with their counts and words:
+	 * the changed words are merged into the ranking of the unchanged ones.
+	 * Only if more words drop out of the top N than the reserve holds, the
+	 * ranking is selected anew from all words.
+	 * So for d changed words and a top N, an update takes
+	 * O(d log V + N log N) time. Merging the added words into the vector of
+	 * V words takes O(V) time, but only happens after about V/2 changed
+	 * words; a new selection takes O(V log N) time.
+	 * If all words are kept (topN is -1), the vector of all words is the
+	 * document vector itself, so it is merged right away if words are added
+	 * or removed, and the ranking of all words is merged: an update then
+	 * takes O(V log V) time.
+	 * @param text - segment of text
+	 * @param sign - 1 to add the segment, -1 to remove it
+	 * @return changedIds - ids of the words whose count changed, sorted
+	 */
+	private int[] update( String text, final int sign ){
+		if( full == null ){
+			throw new IllegalStateException("createList() has to be called first");
+		}
+		if( hashing != null && hashing.signed ){
+			throw new UnsupportedOperationException(
+					"Text can not be added or removed with signed hashing");
+		}
+		final TermCounter delta = new TermCounter();
+		Tokenizer tokenizer = new Tokenizer( new Tokenizer.TokenHandler(){
+			public void handleToken( char[] buffer, int offset, int length ){
+				if( standardVocabUsed &&
+						standardVocab.contains(buffer, offset, length) ){
+					return;
+				}
+				int id;
+				if( hashing != null ){
+					id = hashing.bucket(FeatureHashing.hash(buffer, offset, length));
+				}
+				else id = sign > 0 ? dictionary.intern(buffer, offset, length) :
+						dictionary.lookup(buffer, offset, length);
+				if( id < 0 ){
+					throw new IllegalArgumentException("\"" +
+							new String(buffer, offset, length) +
+							"\" does not occur in " + textFile);
+				}
+				delta.add(id);
+			}
+		}, true );
+		tokenizer.accept(text.toCharArray(), 0, text.length());
+		tokenizer.finish();
+		SparseVector changes = delta.toVector();
+		int total = 0;
+		for( int i = 0; i < changes.size; i++ ){
+			if( sign < 0 && count(changes.ids[i]) < changes.values[i] ){
+				throw new IllegalArgumentException("\"" +
+						dictionary.term(changes.ids[i]) + "\" does not occur " +
+						"often enough in " + textFile);
+			}
+			total += (int) changes.values[i];
+		}
+
+		// The segment is valid, from here on the document is changed
+		if( rankedIds == null ){
+			initRanking();
+		}
+		applyChanges(changes, sign);
+		corpusSize += sign * total;
+		if( topN == -1 ){
+			compact();
+		}
+		if( !mergeRanking(changes) ){
+			selectRanking();
+		}
+		keepRanking();
+		countsChanged();
+		return changes.ids;
+	}
+
+	/**
+	 * This method returns the count of a word.
+	 * @param id - id of the word
+	 * @return count - 0 if the word does not occur
+	 */
+	private double count( int id ){
+		int index = full.indexOf(id);
+		if( index >= 0 ){
+			return full.raw(index);
+		}
+		return addedWords == null ? 0 : addedWords.get(id);
+	}
+
+	/**
+	 * This method adds the changed counts to the counts of all words. The
+	 * counts in the vector of all words are changed in place; a word that
+	 * drops to zero stays in it until the vector is merged. The other words
+	 * are counted in the hash table of added words. The vector is merged
+	 * once the added and removed words are a substantial part of it.
+	 * @param changes - changed words and their counts
+	 * @param sign - 1 to add the counts, -1 to subtract them
+	 */
+	private void applyChanges( SparseVector changes, int sign ){
+		for( int i = 0; i < changes.size; i++ ){
+			int id = changes.ids[i];
+			int change = sign * (int) changes.values[i];
+			int index = full.indexOf(id);
+			double old;
+			if( index >= 0 ){
+				old = full.raw(index);
+				full.set(index, old + change);
+				if( old == 0 ){
+					removedWords--;
+				}
+				if( old + change == 0 ){
+					removedWords++;
+				}
+			}
+			else{
+				if( addedWords == null ){
+					addedWords = new TermCounter();
+				}
+				old = addedWords.get(id);
+				addedWords.add(id, change);
+			}
+			if( old == 0 ){
+				numberOfWords++;
+			}
+			if( old + change == 0 ){
+				numberOfWords--;
+			}
+		}
+		int pending = removedWords + (addedWords == null ? 0 : addedWords.size());
+		if( pending > full.size / 2 + 64 ){
+			compact();
+		}
+	}
+
+	/**
+	 * This method merges the added words into the vector of all words and
+	 * leaves out the words that dropped to zero.
+	 */
+	private void compact(){
+		if( addedWords == null && removedWords == 0 ){
+			return;
+		}
+		SparseVector added = addedWords == null ?
+				new SparseVector(new int[0], new double[0], 0) :
+				addedWords.toVector();
+		int[] ids = new int[numberOfWords];
+		double[] values = new double[numberOfWords];
+		int i = 0;
+		int j = 0;
+		int n = 0;
+		while( i < full.size || j < added.size ){
+			if( j == added.size || (i < full.size && full.ids[i] < added.ids[j]) ){
+				if( full.raw(i) != 0 ){
+					ids[n] = full.ids[i];
+					values[n] = full.raw(i);
+					n++;
+				}
+				i++;
+			}
+			else{
+				ids[n] = added.ids[j];
+				values[n] = added.values[j];
+				n++;
+				j++;
+			}
+		}
+		SparseVector merged = new SparseVector(ids, values, n);
+		merged.divisor = full.divisor;
+		full = full.isFloat() ? merged.toFloat() : merged;
+		addedWords = null;
+		removedWords = 0;
+	}
+
+	/**
+	 * This method returns the number of words that are ranked: all words if
+	 * all words are kept, and otherwise the top N and a reserve of half as
+	 * many words after them.
+	 * @return capacity
+	 */
+	private int rankingCapacity(){
+		if( topN == -1 ){
+			return Integer.MAX_VALUE;
+		}
+		return topN + topN / 2 + 16;
+	}
+
+	/**
+	 * This method creates the ranking from the top N words, or selects it
+	 * from all words if the top N is a selection of the words.
+	 */
+	private void initRanking(){
+		if( order.length < numberOfWords ){
+			selectRanking();
+			return;
+		}
+		rankedSize = order.length;
+		rankedIds = new int[rankedSize];
+		rankedCounts = new double[rankedSize];
+		rankedTerms = new String[rankedSize];
+		for( int rank = 0; rank < rankedSize; rank++ ){
+			rankedIds[rank] = vector.ids[order[rank]];
+			rankedCounts[rank] = vector.raw(order[rank]);
+			rankedTerms[rank] = dictionary.term(rankedIds[rank]);
+		}
+		rankedAll = true;
+	}
+
+	/**
+	 * This method selects the ranking from all words.
+	 */
+	private void selectRanking(){
+		compact();
+		rankedSize = Math.min(rankingCapacity(), full.size);
+		double[] counts = full.isFloat() ? full.toDouble().values : full.values;
+		int[] positions = selectTop(counts, terms(full), full.size, rankedSize);
+		rankedIds = new int[rankedSize];
+		rankedCounts = new double[rankedSize];
+		rankedTerms = new String[rankedSize];
+		for( int rank = 0; rank < rankedSize; rank++ ){
+			rankedIds[rank] = full.ids[positions[rank]];
+			rankedCounts[rank] = counts[positions[rank]];
+			rankedTerms[rank] = dictionary.term(rankedIds[rank]);
+		}
+		rankedAll = rankedSize == full.size;
+	}
+
+	/**
+	 * This method merges the changed words into the ranking of the words
+	 * that did not change. If the ranking does not contain all words, the
+	 * other words rank after its last word, so a changed word that ranks
+	 * after it can only be ranked as long as there are unchanged ranked
+	 * words after it.
+	 * @param changes - changed words
+	 * @return merged - false if the merged ranking does not contain the top
+	 * N words
+	 */
+	private boolean mergeRanking( SparseVector changes ){
+		// Changed words that still occur, ranked by count (descending) and word
+		int[] changedIds = new int[changes.size];
+		double[] changedCounts = new double[changes.size];
+		String[] changedTerms = new String[changes.size];
+		int m = 0;
+		for( int i = 0; i < changes.size; i++ ){
+			double count = count(changes.ids[i]);
+			if( count > 0 ){
+				changedIds[m] = changes.ids[i];
+				changedCounts[m] = count;
+				changedTerms[m] = dictionary.term(changes.ids[i]);
+				m++;
+			}
+		}
+		int[] changed = selectTop(changedCounts, changedTerms, m, m);
+		int size = (int) Math.min((long) rankedSize + m, rankingCapacity());
+		int[] ids = new int[size];
+		double[] counts = new double[size];
+		String[] terms = new String[size];
+		int last = rankedSize - 1; // the last word before the change
+		int n = 0;
+		int rank = 0;
+		int c = 0;
+		while( n < size ){
+			// Skip the words that changed, they are merged in from the other side
+			while( rank < rankedSize && changes.indexOf(rankedIds[rank]) >= 0 ){
+				rank++;
+			}
+			boolean unchangedLeft = rank < rankedSize;
+			if( c == m && !unchangedLeft ){
+				break;
+			}
+			if( c < m && (!unchangedLeft || ranksBefore(changedCounts[changed[c]],
+					changedTerms[changed[c]], rankedCounts[rank], rankedTerms[rank])) ){
+				int k = changed[c];
+				if( !unchangedLeft && !rankedAll && last >= 0 &&
+						!ranksBefore(changedCounts[k], changedTerms[k],
+						rankedCounts[last], rankedTerms[last]) ){
+					// Words outside the ranking may rank before this word
+					break;
+				}
+				ids[n] = changedIds[k];
+				counts[n] = changedCounts[k];
+				terms[n] = changedTerms[k];
+				c++;
+			}
+			else{
+				ids[n] = rankedIds[rank];
+				counts[n] = rankedCounts[rank];
+				terms[n] = rankedTerms[rank];
+				rank++;
+			}
+			n++;
+		}
+		if( !rankedAll && n < Math.min(topN, numberOfWords) ){
+			return false;
+		}
+		rankedIds = ids;
+		rankedCounts = counts;
+		rankedTerms = terms;
+		rankedSize = n;
+		rankedAll = n == numberOfWords;
+		return true;
+	}
+
+	/**
+	 * This method checks whether a word ranks before another word: it has a
+	 * higher count, or the same count and a word that comes first.
+	 */
+	private static boolean ranksBefore( double count1, String term1,
+			double count2, String term2 ){
+		if( count1 != count2 ){
+			return count1 > count2;
+		}
+		return term1.compareTo(term2) < 0;
+	}
+
+	/**
+	 * This method keeps the top N words of the ranking in the vector and
+	 * sets the order in which the list iterates over them. If all words are
+	 * kept, the vector is the vector of all words.
+	 */
+	private void keepRanking(){
+		limitList = topN;
+		if( numberOfWords < topN || topN == -1 ){
+			limitList = numberOfWords;
+		}
+		// Sort the ranks by the ids of their words
+		long[] entries = new long[limitList];
+		for( int rank = 0; rank < limitList; rank++ ){
+			entries[rank] = ((long) rankedIds[rank] << 32) | rank;
+		}
+		Arrays.sort(entries);
+		int[] ranked = new int[limitList];
+		if( topN == -1 ){
+			for( int i = 0; i < limitList; i++ ){
+				ranked[(int) entries[i]] = i;
+			}
+			vector = full;
+		}
+		else{
+			int[] ids = new int[limitList];
+			double[] values = new double[limitList];
+			for( int i = 0; i < limitList; i++ ){
+				int rank = (int) entries[i];
+				ids[i] = rankedIds[rank];
+				values[i] = rankedCounts[rank];
+				ranked[rank] = i;
+			}
+			SparseVector kept = new SparseVector(ids, values, limitList);
+			kept.divisor = full.divisor;
+			vector = floatPrecision ? kept.toFloat() : kept;
+		}
+		order = ranked;
+		prefix = null;
+		statistics = null;
+		logVector = null;
+		list = new TermVectorMap(vector, dictionary, order);
+	}
+
+	/**
+	 * This method is called after the counts of the document changed (see
+	 * addText() and removeText()).
+	 */
+	protected void countsChanged(){
 	}
 
 	/**
 	 * This method removes the puncuation from a word and uncapitalizes it.
-	 * It returns the resulting word.
+	 * It returns the resulting word. (see class data_representation.Tokenizer)
 	 * @param word - word that needs uncapitalization and removal of
 	 * punctuation.
 	 * @return word - word after punctuation is removed and after 
 	 * uncapitalization.
 	 */
 	protected String removePunctuation( String word ){
-		// Remove punctuation that follows the word
-		word = word.replaceAll("(\\w+)\\p{Punct}(\\s|$)", "$1$2");
-				
-		/* Remove punctuation that preceeds a word that contains 
-			punctuation, e.g ",,Don't" */
-		if(word.matches("\\p{Punct}+\\w+\\p{Punct}\\w+")){
-			word = word.replaceFirst("(\\p{Punct}+)(\\w+)(\\p{Punct})" +
-						"(\\w+)", "$2$3$4");
-		}
-		/* Remove punctuation that preceeds a word that does not contain
-		   additional punctuation */
-		else if( word.matches("\\p{Punct}+\\w+") ){
-			word = word.replaceAll( "\\p{Punct}+(\\w+)", "$1" );
-		}
-		// Uncapitalize word
-		word = word.toLowerCase();
-
-		/* Check if word is not empty or contains a single symbol or
-		   whitespace charachter */
-		if( (word.matches("\\p{Punct}+|\\s")|| word.isEmpty()) ){
-			word = null;
-		}
-		return word;
+		return Tokenizer.normalize(word);
 	}
 
 	/**
 	 * This method adds a word to the list and adjusts its frequency accordingly.
-	 * @param word - word to be added to the list.
+	 * @param buffer - buffer that contains the word to be added to the list
+	 * @param offset - index of the first character of the word
+	 * @param length - number of characters of the word
 	 */
-	private void addToList( String word ){
-		if( !standardVocabUsed || !standardVocab.shortlist.containsKey(word) ){ 
+	private void addToList( char[] buffer, int offset, int length ){
+		if( !standardVocabUsed || 
+				!standardVocab.contains(buffer, offset, length) ){ 
 			corpusSize++;
-			// Increase frequency of word if list already contains it
-			if( list.containsKey( word ) ){
-				double frequency = list.get( word );
-				frequency++;
-				list.put( word, frequency );
+			if( hashing != null ){
+				int hash = FeatureHashing.hash( buffer, offset, length );
+				counts.add( hashing.bucket(hash), hashing.sign(hash) );
 			}
-			// Else frequency of word equals 1
-			else list.put( word, 1.0 );
+			else counts.add( dictionary.intern( buffer, offset, length ) );
 		}
 	}
 
 	/**
 	 * This method sorts the list so that the words with the highest frequencies
-	 * are listed up top.
+	 * are listed up top. Only the top N words are kept.
+	 * The top N words are selected with a bounded min-heap of positions in
+	 * the vector, which takes O(V log N) time for V different words and does
+	 * not create an object per word. Words with the same frequency are
+	 * sorted by the words themselves, so the top N of a document does not
+	 * depend on the ids, which depend on the documents that were parsed
+	 * before it.
 	 */
 	protected void sortList(){
-		List<Entry<String, Double>> sorted = new LinkedList<Entry<String, 
-				Double>>(list.entrySet());
-		Collections.sort(sorted, new FreqComparator(true));
-		Map<String, Double> sortedMap = new LinkedHashMap<String, Double>();
+		if( full == null ){
+			full = vector;
+		}
+		compact();
+		full = full.toDouble();
+		vector = full;
+		numberOfWords = full.size;
+		rankedIds = null;
 		limitList = topN;
-		if( sorted.size() < topN || topN == -1 ){
-			limitList = sorted.size();
+		if( vector.size < topN || topN == -1 ){
+			limitList = vector.size;
+		}
+		keepPositions(selectTop(vector.values, terms(vector), vector.size,
+				limitList));
+	}
+
+	/**
+	 * This method returns the words of the ids in a vector.
+	 * @param vector - the vector
+	 * @return terms - word of every position of the vector
+	 */
+	private String[] terms( SparseVector vector ){
+		String[] terms = new String[vector.size];
+		for( int i = 0; i < vector.size; i++ ){
+			terms[i] = dictionary.term(vector.ids[i]);
+		}
+		return terms;
+	}
+
+	/**
+	 * This method selects the positions of the n highest values with a
+	 * bounded min-heap, in O(size log n) time. Positions with the same value
+	 * are ranked by position.
+	 * @param values - values
+	 * @param size - number of values
+	 * @param n - number of positions to select (at most size)
+	 * @return top - selected positions, with the highest values up top
+	 */
+	protected static int[] selectTop( double[] values, int size, int n ){
+		return selectTop(values, null, size, n);
+	}
+
+	/**
+	 * This method selects the positions of the n highest values with a
+	 * bounded min-heap, in O(size log n) time. Positions with the same value
+	 * are ranked by their words (or by position if there are no words).
+	 * @param values - values
+	 * @param terms - word of every position (or null)
+	 * @param size - number of values
+	 * @param n - number of positions to select (at most size)
+	 * @return top - selected positions, with the highest values up top
+	 */
+	protected static int[] selectTop( double[] values, String[] terms,
+			int size, int n ){
+		// heap[0] is the worst of the best positions found so far
+		int[] heap = new int[n];
+		int heapSize = 0;
+		for( int i = 0; i < size && n > 0; i++ ){
+			if( heapSize < n ){
+				heap[heapSize] = i;
+				siftUp(heap, heapSize, values, terms);
+				heapSize++;
+			}
+			else if( ranksBefore(i, heap[0], values, terms) ){
+				heap[0] = i;
+				siftDown(heap, heapSize, values, terms);
+			}
 		}
-		for( int i = 0; i < limitList; i++ ){
-			Entry<String, Double> entry = sorted.get(i);
-			sortedMap.put(entry.getKey(), entry.getValue());
+		// Taking the worst position off the heap each time fills the ranking
+		// from the back
+		int[] top = new int[n];
+		while( heapSize > 0 ){
+			top[heapSize - 1] = heap[0];
+			heapSize--;
+			heap[0] = heap[heapSize];
+			siftDown(heap, heapSize, values, terms);
 		}
+		return top;
+	}
+
+	/**
+	 * This method checks whether a word ranks before another word: it has a
+	 * higher frequency, or the same frequency and a word that comes first
+	 * (or a lower position if there are no words).
+	 */
+	private static boolean ranksBefore( int position1, int position2,
+			double[] values, String[] terms ){
+		int c = Double.compare(values[position1], values[position2]);
+		if( c != 0 ){
+			return c > 0;
+		}
+		if( terms != null ){
+			return terms[position1].compareTo(terms[position2]) < 0;
+		}
+		return position1 < position2;
+	}
+
+	private static void siftUp( int[] heap, int index, double[] values,
+			String[] terms ){
+		int position = heap[index];
+		while( index > 0 ){
+			int parent = (index - 1) >>> 1;
+			if( !ranksBefore(heap[parent], position, values, terms) ){
+				break;
+			}
+			heap[index] = heap[parent];
+			index = parent;
+		}
+		heap[index] = position;
+	}
 
-		list = sortedMap;
+	private static void siftDown( int[] heap, int size, double[] values,
+			String[] terms ){
+		if( size == 0 ){
+			return;
+		}
+		int position = heap[0];
+		int index = 0;
+		while( true ){
+			int child = 2 * index + 1;
+			if( child >= size ){
+				break;
+			}
+			if( child + 1 < size && ranksBefore(heap[child], heap[child + 1], values, terms) ){
+				child++;
+			}
+			if( !ranksBefore(position, heap[child], values, terms) ){
+				break;
+			}
+			heap[index] = heap[child];
+			index = child;
+		}
+		heap[index] = position;
+	}
+
+	/**
+	 * This method returns the words that were kept by sortList() sorted by
+	 * their ids, with their ranks (see data_representation.TermPrefix).
+	 * @return prefix
+	 */
+	public TermPrefix getPrefix(){
+		if( prefix == null ){
+			prefix = new TermPrefix(vector, order);
+		}
+		return prefix;
+	}
+
+	/**
+	 * This method returns the statistics of the values in the vector (see
+	 * data_representation.VectorStatistics). They are computed the first
+	 * time they are asked for, and again after the vector changed.
+	 * @return statistics - statistics, or null if the words are not stored
+	 * in a vector
+	 */
+	public VectorStatistics getStatistics(){
+		if( statistics == null && vector != null ){
+			statistics = new VectorStatistics(vector);
+		}
+		return statistics;
+	}
+
+	/**
+	 * This method returns the probabilities of the words in the vector and
+	 * their logarithms (see data_representation.LogVector). They are computed
+	 * the first time they are asked for, and again after the vector changed.
+	 * @param relativeFreq - boolean that indicates whether the representation
+	 * uses relative frequency/probability or the "normal" frequency of the
+	 * words
+	 * @return logVector - log vector, or null if the words are not stored in
+	 * a vector
+	 */
+	public LogVector getLogVector( boolean relativeFreq ){
+		if( vector == null ){
+			return null;
+		}
+		if( logVector == null || !logVector.matches(corpusSize, relativeFreq) ){
+			logVector = new LogVector(vector, corpusSize, relativeFreq);
+		}
+		return logVector;
+	}
+
+	/**
+	 * This method keeps only the given positions of the vector and sets the
+	 * order in which the list iterates over the words.
+	 * @param ranked - positions in the vector, with the highest
+	 * frequencies up top
+	 */
+	protected void keepPositions( int[] ranked ){
+		if( ranked.length < vector.size ){
+			int[] positions = ranked.clone();
+			Arrays.sort(positions);
+			int[] ids = new int[positions.length];
+			double[] values = new double[positions.length];
+			for( int i = 0; i < positions.length; i++ ){
+				ids[i] = vector.ids[positions[i]];
+				values[i] = vector.raw(positions[i]);
+			}
+			SparseVector kept = new SparseVector(ids, values, ids.length);
+			kept.divisor = vector.divisor;
+			vector = kept;
+			for( int i = 0; i < ranked.length; i++ ){
+				ranked[i] = Arrays.binarySearch(positions, ranked[i]);
+			}
+		}
+		if( floatPrecision ){
+			boolean shared = vector == full;
+			vector = vector.toFloat();
+			full = shared ? vector : full.toFloat();
+		}
+		order = ranked;
+		prefix = null;
+		statistics = null;
+		logVector = null;
+		list = new TermVectorMap(vector, dictionary, order);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,70 @@
+package data_representation;
+
+/**
+ * Class LogVector stores the probabilities of the words of a vector (see
+ * data_representation.SparseVector) together with their logarithms, so that
+ * the KL divergence (see plugin_metrics.KLdivergence) can be computed without
+ * computing a logarithm for every word of every comparison. The add-one
+ * smoothing of the KL divergence is folded in: in the representation with
+ * relative frequency a value of 0 gets the smoothed probability
+ * 1 / (corpusSize + 1), and logSmooth is the logarithm of the smoothed
+ * probability of a word that does not occur in the vector. In the
+ * representation with counts the probability of a word is its count divided
+ * by the corpus size.
+ * A log vector is computed once per document (see
+ * FrequencyList.getLogVector()) and once per centroid (see
+ * Centroid.getLogVector()).
+ */
+public class LogVector{
+	public double[] probabilities; // in the order of the ids of the vector
+	public double[] logs;
+	public double logSmooth;
+	public double sum; // sum of the probabilities
+	public double sumPLogP; // sum of probability * log(probability)
+	public int corpusSize;
+	public boolean relativeFreq;
+
+	/**
+	 * Constructor
+	 * @param vector - vector of which the probabilities are computed
+	 * @param corpusSize - corpus size of the vector
+	 * @param relativeFreq - boolean that indicates whether the representation
+	 * uses relative frequency/probability or the "normal" frequency of the
+	 * words
+	 */
+	public LogVector( SparseVector vector, int corpusSize,
+			boolean relativeFreq ){
+		this.corpusSize = corpusSize;
+		this.relativeFreq = relativeFreq;
+		double smooth = 1 / (double) (corpusSize + 1);
+		logSmooth = Math.log(smooth);
+		probabilities = new double[vector.size];
+		logs = new double[vector.size];
+		for( int i = 0; i < vector.size; i++ ){
+			double p;
+			if( relativeFreq ){
+				p = vector.value(i);
+				if( p == 0 ){
+					p = smooth;
+				}
+			}
+			else p = vector.value(i) / (double) corpusSize;
+			probabilities[i] = p;
+			// 0 * log(0) is not a number, as it is in the KL divergence
+			logs[i] = Math.log(p);
+			sum = sum + p;
+			sumPLogP = sumPLogP + p * logs[i];
+		}
+	}
+
+	/**
+	 * This method checks whether this log vector has been computed with the
+	 * given corpus size and representation.
+	 * @param corpusSize - corpus size
+	 * @param relativeFreq - representation with relative frequency is used
+	 * @return true if the log vector can be used
+	 */
+	public boolean matches( int corpusSize, boolean relativeFreq ){
+		return this.corpusSize == corpusSize && this.relativeFreq == relativeFreq;
+	}
+}
@@ -0,0 +1,66 @@
+package data_representation;
+
+import java.util.Arrays;
+
+/**
+ * Class PairSet is a set of wordpairs (encoded as in
+ * data_representation.PairVector), e.g. to collect the wordpairs that appear
+ * in the entire dataset (see BilingualDocument.wordContainer). It uses an
+ * open addressing hash table of primitive longs.
+ */
+public class PairSet{
+	private static final long EMPTY = -1L; // keys are never negative
+
+	private long[] keys;
+	private int size = 0;
+
+	/**
+	 * Default constructor
+	 */
+	public PairSet(){
+		keys = new long[1024];
+		Arrays.fill(keys, EMPTY);
+	}
+
+	/**
+	 * This method adds a wordpair to the set.
+	 * @param key - key of the wordpair
+	 * @return true if the wordpair was not in the set yet
+	 */
+	public boolean add( long key ){
+		int slot = PairTable.findSlot(keys, key);
+		if( keys[slot] != EMPTY ){
+			return false;
+		}
+		keys[slot] = key;
+		size++;
+		if( size * 2 > keys.length ){
+			long[] oldKeys = keys;
+			keys = new long[oldKeys.length * 2];
+			Arrays.fill(keys, EMPTY);
+			for( long oldKey : oldKeys ){
+				if( oldKey != EMPTY ){
+					keys[PairTable.findSlot(keys, oldKey)] = oldKey;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * This method checks whether a wordpair is in the set.
+	 * @param key - key of the wordpair
+	 * @return true if the wordpair is in the set
+	 */
+	public boolean contains( long key ){
+		return keys[PairTable.findSlot(keys, key)] != EMPTY;
+	}
+
+	/**
+	 * This method returns the number of wordpairs in the set.
+	 * @return size
+	 */
+	public int size(){
+		return size;
+	}
+}
@@ -0,0 +1,105 @@
+package data_representation;
+
+import java.util.Arrays;
+
+/**
+ * Class PairTable collects the wordpairs (encoded as in
+ * data_representation.PairVector) and their values while a bilingual
+ * document is parsed. It uses an open addressing hash table of primitive
+ * longs and doubles; adding a wordpair that is already in the table
+ * replaces its value. After parsing, the table is turned into a PairVector.
+ */
+public class PairTable{
+	private static final long EMPTY = -1L; // keys are never negative
+
+	private long[] keys;
+	private double[] values;
+	private int size = 0;
+
+	/**
+	 * Default constructor
+	 */
+	public PairTable(){
+		keys = new long[256];
+		values = new double[256];
+		Arrays.fill(keys, EMPTY);
+	}
+
+	/**
+	 * This method sets the value of a wordpair.
+	 * @param key - key of the wordpair
+	 * @param value - value of the wordpair
+	 */
+	public void put( long key, double value ){
+		int slot = findSlot(keys, key);
+		if( keys[slot] == EMPTY ){
+			keys[slot] = key;
+			size++;
+			values[slot] = value;
+			if( size * 2 > keys.length ){
+				rehash();
+			}
+		}
+		else values[slot] = value;
+	}
+
+	/**
+	 * This method returns the number of different wordpairs in the table.
+	 * @return size
+	 */
+	public int size(){
+		return size;
+	}
+
+	/**
+	 * This method creates a vector with the wordpairs sorted by their key.
+	 * @return vector
+	 */
+	public PairVector toVector(){
+		long[] sortedKeys = new long[size];
+		int n = 0;
+		for( int slot = 0; slot < keys.length; slot++ ){
+			if( keys[slot] != EMPTY ){
+				sortedKeys[n++] = keys[slot];
+			}
+		}
+		Arrays.sort(sortedKeys);
+		double[] sortedValues = new double[size];
+		for( int i = 0; i < size; i++ ){
+			sortedValues[i] = values[findSlot(keys, sortedKeys[i])];
+		}
+		return new PairVector(sortedKeys, sortedValues, size);
+	}
+
+	/**
+	 * This method returns the slot of a key in an open addressing table of
+	 * longs, or the empty slot where it should be added.
+	 * @param keys - table
+	 * @param key - the key
+	 * @return slot
+	 */
+	static int findSlot( long[] keys, long key ){
+		int mask = keys.length - 1;
+		int h = (int) (key ^ (key >>> 32)) * 0x9E3779B9;
+		int slot = (h ^ (h >>> 16)) & mask;
+		while( keys[slot] != EMPTY && keys[slot] != key ){
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private void rehash(){
+		long[] oldKeys = keys;
+		double[] oldValues = values;
+		keys = new long[oldKeys.length * 2];
+		values = new double[oldKeys.length * 2];
+		Arrays.fill(keys, EMPTY);
+		for( int slot = 0; slot < oldKeys.length; slot++ ){
+			if( oldKeys[slot] != EMPTY ){
+				int newSlot = findSlot(keys, oldKeys[slot]);
+				keys[newSlot] = oldKeys[slot];
+				values[newSlot] = oldValues[slot];
+			}
+		}
+	}
+}
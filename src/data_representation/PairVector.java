@@ -0,0 +1,81 @@
+package data_representation;
+
+import java.util.Arrays;
+
+/**
+ * Class PairVector represents a bilingual document (see
+ * data_representation.BilingualDocument) by its wordpairs and their
+ * probabilities. Every wordpair is encoded as a single long: the id of the
+ * source word (see TermDictionary.getSourceDictionary()) in the upper 32
+ * bits and the id of the target word (see
+ * TermDictionary.getTargetDictionary()) in the lower 32 bits. The keys are
+ * sorted in ascending order.
+ */
+public class PairVector{
+	public long[] keys;
+	public double[] values;
+	public int size;
+
+	/**
+	 * Constructor
+	 * @param keys - keys of the wordpairs, sorted in ascending order
+	 * @param values - values of the wordpairs
+	 * @param size - number of wordpairs (the arrays may be larger)
+	 */
+	public PairVector( long[] keys, double[] values, int size ){
+		this.keys = keys;
+		this.values = values;
+		this.size = size;
+	}
+
+	/**
+	 * This method encodes a wordpair as a single long.
+	 * @param sourceId - id of the source word
+	 * @param targetId - id of the target word
+	 * @return key
+	 */
+	public static long pack( int sourceId, int targetId ){
+		return ((long) sourceId << 32) | (targetId & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * This method returns the id of the source word of a wordpair.
+	 * @param key - key of the wordpair
+	 * @return sourceId
+	 */
+	public static int source( long key ){
+		return (int) (key >>> 32);
+	}
+
+	/**
+	 * This method returns the id of the target word of a wordpair.
+	 * @param key - key of the wordpair
+	 * @return targetId
+	 */
+	public static int target( long key ){
+		return (int) key;
+	}
+
+	/**
+	 * This method returns the position of a wordpair in this vector.
+	 * @param key - key of the wordpair
+	 * @return index - position of the wordpair, or a negative value if the
+	 * wordpair does not occur in this vector
+	 */
+	public int indexOf( long key ){
+		return Arrays.binarySearch(keys, 0, size, key);
+	}
+
+	/**
+	 * This method returns the value of a wordpair.
+	 * @param key - key of the wordpair
+	 * @return value - value of the wordpair, 0 if it does not occur
+	 */
+	public double get( long key ){
+		int index = indexOf(key);
+		if( index < 0 ){
+			return 0;
+		}
+		return values[index];
+	}
+}
@@ -0,0 +1,167 @@
+package data_representation;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Class PairVectorMap makes a data_representation.PairVector available as
+ * a (read-only) Map from wordpairs to probabilities, so that code that works
+ * with the Map-based representation (e.g. the methods in plugin_metrics)
+ * keeps working. A wordpair is written as the source word and the target
+ * word with a "-" in between, as in the textfile of the document. The
+ * wordpairs are iterated in the given order (e.g. with the highest
+ * probabilities up top) or, if no order is given, by their key.
+ */
+public class PairVectorMap extends AbstractMap<String, Double>{
+	private PairVector vector;
+	private TermDictionary sourceDictionary;
+	private TermDictionary targetDictionary;
+	private int[] order;
+
+	/**
+	 * Constructor
+	 * @param vector - vector with the keys and probabilities
+	 * @param sourceDictionary - dictionary that contains the source words
+	 * @param targetDictionary - dictionary that contains the target words
+	 * @param order - positions in the vector in the order in which the
+	 * wordpairs should be iterated (or null)
+	 */
+	public PairVectorMap( PairVector vector, TermDictionary sourceDictionary,
+			TermDictionary targetDictionary, int[] order ){
+		this.vector = vector;
+		this.sourceDictionary = sourceDictionary;
+		this.targetDictionary = targetDictionary;
+		this.order = order;
+	}
+
+	/**
+	 * Getter for the vector behind this map
+	 * @return vector
+	 */
+	public PairVector getVector(){
+		return vector;
+	}
+
+	/**
+	 * Getter for the dictionary of the source words
+	 * @return sourceDictionary
+	 */
+	public TermDictionary getSourceDictionary(){
+		return sourceDictionary;
+	}
+
+	/**
+	 * Getter for the dictionary of the target words
+	 * @return targetDictionary
+	 */
+	public TermDictionary getTargetDictionary(){
+		return targetDictionary;
+	}
+
+	/**
+	 * Getter for the order in which the wordpairs are iterated
+	 * @return order - positions in the vector, or null if the wordpairs are
+	 * iterated by their key
+	 */
+	public int[] getOrder(){
+		return order;
+	}
+
+	public int size(){
+		return vector.size;
+	}
+
+	public boolean containsKey( Object key ){
+		return indexOf(key) >= 0;
+	}
+
+	public Double get( Object key ){
+		int index = indexOf(key);
+		if( index < 0 ){
+			return null;
+		}
+		return vector.values[index];
+	}
+
+	public Set<Entry<String, Double>> entrySet(){
+		return new AbstractSet<Entry<String, Double>>(){
+			public int size(){
+				return vector.size;
+			}
+
+			public Iterator<Entry<String, Double>> iterator(){
+				return new Iterator<Entry<String, Double>>(){
+					int next = 0;
+
+					public boolean hasNext(){
+						return next < vector.size;
+					}
+
+					public Entry<String, Double> next(){
+						if( next >= vector.size ){
+							throw new NoSuchElementException();
+						}
+						int index = order == null ? next : order[next];
+						next++;
+						return new SimpleImmutableEntry<String, Double>(
+								wordpair(vector.keys[index]),
+								vector.values[index]);
+					}
+
+					public void remove(){
+						throw new UnsupportedOperationException();
+					}
+				};
+			}
+		};
+	}
+
+	/**
+	 * This method writes a wordpair as a String.
+	 * @param key - key of the wordpair
+	 * @return wordpair - source word and target word with a "-" in between
+	 */
+	public String wordpair( long key ){
+		return sourceDictionary.term(PairVector.source(key)) + "-" +
+				targetDictionary.term(PairVector.target(key));
+	}
+
+	/**
+	 * This method returns the position of a wordpair in the vector. As the
+	 * words themselves may contain a "-", every "-" is tried as the
+	 * separator.
+	 * @param key - wordpair
+	 * @return index - position, or a negative value if the wordpair is not
+	 * in the vector
+	 */
+	private int indexOf( Object key ){
+		if( !(key instanceof String) ){
+			return -1;
+		}
+		String wordpair = (String) key;
+		char[] buffer = null;
+		for( int separator = wordpair.indexOf('-'); separator >= 0;
+				separator = wordpair.indexOf('-', separator + 1) ){
+			if( buffer == null ){
+				buffer = wordpair.toCharArray();
+			}
+			int sourceId = sourceDictionary.lookup(buffer, 0, separator);
+			if( sourceId < 0 ){
+				continue;
+			}
+			int targetId = targetDictionary.lookup(buffer, separator + 1,
+					buffer.length - separator - 1);
+			if( targetId < 0 ){
+				continue;
+			}
+			int index = vector.indexOf(PairVector.pack(sourceId, targetId));
+			if( index >= 0 ){
+				return index;
+			}
+		}
+		return -1;
+	}
+}
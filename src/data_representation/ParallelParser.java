@@ -0,0 +1,95 @@
+package data_representation;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Class ParallelParser parses the textfiles of several documents at the same
+ * time on a fork-join pool (see java.util.concurrent.ForkJoinPool).
+ * Every document is parsed with a dictionary of its own, so the workers do
+ * not have to share (and wait for) the dictionary of the corpus. The
+ * documents are then merged into the dictionary of the corpus one by one, in
+ * the order of the list, so every word gets the same id as it would have
+ * gotten by parsing the documents one after the other.
+ * Only a limited number of documents is parsed ahead of the merging, so
+ * the memory use does not grow with the size of the corpus.
+ */
+public class ParallelParser{
+	private ForkJoinPool pool;
+	private int window;
+
+	/**
+	 * Default constructor, uses as many workers as there are processors
+	 */
+	public ParallelParser(){
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Constructor
+	 * @param parallelism - number of documents that are parsed at the same
+	 * time
+	 */
+	public ParallelParser( int parallelism ){
+		pool = new ForkJoinPool(parallelism);
+		window = parallelism * 4;
+	}
+
+	/**
+	 * This method parses all documents in the list with a new parser and
+	 * shuts the parser down afterwards.
+	 * @param documents - documents to be parsed
+	 */
+	public static void parseAll( List<? extends FrequencyList> documents ){
+		ParallelParser parser = new ParallelParser();
+		try{
+			parser.parse(documents);
+		} finally{
+			parser.shutdown();
+		}
+	}
+
+	/**
+	 * This method parses all documents in the list and merges their words
+	 * into the dictionary of the corpus. After this, createList() of the
+	 * documents does not parse the textfiles again.
+	 * @param documents - documents to be parsed
+	 */
+	public void parse( List<? extends FrequencyList> documents ){
+		TermDictionary corpusDictionary = TermDictionary.getCorpusDictionary();
+		ArrayDeque<ForkJoinTask<Void>> tasks = new ArrayDeque<ForkJoinTask<Void>>();
+		int submitted = 0;
+		for( int i = 0; i < documents.size(); i++ ){
+			while( submitted < documents.size() && submitted - i < window ){
+				tasks.add(pool.submit(parseTask(documents.get(submitted))));
+				submitted++;
+			}
+			tasks.poll().join();
+			documents.get(i).mergeDictionary(corpusDictionary);
+		}
+	}
+
+	/**
+	 * This method shuts down the workers of the parser.
+	 */
+	public void shutdown(){
+		pool.shutdown();
+	}
+
+	/**
+	 * This method creates the task that parses a single document with a
+	 * dictionary of its own.
+	 * @param document - document to be parsed
+	 * @return task
+	 */
+	private static RecursiveAction parseTask( final FrequencyList document ){
+		return new RecursiveAction(){
+			protected void compute(){
+				document.parse(new TermDictionary());
+			}
+		};
+	}
+}
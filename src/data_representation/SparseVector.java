@@ -0,0 +1,154 @@
+package data_representation;
+
+import java.util.Arrays;
+
+/**
+ * Class SparseVector represents a document (or any other distribution) by
+ * the ids of its words (see data_representation.TermDictionary), sorted in
+ * ascending order, and the corresponding values.
+ * The values are stored together with a divisor: the value of a word is
+ * values[i] / divisor. This way a document can store the counts of its
+ * words and use its corpus size as divisor to represent the relative
+ * frequencies, exactly as count / (double) corpusSize.
+ * To save memory, the values can be stored as floats instead (see
+ * toFloat()): then values is null and floats holds the values. The values
+ * are read as doubles in both cases (see raw() and value()), so sums over
+ * the values are still accumulated in double precision. A vector with
+ * float values is only read, except for counts that are changed with set()
+ * (counts up to 2^24 are exact); it is converted back with toDouble()
+ * before it is changed otherwise.
+ */
+public class SparseVector{
+	public int[] ids;
+	public double[] values;
+	public float[] floats;
+	public int size;
+	public double divisor = 1.0;
+
+	/**
+	 * Constructor
+	 * @param ids - ids of the words, sorted in ascending order
+	 * @param values - values of the words
+	 * @param size - number of words (the arrays may be larger)
+	 */
+	public SparseVector( int[] ids, double[] values, int size ){
+		this.ids = ids;
+		this.values = values;
+		this.size = size;
+	}
+
+	/**
+	 * Constructor for a vector with float values
+	 * @param ids - ids of the words, sorted in ascending order
+	 * @param floats - values of the words
+	 * @param size - number of words (the arrays may be larger)
+	 */
+	public SparseVector( int[] ids, float[] floats, int size ){
+		this.ids = ids;
+		this.floats = floats;
+		this.size = size;
+	}
+
+	/**
+	 * This method returns the position of a word in this vector.
+	 * @param id - id of the word
+	 * @return index - position of the word, or a negative value if the word
+	 * does not occur in this vector (see java.util.Arrays.binarySearch)
+	 */
+	public int indexOf( int id ){
+		return Arrays.binarySearch(ids, 0, size, id);
+	}
+
+	/**
+	 * This method returns the value at a position of the vector.
+	 * @param index - position in the vector
+	 * @return value - values[index] / divisor
+	 */
+	public double value( int index ){
+		return raw(index) / divisor;
+	}
+
+	/**
+	 * This method returns the stored value at a position of the vector,
+	 * without the divisor.
+	 * @param index - position in the vector
+	 * @return raw - values[index] or floats[index]
+	 */
+	public double raw( int index ){
+		return values != null ? values[index] : floats[index];
+	}
+
+	/**
+	 * This method changes the stored value at a position of the vector, as
+	 * a float if the values are stored as floats.
+	 * @param index - position in the vector
+	 * @param raw - new value, without the divisor
+	 */
+	public void set( int index, double raw ){
+		if( values != null ){
+			values[index] = raw;
+		}
+		else floats[index] = (float) raw;
+	}
+
+	/**
+	 * Getter for the precision of the values
+	 * @return isFloat - the values are stored as floats
+	 */
+	public boolean isFloat(){
+		return values == null;
+	}
+
+	/**
+	 * This method returns a copy of this vector with the values stored as
+	 * floats, which shares the ids with this vector. Counts up to 2^24 are
+	 * stored exactly; other values are rounded to about 7 digits.
+	 * @return vector - vector with float values (this vector if its values
+	 * are floats already)
+	 */
+	public SparseVector toFloat(){
+		if( isFloat() ){
+			return this;
+		}
+		float[] floats = new float[size];
+		for( int i = 0; i < size; i++ ){
+			floats[i] = (float) values[i];
+		}
+		SparseVector vector = new SparseVector(ids, floats, size);
+		vector.divisor = divisor;
+		return vector;
+	}
+
+	/**
+	 * This method returns a copy of this vector with the values stored as
+	 * doubles, which can be changed without changing this vector.
+	 * @return vector - vector with double values (this vector if its values
+	 * are doubles already)
+	 */
+	public SparseVector toDouble(){
+		if( !isFloat() ){
+			return this;
+		}
+		int[] ids = Arrays.copyOf(this.ids, size);
+		double[] values = new double[size];
+		for( int i = 0; i < size; i++ ){
+			values[i] = floats[i];
+		}
+		SparseVector vector = new SparseVector(ids, values, size);
+		vector.divisor = divisor;
+		return vector;
+	}
+
+	/**
+	 * This method returns the value of a word.
+	 * @param id - id of the word
+	 * @return value - value of the word, 0 if the word does not occur
+	 */
+	public double get( int id ){
+		int index = indexOf(id);
+		if( index < 0 ){
+			return 0;
+		}
+		return value(index);
+	}
+}
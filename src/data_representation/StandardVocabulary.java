@@ -1,72 +1,240 @@
 package data_representation;
-import java.util.Scanner;
-import java.util.Map;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
 import java.io.*;
 
 /**
- * 
+ *
  * @author miriamhuijser
  * Class StandardVocabulary saves a standard vocabulary (or shortlist) for
  * a language. (Here English, German or Dutch, but this can easily be extended
- * by adding another textfile in another language.) This class parses the 
+ * by adding another textfile in another language.) This class parses the
  * given textfile and saves the stopwords in a list. This class can be
- * consulted when one wants to know whether some word is a stopword. 
+ * consulted when one wants to know whether some word is a stopword.
  * (Highly frequent non-representative word).
+ * The shortlist of a language is loaded only once (see getInstance()) and
+ * shared by all documents. The textfile is looked up in the working
+ * directory first and on the classpath otherwise. The stopwords are kept in
+ * an open addressing hash table that can be consulted directly with the
+ * characters of a word, so no String has to be created for the lookup.
  */
 public class StandardVocabulary{
+	private static final Map<String, StandardVocabulary> registry =
+			new HashMap<String, StandardVocabulary>();
+
 	private String language;
-	public Map<String, String> shortlist; 
 	private String english = "englishShortlist.txt";
 	private String german = "germanShortlist.txt";
 	private String dutch = "dutchShortlist.txt";
-	
+
+	// Stopwords, stored one after the other in a single character array
+	private char[] characters = new char[256];
+	private int[] offsets = new int[33]; // start of every stopword, and the end
+	private int[] hashes = new int[32];
+	private int[] table; // index + 1 for every slot, 0 for empty slots
+	private int size = 0;
+	private long fingerprint;
+
 	/**
 	 * Constructor
 	 * @param language - language of standard vocabulary
 	 */
 	public StandardVocabulary( String language ){
 		this.language = language;
-		this.shortlist = createShortlist(this.language);
+		createShortlist(this.language);
+	}
+
+	/**
+	 * This method returns the standard vocabulary of a language. It is
+	 * created the first time it is asked for and then shared.
+	 * @param language - language of standard vocabulary
+	 * @return standardVocabulary
+	 */
+	public static StandardVocabulary getInstance( String language ){
+		synchronized( registry ){
+			StandardVocabulary standardVocabulary = registry.get(language);
+			if( standardVocabulary == null ){
+				standardVocabulary = new StandardVocabulary(language);
+				registry.put(language, standardVocabulary);
+			}
+			return standardVocabulary;
+		}
+	}
+
+	/**
+	 * This method checks whether a word is a stopword.
+	 * @param buffer - buffer that contains the word
+	 * @param offset - index of the first character of the word
+	 * @param length - number of characters of the word
+	 * @return true if the word is in the shortlist
+	 */
+	public boolean contains( char[] buffer, int offset, int length ){
+		int hash = 0;
+		int end = offset + length;
+		for( int i = offset; i < end; i++ ){
+			hash = 31 * hash + buffer[i];
+		}
+		int mask = table.length - 1;
+		int slot = (hash ^ (hash >>> 16)) & mask;
+		while( table[slot] != 0 ){
+			int index = table[slot] - 1;
+			if( hashes[index] == hash && equals(index, buffer, offset, length) ){
+				return true;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return false;
+	}
+
+	/**
+	 * This method checks whether a word is a stopword.
+	 * @param word - the word
+	 * @return true if the word is in the shortlist
+	 */
+	public boolean contains( String word ){
+		return contains(word.toCharArray(), 0, word.length());
+	}
+
+	/**
+	 * This method returns the number of stopwords in the shortlist.
+	 * @return size
+	 */
+	public int size(){
+		return size;
+	}
+
+	/**
+	 * This method returns a fingerprint of the stopwords in the shortlist,
+	 * so that stored results (see io.DocumentCache) can be recognized as
+	 * outdated when the shortlist changes.
+	 * @return fingerprint - checksum of the sorted stopwords
+	 */
+	public long getFingerprint(){
+		return fingerprint;
 	}
 
 	/**
 	 * This method creates a shortlist for the specified language.
 	 * @param language - language for which a shortlist should be created
-	 * @return sList - shortlist
 	 */
-	private Map<String, String> createShortlist( String language ){
-		Map<String, String> sList = null;
+	private void createShortlist( String language ){
+		table = new int[64];
 		if( language.equals("english") )
-			sList = createShortlistLanguage(english);
+			createShortlistLanguage(english);
 		else if( language.equals("dutch"))
-			sList = createShortlistLanguage(dutch);
+			createShortlistLanguage(dutch);
 		else if( language.equals("german") )
-			sList = createShortlistLanguage(german);
-		return sList;
+			createShortlistLanguage(german);
+		computeFingerprint();
 	}
 
 	/**
 	 * This method creates a shortlist for the specified language by parsing
-	 * the appropriate textfile and adding these words to the shortlist.
+	 * the appropriate textfile (UTF-8) and adding these words to the
+	 * shortlist.
 	 * @param languageSList - textfile with words for the shortlist
-	 * @return sList - resulting shortlist
 	 */
-	private Map<String, String> createShortlistLanguage(String languageSList){
-		Map<String, String> sList = new HashMap<String, String>();
-		File fileName = new File(languageSList);
-		Scanner s;
+	private void createShortlistLanguage(String languageSList){
+		Reader reader;
 		try {
-			s = new Scanner( fileName );
-			s.useDelimiter("[ ,!?.:()\"\n]+");
-			while( s.hasNext() ){
-				sList.put(s.next(), null);
+			InputStream stream;
+			if( new File(languageSList).isFile() ){
+				stream = new FileInputStream(languageSList);
+			}
+			else{
+				stream = StandardVocabulary.class.getResourceAsStream("/" + languageSList);
+				if( stream == null ){
+					throw new FileNotFoundException(languageSList);
+				}
 			}
-			s.close();
+			reader = new InputStreamReader( stream, "UTF-8" );
+			Tokenizer tokenizer = new Tokenizer( new Tokenizer.TokenHandler(){
+				public void handleToken( char[] buffer, int offset, int length ){
+					add(buffer, offset, length);
+				}
+			}, false );
+			tokenizer.tokenize( reader );
+			reader.close();
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
-		
-		return sList;
+	}
+
+	/**
+	 * This method adds a stopword to the hash table, unless it is in it
+	 * already.
+	 */
+	private void add( char[] buffer, int offset, int length ){
+		if( contains(buffer, offset, length) ){
+			return;
+		}
+		if( size + 1 == hashes.length ){
+			hashes = Arrays.copyOf(hashes, hashes.length * 2);
+			offsets = Arrays.copyOf(offsets, offsets.length * 2);
+		}
+		int start = offsets[size];
+		if( start + length > characters.length ){
+			characters = Arrays.copyOf(characters,
+					Math.max(characters.length * 2, start + length));
+		}
+		System.arraycopy(buffer, offset, characters, start, length);
+		int hash = 0;
+		for( int i = start; i < start + length; i++ ){
+			hash = 31 * hash + characters[i];
+		}
+		hashes[size] = hash;
+		offsets[size + 1] = start + length;
+		size++;
+		// Keep the load factor of the table at most 0.5
+		if( size * 2 > table.length ){
+			table = new int[table.length * 2];
+			for( int index = 0; index < size - 1; index++ ){
+				insert(index);
+			}
+		}
+		insert(size - 1);
+	}
+
+	private void insert( int index ){
+		int mask = table.length - 1;
+		int slot = (hashes[index] ^ (hashes[index] >>> 16)) & mask;
+		while( table[slot] != 0 ){
+			slot = (slot + 1) & mask;
+		}
+		table[slot] = index + 1;
+	}
+
+	private boolean equals( int index, char[] buffer, int offset, int length ){
+		int start = offsets[index];
+		if( offsets[index + 1] - start != length ){
+			return false;
+		}
+		for( int i = 0; i < length; i++ ){
+			if( characters[start + i] != buffer[offset + i] ){
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void computeFingerprint(){
+		String[] stopwords = new String[size];
+		for( int i = 0; i < size; i++ ){
+			stopwords[i] = new String(characters, offsets[i], offsets[i + 1] - offsets[i]);
+		}
+		Arrays.sort(stopwords);
+		CRC32 crc = new CRC32();
+		for( String stopword : stopwords ){
+			for( int i = 0; i < stopword.length(); i++ ){
+				char c = stopword.charAt(i);
+				crc.update(c >>> 8);
+				crc.update(c);
+			}
+			crc.update(0);
+			crc.update(0);
+		}
+		fingerprint = crc.getValue();
 	}
 }
@@ -0,0 +1,119 @@
+package data_representation;
+
+import java.util.Arrays;
+
+/**
+ * Class TermCounter counts how often every word (by its id, see
+ * data_representation.TermDictionary) occurs while a document is parsed.
+ * It uses an open addressing hash table of primitive ints, so no objects
+ * are created per word. After parsing, the counts are turned into a
+ * data_representation.SparseVector.
+ */
+public class TermCounter{
+	private int[] keys; // id + 1 for every slot, 0 for empty slots
+	private int[] counts;
+	private int size = 0;
+
+	/**
+	 * Default constructor
+	 */
+	public TermCounter(){
+		keys = new int[256];
+		counts = new int[256];
+	}
+
+	/**
+	 * This method increases the count of a word by one.
+	 * @param id - id of the word
+	 */
+	public void add( int id ){
+		add(id, 1);
+	}
+
+	/**
+	 * This method changes the count of a word.
+	 * @param id - id of the word
+	 * @param count - number that is added to the count of the word
+	 */
+	public void add( int id, int count ){
+		int slot = findSlot(id);
+		if( keys[slot] == 0 ){
+			keys[slot] = id + 1;
+			size++;
+			counts[slot] = count;
+			if( size * 2 > keys.length ){
+				rehash();
+			}
+		}
+		else counts[slot] += count;
+	}
+
+	/**
+	 * This method returns the count of a word.
+	 * @param id - id of the word
+	 * @return count
+	 */
+	public int get( int id ){
+		int slot = findSlot(id);
+		if( keys[slot] == 0 ){
+			return 0;
+		}
+		return counts[slot];
+	}
+
+	/**
+	 * This method returns the number of different words that were counted.
+	 * @return size
+	 */
+	public int size(){
+		return size;
+	}
+
+	/**
+	 * This method creates a vector with the words sorted by their id and
+	 * their counts as values. Words with a count of zero are left out.
+	 * @return vector
+	 */
+	public SparseVector toVector(){
+		long[] entries = new long[size];
+		int n = 0;
+		for( int slot = 0; slot < keys.length; slot++ ){
+			if( keys[slot] != 0 && counts[slot] != 0 ){
+				entries[n++] = ((long) (keys[slot] - 1) << 32) |
+						(counts[slot] & 0xFFFFFFFFL);
+			}
+		}
+		Arrays.sort(entries, 0, n);
+		int[] ids = new int[n];
+		double[] values = new double[n];
+		for( int i = 0; i < n; i++ ){
+			ids[i] = (int) (entries[i] >>> 32);
+			values[i] = (int) entries[i];
+		}
+		return new SparseVector(ids, values, n);
+	}
+
+	private int findSlot( int id ){
+		int mask = keys.length - 1;
+		int h = id * 0x9E3779B9;
+		int slot = (h ^ (h >>> 16)) & mask;
+		while( keys[slot] != 0 && keys[slot] != id + 1 ){
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private void rehash(){
+		int[] oldKeys = keys;
+		int[] oldCounts = counts;
+		keys = new int[oldKeys.length * 2];
+		counts = new int[oldKeys.length * 2];
+		for( int slot = 0; slot < oldKeys.length; slot++ ){
+			if( oldKeys[slot] != 0 ){
+				int newSlot = findSlot(oldKeys[slot] - 1);
+				keys[newSlot] = oldKeys[slot];
+				counts[newSlot] = oldCounts[slot];
+			}
+		}
+	}
+}
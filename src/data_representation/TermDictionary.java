@@ -0,0 +1,236 @@
+package data_representation;
+
+/**
+ * Class TermDictionary maps every word to a dense integer id (0, 1, 2, ...)
+ * and back. The ids are assigned in the order in which the words are first
+ * seen. A single dictionary is shared by all documents of the corpus (see
+ * getCorpusDictionary()), so that the same word has the same id in every
+ * document and representations can be compared by their ids instead of by
+ * their strings.
+ * Words can be looked up directly from a character buffer (as provided by
+ * data_representation.Tokenizer); a String is only created the first time
+ * a word is added to the dictionary.
+ */
+public class TermDictionary{
+	private static final TermDictionary corpusDictionary = new TermDictionary();
+	private static final TermDictionary sourceDictionary = new TermDictionary();
+	private static final TermDictionary targetDictionary = new TermDictionary();
+
+	private String[] terms;
+	private int[] hashes;
+	private int[] table; // id + 1 for every slot, 0 for empty slots
+	private int size = 0;
+
+	/**
+	 * Default constructor
+	 */
+	public TermDictionary(){
+		this(1024);
+	}
+
+	/**
+	 * Constructor
+	 * @param expectedSize - expected number of words in the dictionary
+	 */
+	public TermDictionary( int expectedSize ){
+		int capacity = 16;
+		while( capacity < expectedSize * 2 ){
+			capacity *= 2;
+		}
+		table = new int[capacity];
+		terms = new String[Math.max(expectedSize, 16)];
+		hashes = new int[terms.length];
+	}
+
+	/**
+	 * This method returns the dictionary that is shared by all documents
+	 * of the corpus.
+	 * @return corpusDictionary
+	 */
+	public static TermDictionary getCorpusDictionary(){
+		return corpusDictionary;
+	}
+
+	/**
+	 * This method returns the dictionary that is shared by the source words
+	 * of all bilingual documents (see data_representation.BilingualDocument).
+	 * @return sourceDictionary
+	 */
+	public static TermDictionary getSourceDictionary(){
+		return sourceDictionary;
+	}
+
+	/**
+	 * This method returns the dictionary that is shared by the target words
+	 * of all bilingual documents (see data_representation.BilingualDocument).
+	 * @return targetDictionary
+	 */
+	public static TermDictionary getTargetDictionary(){
+		return targetDictionary;
+	}
+
+	/**
+	 * This method returns the id of a word and adds the word to the
+	 * dictionary if it is not in it yet.
+	 * @param buffer - buffer that contains the word
+	 * @param offset - index of the first character of the word
+	 * @param length - number of characters of the word
+	 * @return id - id of the word
+	 */
+	public synchronized int intern( char[] buffer, int offset, int length ){
+		int hash = hash(buffer, offset, length);
+		int slot = findSlot(buffer, offset, length, hash);
+		if( table[slot] != 0 ){
+			return table[slot] - 1;
+		}
+		return add(new String(buffer, offset, length), hash, slot);
+	}
+
+	/**
+	 * This method returns the id of a word and adds the word to the
+	 * dictionary if it is not in it yet.
+	 * @param term - word
+	 * @return id - id of the word
+	 */
+	public synchronized int intern( String term ){
+		int hash = term.hashCode();
+		int slot = findSlot(term, hash);
+		if( table[slot] != 0 ){
+			return table[slot] - 1;
+		}
+		return add(term, hash, slot);
+	}
+
+	/**
+	 * This method returns the id of a word without adding it.
+	 * @param buffer - buffer that contains the word
+	 * @param offset - index of the first character of the word
+	 * @param length - number of characters of the word
+	 * @return id - id of the word, or -1 if the word is not in the dictionary
+	 */
+	public synchronized int lookup( char[] buffer, int offset, int length ){
+		int slot = findSlot(buffer, offset, length,
+				hash(buffer, offset, length));
+		return table[slot] - 1;
+	}
+
+	/**
+	 * This method returns the id of a word without adding it.
+	 * @param term - word
+	 * @return id - id of the word, or -1 if the word is not in the dictionary
+	 */
+	public synchronized int lookup( String term ){
+		return table[findSlot(term, term.hashCode())] - 1;
+	}
+
+	/**
+	 * This method returns the word that belongs to an id.
+	 * @param id - id of the word
+	 * @return term - the word
+	 */
+	public synchronized String term( int id ){
+		return terms[id];
+	}
+
+	/**
+	 * This method returns the number of words in the dictionary. The ids
+	 * of the words are 0 up to (but not including) the size.
+	 * @return size
+	 */
+	public synchronized int size(){
+		return size;
+	}
+
+	/**
+	 * This method computes the same hash as String.hashCode() would for
+	 * the characters, so Strings and character buffers can share the table.
+	 */
+	private static int hash( char[] buffer, int offset, int length ){
+		int h = 0;
+		int end = offset + length;
+		for( int i = offset; i < end; i++ ){
+			h = 31 * h + buffer[i];
+		}
+		return h;
+	}
+
+	private int firstSlot( int hash ){
+		return (hash ^ (hash >>> 16)) & (table.length - 1);
+	}
+
+	private int findSlot( char[] buffer, int offset, int length, int hash ){
+		int mask = table.length - 1;
+		int slot = firstSlot(hash);
+		while( table[slot] != 0 ){
+			int id = table[slot] - 1;
+			if( hashes[id] == hash && equals(terms[id], buffer, offset, length) ){
+				break;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private int findSlot( String term, int hash ){
+		int mask = table.length - 1;
+		int slot = firstSlot(hash);
+		while( table[slot] != 0 ){
+			int id = table[slot] - 1;
+			if( hashes[id] == hash && terms[id].equals(term) ){
+				break;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private static boolean equals( String term, char[] buffer, int offset,
+			int length ){
+		if( term.length() != length ){
+			return false;
+		}
+		for( int i = 0; i < length; i++ ){
+			if( term.charAt(i) != buffer[offset + i] ){
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * This method adds a new word to the dictionary at the given (empty)
+	 * slot of the table and returns its id.
+	 */
+	private int add( String term, int hash, int slot ){
+		int id = size;
+		if( id == terms.length ){
+			String[] largerTerms = new String[terms.length * 2];
+			int[] largerHashes = new int[terms.length * 2];
+			System.arraycopy(terms, 0, largerTerms, 0, size);
+			System.arraycopy(hashes, 0, largerHashes, 0, size);
+			terms = largerTerms;
+			hashes = largerHashes;
+		}
+		terms[id] = term;
+		hashes[id] = hash;
+		table[slot] = id + 1;
+		size++;
+		// Keep the load factor of the table at most 0.5
+		if( size * 2 > table.length ){
+			rehash();
+		}
+		return id;
+	}
+
+	private void rehash(){
+		table = new int[table.length * 2];
+		int mask = table.length - 1;
+		for( int id = 0; id < size; id++ ){
+			int slot = firstSlot(hashes[id]);
+			while( table[slot] != 0 ){
+				slot = (slot + 1) & mask;
+			}
+			table[slot] = id + 1;
+		}
+	}
+}
@@ -0,0 +1,50 @@
+package data_representation;
+
+/**
+ * Class TermPrefix contains the top words of a document (see
+ * FrequencyList.getPrefix()), sorted by their ids instead of by their
+ * frequency, together with the rank of every word. Two prefixes can then be
+ * compared by merging their ids, and the words up to a certain rank can
+ * still be selected by their rank (see plugin_metrics.Chisquare).
+ * As in data_representation.SparseVector, the value of a word is
+ * values[i] / divisor.
+ */
+public class TermPrefix{
+	public int[] ids;
+	public double[] values;
+	public int[] ranks;
+	public int size;
+	public double divisor;
+
+	/**
+	 * Constructor
+	 * @param vector - vector of the top words of the document
+	 * @param order - positions in the vector, with the highest frequencies
+	 * up top
+	 */
+	public TermPrefix( SparseVector vector, int[] order ){
+		size = vector.size;
+		ids = new int[size];
+		values = new double[size];
+		ranks = new int[size];
+		for( int i = 0; i < size; i++ ){
+			ids[i] = vector.ids[i];
+			values[i] = vector.raw(i);
+			// Words outside the order are never within the top
+			ranks[i] = Integer.MAX_VALUE;
+		}
+		for( int rank = 0; rank < order.length; rank++ ){
+			ranks[order[rank]] = rank;
+		}
+		divisor = vector.divisor;
+	}
+
+	/**
+	 * This method returns the value at a position of the prefix.
+	 * @param index - position in the prefix
+	 * @return value - values[index] / divisor
+	 */
+	public double value( int index ){
+		return values[index] / divisor;
+	}
+}
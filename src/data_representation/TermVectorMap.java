@@ -0,0 +1,126 @@
+package data_representation;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Class TermVectorMap makes a data_representation.SparseVector available as
+ * a (read-only) Map from words to values, so that code that works with the
+ * Map-based representation (e.g. FrequencyList.getList() or Document.words)
+ * keeps working. The words are iterated in the given order (e.g. with the
+ * highest frequencies up top, see FrequencyList.sortList()) or, if no order
+ * is given, by their id.
+ */
+public class TermVectorMap extends AbstractMap<String, Double>{
+	private SparseVector vector;
+	private TermDictionary dictionary;
+	private int[] order;
+
+	/**
+	 * Constructor
+	 * @param vector - vector with the ids and values
+	 * @param dictionary - dictionary that contains the words of the ids
+	 * @param order - positions in the vector in the order in which the
+	 * words should be iterated (or null)
+	 */
+	public TermVectorMap( SparseVector vector, TermDictionary dictionary,
+			int[] order ){
+		this.vector = vector;
+		this.dictionary = dictionary;
+		this.order = order;
+	}
+
+	/**
+	 * Getter for the vector behind this map
+	 * @return vector
+	 */
+	public SparseVector getVector(){
+		return vector;
+	}
+
+	/**
+	 * Getter for the dictionary of the ids in the vector
+	 * @return dictionary
+	 */
+	public TermDictionary getDictionary(){
+		return dictionary;
+	}
+
+	/**
+	 * Getter for the order in which the words are iterated
+	 * @return order - positions in the vector, or null if the words are
+	 * iterated by their id
+	 */
+	public int[] getOrder(){
+		return order;
+	}
+
+	public int size(){
+		return vector.size;
+	}
+
+	public boolean containsKey( Object key ){
+		return indexOf(key) >= 0;
+	}
+
+	public Double get( Object key ){
+		int index = indexOf(key);
+		if( index < 0 ){
+			return null;
+		}
+		return vector.value(index);
+	}
+
+	public Set<Entry<String, Double>> entrySet(){
+		return new AbstractSet<Entry<String, Double>>(){
+			public int size(){
+				return vector.size;
+			}
+
+			public Iterator<Entry<String, Double>> iterator(){
+				return new Iterator<Entry<String, Double>>(){
+					int next = 0;
+
+					public boolean hasNext(){
+						return next < vector.size;
+					}
+
+					public Entry<String, Double> next(){
+						if( next >= vector.size ){
+							throw new NoSuchElementException();
+						}
+						int index = order == null ? next : order[next];
+						next++;
+						return new SimpleImmutableEntry<String, Double>(
+								dictionary.term(vector.ids[index]),
+								vector.value(index));
+					}
+
+					public void remove(){
+						throw new UnsupportedOperationException();
+					}
+				};
+			}
+		};
+	}
+
+	/**
+	 * This method returns the position of a word in the vector.
+	 * @param key - word
+	 * @return index - position, or a negative value if the word is not in
+	 * the vector
+	 */
+	private int indexOf( Object key ){
+		if( !(key instanceof String) ){
+			return -1;
+		}
+		int id = dictionary.lookup((String) key);
+		if( id < 0 ){
+			return -1;
+		}
+		return vector.indexOf(id);
+	}
+}
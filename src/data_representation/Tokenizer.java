@@ -0,0 +1,354 @@
+package data_representation;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Class Tokenizer splits a text into words and normalizes these words in a
+ * single pass over the characters. It replaces the combination of a Scanner
+ * with the delimiter "[ ,!?.:()\"\n]+" and the regular expressions of
+ * FrequencyList.removePunctuation(): punctuation that follows a word is
+ * removed, punctuation that preceeds a word is removed, the word is
+ * uncapitalized and words that only consist of punctuation are skipped.
+ * The resulting words are handed to a TokenHandler as a range of the
+ * internal character buffer, so the tokenizer itself does not create any
+ * Strings.
+ * Characters can be fed one at a time (see accept(char)), which makes it
+ * possible to tokenize text that does not come from a java.io.Reader (e.g.
+ * see io.MappedFileReader).
+ * Alternatively, the tokenizer can split the text on whitespace only (like
+ * a Scanner with its default delimiter), e.g. for files with wordpairs and
+ * probabilities.
+ */
+public class Tokenizer{
+	private static final boolean[] DELIMITER = new boolean[128];
+	private static final int CLASS_WORD = 1;
+	private static final int CLASS_PUNCT = 2;
+	private static final int CLASS_SPACE = 4;
+	private static final int[] CHAR_CLASS = new int[128];
+
+	static{
+		String delimiters = " ,!?.:()\"\n";
+		for( int i = 0; i < delimiters.length(); i++ ){
+			DELIMITER[delimiters.charAt(i)] = true;
+		}
+		// Same classes as \w, \p{Punct} and \s in java.util.regex
+		for( char c = 'a'; c <= 'z'; c++ ){
+			CHAR_CLASS[c] = CLASS_WORD;
+		}
+		for( char c = 'A'; c <= 'Z'; c++ ){
+			CHAR_CLASS[c] = CLASS_WORD;
+		}
+		for( char c = '0'; c <= '9'; c++ ){
+			CHAR_CLASS[c] = CLASS_WORD;
+		}
+		String punctuation = "!\"#$%&'()*+,-./:;<=>?@[\\]^_`{|}~";
+		for( int i = 0; i < punctuation.length(); i++ ){
+			CHAR_CLASS[punctuation.charAt(i)] |= CLASS_PUNCT;
+		}
+		// '_' is both a word character and punctuation
+		CHAR_CLASS['_'] |= CLASS_WORD;
+		String whitespace = " \t\n\u000B\f\r";
+		for( int i = 0; i < whitespace.length(); i++ ){
+			CHAR_CLASS[whitespace.charAt(i)] = CLASS_SPACE;
+		}
+	}
+
+	/**
+	 * Interface TokenHandler receives the words found by the tokenizer.
+	 */
+	public interface TokenHandler{
+		/**
+		 * This method is called for every word found by the tokenizer.
+		 * The buffer is reused, so the characters should be copied if the
+		 * word needs to be stored.
+		 * @param buffer - buffer that contains the word
+		 * @param offset - index of the first character of the word
+		 * @param length - number of characters of the word
+		 */
+		void handleToken( char[] buffer, int offset, int length );
+	}
+
+	private TokenHandler handler;
+	private boolean normalize;
+	private boolean whitespaceDelimited;
+	private char[] token = new char[64];
+	private int tokenLength = 0;
+	private int tokenStart = 0;
+
+	/**
+	 * Constructor
+	 * @param handler - handler that receives the words
+	 * @param normalize - boolean that indicates whether punctuation should
+	 * be removed from the words and the words should be uncapitalized. If
+	 * false, the words are passed on as they appear in the text.
+	 */
+	public Tokenizer( TokenHandler handler, boolean normalize ){
+		this(handler, normalize, false);
+	}
+
+	/**
+	 * Constructor
+	 * @param handler - handler that receives the words
+	 * @param normalize - boolean that indicates whether punctuation should
+	 * be removed from the words and the words should be uncapitalized.
+	 * @param whitespaceDelimited - boolean that indicates whether the text
+	 * should be split on whitespace only, instead of on whitespace and
+	 * punctuation.
+	 */
+	public Tokenizer( TokenHandler handler, boolean normalize,
+			boolean whitespaceDelimited ){
+		this.handler = handler;
+		this.normalize = normalize;
+		this.whitespaceDelimited = whitespaceDelimited;
+	}
+
+	/**
+	 * This method reads all the characters from the reader and tokenizes
+	 * them. The reader is not closed by this method.
+	 * @param reader - reader that provides the text
+	 * @throws IOException
+	 */
+	public void tokenize( Reader reader ) throws IOException{
+		char[] chunk = new char[8192];
+		int read;
+		while( (read = reader.read(chunk)) != -1 ){
+			accept(chunk, 0, read);
+		}
+		finish();
+	}
+
+	/**
+	 * This method tokenizes a range of characters. A word that is not
+	 * finished at the end of the range is continued by the next call.
+	 * @param chars - characters to be tokenized
+	 * @param offset - index of the first character
+	 * @param length - number of characters
+	 */
+	public void accept( char[] chars, int offset, int length ){
+		int end = offset + length;
+		for( int i = offset; i < end; i++ ){
+			accept(chars[i]);
+		}
+	}
+
+	/**
+	 * This method adds one character of the text to the tokenizer.
+	 * @param c - next character of the text
+	 */
+	public void accept( char c ){
+		boolean delimiter;
+		if( whitespaceDelimited ){
+			delimiter = Character.isWhitespace(c);
+		}
+		else delimiter = c < 128 && DELIMITER[c];
+		if( delimiter ){
+			if( tokenLength > 0 ){
+				endToken();
+			}
+		}
+		else{
+			if( tokenLength == token.length ){
+				char[] larger = new char[token.length * 2];
+				System.arraycopy(token, 0, larger, 0, tokenLength);
+				token = larger;
+			}
+			token[tokenLength++] = c;
+		}
+	}
+
+	/**
+	 * This method has to be called at the end of the text, so that the
+	 * last word is passed on to the handler.
+	 */
+	public void finish(){
+		if( tokenLength > 0 ){
+			endToken();
+		}
+	}
+
+	/**
+	 * This method removes the punctuation from a word and uncapitalizes it
+	 * in the same way as the tokenizer does for every word of a text.
+	 * @param word - word that needs uncapitalization and removal of
+	 * punctuation.
+	 * @return word - resulting word, or null if nothing remains of the word
+	 */
+	public static String normalize( String word ){
+		Tokenizer tokenizer = new Tokenizer(null, true);
+		tokenizer.token = word.toCharArray();
+		tokenizer.tokenLength = tokenizer.token.length;
+		if( !tokenizer.normalizeToken() ){
+			return null;
+		}
+		return new String(tokenizer.token, tokenizer.tokenStart,
+				tokenizer.tokenLength - tokenizer.tokenStart);
+	}
+
+	/**
+	 * This method passes the current word on to the handler (after
+	 * normalization) and starts a new word.
+	 */
+	private void endToken(){
+		if( !normalize ){
+			handler.handleToken(token, 0, tokenLength);
+		}
+		else if( normalizeToken() ){
+			handler.handleToken(token, tokenStart, tokenLength - tokenStart);
+		}
+		tokenLength = 0;
+		tokenStart = 0;
+	}
+
+	/**
+	 * This method normalizes the current word in place. Afterwards the word
+	 * can be found between tokenStart and tokenLength.
+	 * @return keep - false if the word is empty, a single whitespace
+	 * character or only consists of punctuation.
+	 */
+	private boolean normalizeToken(){
+		char[] t = token;
+		int n = tokenLength;
+
+		// Remove punctuation that follows a word, e.g. "word," or "word;\t"
+		int w = 0;
+		char previous = 0;
+		for( int i = 0; i < n; i++ ){
+			char c = t[i];
+			boolean remove = false;
+			if( i > 0 && isPunct(c) && isWord(previous) ){
+				remove = i + 1 == n || isSpace(t[i + 1]) ||
+						(i + 2 == n && isLineTerminator(t[i + 1]));
+			}
+			previous = c;
+			if( !remove ){
+				t[w++] = c;
+			}
+		}
+		n = w;
+
+		/* Remove punctuation that preceeds a word, e.g. ",,Don't" or "(word".
+		   The number of removed characters is the one a greedy regular
+		   expression would remove. */
+		int leading = 0;
+		while( leading < n && isPunct(t[leading]) ){
+			leading++;
+		}
+		int start = 0;
+		if( leading > 0 ){
+			int lastNonWord = -1;
+			for( int i = n - 1; i >= 0; i-- ){
+				if( !isWord(t[i]) ){
+					lastNonWord = i;
+					break;
+				}
+			}
+			if( matchesPunctWordPunctWord(t, n, leading, lastNonWord) ){
+				for( int a = leading; a >= 1; a-- ){
+					if( findWordPunctWord(t, n, a) ){
+						start = a;
+						break;
+					}
+				}
+			}
+			else{
+				for( int a = Math.min(leading, n - 1); a >= 1; a-- ){
+					if( isWord(t[a]) ){
+						if( lastNonWord < a ){
+							start = a;
+						}
+						break;
+					}
+				}
+			}
+		}
+
+		// Uncapitalize word and check whether it only contains punctuation
+		boolean onlyPunct = true;
+		for( int i = start; i < n; i++ ){
+			char c = t[i];
+			if( c >= 'A' && c <= 'Z' ){
+				c = (char) (c + ('a' - 'A'));
+			}
+			else if( c >= 128 ){
+				c = Character.toLowerCase(c);
+			}
+			t[i] = c;
+			if( onlyPunct && !isPunct(c) ){
+				onlyPunct = false;
+			}
+		}
+
+		tokenStart = start;
+		tokenLength = n;
+		int length = n - start;
+		if( length == 0 || onlyPunct ){
+			return false;
+		}
+		if( length == 1 && isSpace(t[start]) ){
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * This method checks whether the entire word has the form
+	 * punctuation+ word+ punctuation word+ (e.g. ",,Don't").
+	 * @param t - characters of the word
+	 * @param n - length of the word
+	 * @param leading - number of leading punctuation characters
+	 * @param lastNonWord - index of the last character that is not a word
+	 * character (-1 if there is none)
+	 * @return matches
+	 */
+	private static boolean matchesPunctWordPunctWord( char[] t, int n,
+			int leading, int lastNonWord ){
+		for( int a = leading; a >= 1; a-- ){
+			for( int b = a + 1; b < n - 1; b++ ){
+				if( !isWord(t[b - 1]) ){
+					break;
+				}
+				if( isPunct(t[b]) && lastNonWord <= b ){
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * This method checks whether the word starts with the form word+
+	 * punctuation word+ at index a. The rest of the word may be anything.
+	 * @param t - characters of the word
+	 * @param n - length of the word
+	 * @param a - index at which the form should start
+	 * @return found
+	 */
+	private static boolean findWordPunctWord( char[] t, int n, int a ){
+		for( int b = a + 1; b < n - 1; b++ ){
+			if( !isWord(t[b - 1]) ){
+				return false;
+			}
+			if( isPunct(t[b]) && isWord(t[b + 1]) ){
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean isWord( char c ){
+		return c < 128 && (CHAR_CLASS[c] & CLASS_WORD) != 0;
+	}
+
+	private static boolean isPunct( char c ){
+		return c < 128 && (CHAR_CLASS[c] & CLASS_PUNCT) != 0;
+	}
+
+	private static boolean isSpace( char c ){
+		return c < 128 && (CHAR_CLASS[c] & CLASS_SPACE) != 0;
+	}
+
+	private static boolean isLineTerminator( char c ){
+		return c == '\u0085' || c == '\u2028' || c == '\u2029';
+	}
+}
@@ -0,0 +1,33 @@
+package data_representation;
+
+/**
+ * Class VectorStatistics contains statistics of the values of a vector (see
+ * data_representation.SparseVector) that the metrics would otherwise compute
+ * again for every pair of vectors: the sum, the sum of absolute values and
+ * the sum of squares (and the L2 norm). They are computed once per document
+ * (see FrequencyList.getStatistics()) and once per centroid (see
+ * Centroid.getStatistics()), so that a metric only has to go through the
+ * words of one of the vectors (see plugin_metrics.SparseKernels).
+ * The statistics are computed over the values of the vector as returned by
+ * SparseVector.value(), so including its divisor.
+ */
+public class VectorStatistics{
+	public double sum;
+	public double sumOfAbsolutes;
+	public double sumOfSquares;
+	public double norm;
+
+	/**
+	 * Constructor
+	 * @param vector - vector of which the statistics are computed
+	 */
+	public VectorStatistics( SparseVector vector ){
+		for( int i = 0; i < vector.size; i++ ){
+			double value = vector.value(i);
+			sum = sum + value;
+			sumOfAbsolutes = sumOfAbsolutes + Math.abs(value);
+			sumOfSquares = sumOfSquares + Math.pow(value, 2);
+		}
+		norm = Math.sqrt(sumOfSquares);
+	}
+}
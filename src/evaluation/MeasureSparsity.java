@@ -23,7 +23,7 @@ public class MeasureSparsity{
             String fileName = "/model/lex.e2f";
             String[] files = FileLoadingUtils.listDirectoriesDirectory(directory);
             ArrayList<BilingualDocument> documentObjects = new ArrayList<BilingualDocument>();
-            Map<String, Double> allWords = new HashMap<String, Double>();
+            PairSet allWords = new PairSet();
 
             for(int i = 0; i < files.length; i++){
             	String document = directory+"/"+files[i]+fileName;
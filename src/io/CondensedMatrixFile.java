@@ -0,0 +1,273 @@
+package io;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Class CondensedMatrixFile reads and writes the similarity scores of all
+ * pairs of documents in a binary file: the condensed lower triangle of the
+ * matrix. The file starts with a header of HEADER_SIZE bytes with the
+ * number of documents n, the precision of the scores (4 bytes for floats or
+ * 8 for doubles), whether higher scores are given to more similar documents
+ * and the name of the metric (as in plugin_metrics.MetricRegistry). Then the
+ * n * (n-1) / 2 scores follow in the order of the .csv files (see
+ * data_representation.AdjacencyMatrix): row r holds the scores of document
+ * r and documents 0 up to r-1, for r = 1 up to n-1.
+ * The scores are read through read-only memory-mapped buffers, so they are
+ * neither parsed nor copied to the heap. A buffer maps at most 2GB, so a
+ * large file is mapped in regions.
+ */
+public class CondensedMatrixFile{
+	private static final int MAGIC = 0x4943434D; // "ICCM"
+	private static final int VERSION = 1;
+	public static final int HEADER_SIZE = 64;
+	private static final long REGION_SIZE = 1L << 30; // multiple of 8
+
+	public int numberOfDocuments;
+	public boolean floatPrecision;
+	public boolean higherIsSimilar;
+	public String metric;
+	private int width; // bytes per score
+	private long size;
+	private MappedByteBuffer[] regions;
+
+	private CondensedMatrixFile(){
+	}
+
+	/**
+	 * This method checks whether a file is a condensed matrix file, by
+	 * the first bytes of the file.
+	 * @param file - name of the file
+	 * @return true if the file is a condensed matrix file
+	 */
+	public static boolean isCondensed( String file ){
+		try{
+			DataInputStream in = new DataInputStream(new FileInputStream(file));
+			try{
+				return in.readInt() == MAGIC;
+			} finally{
+				in.close();
+			}
+		} catch( IOException e ){
+			return false;
+		}
+	}
+
+	/**
+	 * This method opens a condensed matrix file and maps its scores.
+	 * @param file - name of the file
+	 * @return matrix - the opened file
+	 * @throws IOException if the file can not be read or is not a
+	 * condensed matrix file of this version
+	 */
+	public static CondensedMatrixFile open( String file ) throws IOException{
+		RandomAccessFile in = new RandomAccessFile(file, "r");
+		try{
+			CondensedMatrixFile matrix = new CondensedMatrixFile();
+			if( in.readInt() != MAGIC || in.readInt() != VERSION ){
+				throw new IOException(file + " is not a condensed matrix file");
+			}
+			matrix.numberOfDocuments = in.readInt();
+			matrix.width = in.readByte();
+			matrix.floatPrecision = matrix.width == 4;
+			matrix.higherIsSimilar = in.readBoolean();
+			matrix.metric = in.readUTF();
+			long n = matrix.numberOfDocuments;
+			matrix.size = n * (n - 1) / 2;
+			long length = HEADER_SIZE + matrix.size * matrix.width;
+			if( in.length() < length ){
+				throw new IOException(file + " is incomplete");
+			}
+			FileChannel channel = in.getChannel();
+			int count = (int) ((length - HEADER_SIZE + REGION_SIZE - 1) / REGION_SIZE);
+			matrix.regions = new MappedByteBuffer[count];
+			for( int r = 0; r < count; r++ ){
+				long position = HEADER_SIZE + r * REGION_SIZE;
+				matrix.regions[r] = channel.map(FileChannel.MapMode.READ_ONLY,
+						position, Math.min(REGION_SIZE, length - position));
+			}
+			return matrix;
+		} finally{
+			// The mapped buffers stay valid after the file is closed
+			in.close();
+		}
+	}
+
+	/**
+	 * This method returns the number of scores in the file.
+	 * @return size - n * (n-1) / 2
+	 */
+	public long size(){
+		return size;
+	}
+
+	/**
+	 * This method returns the score at an index of the condensed matrix.
+	 * @param index - index of the score, in the order of the .csv files
+	 * @return value - score
+	 */
+	public double value( long index ){
+		long position = index * width;
+		MappedByteBuffer region = regions[(int) (position / REGION_SIZE)];
+		int offset = (int) (position % REGION_SIZE);
+		return floatPrecision ? region.getFloat(offset) :
+				region.getDouble(offset);
+	}
+
+	/**
+	 * This method returns the score of two documents.
+	 * @param row - index of the first document
+	 * @param column - index of the second document, lower than row
+	 * @return value - score
+	 */
+	public double value( int row, int column ){
+		return value(index(row, column));
+	}
+
+	/**
+	 * This method returns the index of the score of two documents in the
+	 * condensed matrix.
+	 * @param row - index of the first document
+	 * @param column - index of the second document, lower than row
+	 * @return index
+	 */
+	public static long index( int row, int column ){
+		return (long) row * (row - 1) / 2 + column;
+	}
+
+	/**
+	 * This method writes the scores of a .csv file (see
+	 * data_representation.AdjacencyMatrix) to a condensed matrix file.
+	 * @param csvFile - name of the .csv file
+	 * @param file - name of the condensed matrix file
+	 * @param numberOfDocuments - number of documents in the dataset
+	 * @param metric - name of the metric
+	 * @param higherIsSimilar - higher scores are given to more similar
+	 * documents
+	 * @param floatPrecision - the scores are stored as floats
+	 * @throws IOException if one of the files can not be read or written, or
+	 * the .csv file does not have the scores of all pairs
+	 */
+	public static void convert( String csvFile, String file,
+			int numberOfDocuments, String metric, boolean higherIsSimilar,
+			boolean floatPrecision ) throws IOException{
+		Writer writer = new Writer(file, numberOfDocuments, metric,
+				higherIsSimilar, floatPrecision);
+		BufferedReader reader = new BufferedReader(new FileReader(csvFile));
+		try{
+			double[] row = new double[Math.max(numberOfDocuments, 1)];
+			String line;
+			while( (line = reader.readLine()) != null ){
+				int length = 0;
+				int start = 0;
+				while( start < line.length() ){
+					int end = line.indexOf(',', start);
+					if( end < 0 ){
+						end = line.length();
+					}
+					if( end > start ){
+						if( length == row.length ){
+							throw new IOException(csvFile + " has a row that is too long");
+						}
+						row[length] = Double.parseDouble(line.substring(start, end));
+						length++;
+					}
+					start = end + 1;
+				}
+				writer.writeRow(row, length);
+			}
+		} finally{
+			reader.close();
+		}
+		writer.close();
+	}
+
+	/**
+	 * Class Writer writes a condensed matrix file row after row.
+	 */
+	public static class Writer{
+		private DataOutputStream out;
+		private String file;
+		private boolean floatPrecision;
+		private int numberOfDocuments;
+		private int row = 1;
+
+		/**
+		 * Constructor, writes the header
+		 * @param file - name of the file
+		 * @param numberOfDocuments - number of documents in the dataset
+		 * @param metric - name of the metric
+		 * @param higherIsSimilar - higher scores are given to more similar
+		 * documents
+		 * @param floatPrecision - the scores are stored as floats
+		 * @throws IOException if the file can not be written
+		 */
+		public Writer( String file, int numberOfDocuments, String metric,
+				boolean higherIsSimilar, boolean floatPrecision )
+				throws IOException{
+			this.file = file;
+			this.numberOfDocuments = numberOfDocuments;
+			this.floatPrecision = floatPrecision;
+			out = new DataOutputStream(new BufferedOutputStream(
+					new FileOutputStream(file), 1 << 16));
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(numberOfDocuments);
+			out.writeByte(floatPrecision ? 4 : 8);
+			out.writeBoolean(higherIsSimilar);
+			out.writeUTF(metric);
+			if( out.size() > HEADER_SIZE ){
+				out.close();
+				throw new IOException("The name of the metric is too long: " +
+						metric);
+			}
+			while( out.size() < HEADER_SIZE ){
+				out.writeByte(0);
+			}
+		}
+
+		/**
+		 * This method writes the next row of the matrix: the scores of
+		 * document r and documents 0 up to r-1.
+		 * @param scores - scores of the row
+		 * @param length - number of scores, which should be r
+		 * @throws IOException if the file can not be written or the row does
+		 * not have r scores
+		 */
+		public void writeRow( double[] scores, int length ) throws IOException{
+			if( length != row || row >= numberOfDocuments ){
+				throw new IOException("Row " + row + " of " + file +
+						" should have " + row + " scores, not " + length);
+			}
+			for( int j = 0; j < length; j++ ){
+				if( floatPrecision ){
+					out.writeFloat((float) scores[j]);
+				}
+				else out.writeDouble(scores[j]);
+			}
+			row++;
+		}
+
+		/**
+		 * This method closes the file.
+		 * @throws IOException if the file can not be written or not all rows
+		 * were written
+		 */
+		public void close() throws IOException{
+			out.close();
+			if( row < numberOfDocuments ){
+				throw new IOException(file + " has " + (row - 1) + " of the " +
+						(numberOfDocuments - 1) + " rows");
+			}
+		}
+	}
+}
@@ -0,0 +1,410 @@
+package io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/**
+ * Class DocumentCache stores parsed documents (see
+ * data_representation.FrequencyList and data_representation.BilingualDocument)
+ * in a compact binary file per document, so that later runs can load them
+ * from disk instead of parsing the textfiles again.
+ * A stored document is identified by the path of its textfile and the
+ * language (shortlist) it was parsed with. It is only used if the textfile
+ * still has the same size and either the same modification time or the
+ * same content (CRC32 checksum), and if the shortlist did not change (see
+ * data_representation.StandardVocabulary.getFingerprint()). Otherwise the
+ * document is parsed again and the stored file is replaced.
+ * The size, modification time and checksum that are stored are those of
+ * the content that was parsed: they are taken before the textfile is parsed
+ * (see getState()) and the checksum is computed from the bytes that the
+ * parser reads. If the textfile was changed while it was parsed (e.g. a log
+ * that grows), the document is not stored.
+ * The cache is disabled by default. It is enabled by setting its directory
+ * with setDirectory() or with the system property "documentcache"
+ * (e.g. java -Ddocumentcache=cache clustering.Kmeans ...).
+ */
+public class DocumentCache{
+	private static final int MAGIC = 0x49434443; // "ICDC"
+	private static final int VERSION = 4;
+	private static final byte VECTOR = 0;
+	private static final byte PAIRS = 1;
+
+	private static DocumentCache defaultCache;
+	private static boolean initialized = false;
+
+	private File directory;
+
+	/**
+	 * Class CachedVector contains a stored monolingual document: the words
+	 * in the order in which they were first seen, how often each of them was
+	 * counted and the total number of counted words.
+	 */
+	public static class CachedVector{
+		public String[] terms;
+		public int[] counts;
+		public int corpusSize;
+	}
+
+	/**
+	 * Class CachedPairs contains a stored bilingual document: the source
+	 * and target words of the wordpairs and their probabilities in the order
+	 * of the textfile.
+	 */
+	public static class CachedPairs{
+		public String[] sources;
+		public String[] targets;
+		public double[] probabilities;
+	}
+
+	/**
+	 * Class SourceState contains the state of a textfile before it is
+	 * parsed: its size and modification time, and the checksum of the bytes
+	 * that are parsed (see io.MappedFileReader.tokenize()).
+	 */
+	public static class SourceState{
+		public long length;
+		public long modified;
+		public CRC32 checksum = new CRC32();
+	}
+
+	/**
+	 * Constructor
+	 * @param directory - directory in which the documents are stored
+	 */
+	public DocumentCache( String directory ){
+		this.directory = new File(directory);
+		this.directory.mkdirs();
+	}
+
+	/**
+	 * This method returns the cache that is used when documents are parsed.
+	 * @return defaultCache - the cache, or null if no cache should be used
+	 */
+	public static synchronized DocumentCache getDefault(){
+		if( !initialized ){
+			String directory = System.getProperty("documentcache");
+			if( directory != null && directory.length() > 0 ){
+				defaultCache = new DocumentCache(directory);
+			}
+			initialized = true;
+		}
+		return defaultCache;
+	}
+
+	/**
+	 * This method sets the directory of the cache that is used when
+	 * documents are parsed.
+	 * @param directory - directory of the cache, or null to disable it
+	 */
+	public static synchronized void setDirectory( String directory ){
+		defaultCache = directory == null ? null : new DocumentCache(directory);
+		initialized = true;
+	}
+
+	/**
+	 * This method returns the state of a textfile, which should be taken
+	 * before the textfile is parsed. The checksum is empty; the bytes that
+	 * are parsed should be added to it.
+	 * @param textFile - name of the textfile of the document
+	 * @return state
+	 */
+	public SourceState getState( String textFile ){
+		File source = new File(textFile);
+		SourceState state = new SourceState();
+		state.length = source.length();
+		state.modified = source.lastModified();
+		return state;
+	}
+
+	/**
+	 * This method loads a stored monolingual document.
+	 * @param textFile - name of the textfile of the document
+	 * @param language - language of the shortlist (or null)
+	 * @param fingerprint - fingerprint of the shortlist
+	 * @return vector - the stored document, or null if it is not stored or
+	 * outdated
+	 */
+	public CachedVector loadVector( String textFile, String language,
+			long fingerprint ){
+		DataInputStream in = open(textFile, language, fingerprint, VECTOR);
+		if( in == null ){
+			return null;
+		}
+		try{
+			CachedVector cached = new CachedVector();
+			cached.corpusSize = in.readInt();
+			int size = in.readInt();
+			cached.terms = new String[size];
+			cached.counts = new int[size];
+			for( int i = 0; i < size; i++ ){
+				cached.terms[i] = in.readUTF();
+				cached.counts[i] = in.readInt();
+			}
+			return cached;
+		} catch (IOException e) {
+			return null;
+		} finally{
+			close(in);
+		}
+	}
+
+	/**
+	 * This method stores a monolingual document, unless the textfile was
+	 * changed while it was parsed.
+	 * @param textFile - name of the textfile of the document
+	 * @param language - language of the shortlist (or null)
+	 * @param fingerprint - fingerprint of the shortlist
+	 * @param state - state of the textfile before it was parsed, with the
+	 * checksum of the parsed bytes (see getState())
+	 * @param cached - the document
+	 */
+	public void storeVector( String textFile, String language,
+			long fingerprint, SourceState state, CachedVector cached ){
+		if( changed(textFile, state) ){
+			return;
+		}
+		File temporary = null;
+		DataOutputStream out = null;
+		try{
+			temporary = File.createTempFile("document", ".tmp", directory);
+			out = new DataOutputStream(new BufferedOutputStream(
+					new FileOutputStream(temporary), 64 * 1024));
+			writeHeader(out, textFile, language, fingerprint, state, VECTOR);
+			out.writeInt(cached.corpusSize);
+			out.writeInt(cached.terms.length);
+			for( int i = 0; i < cached.terms.length; i++ ){
+				out.writeUTF(cached.terms[i]);
+				out.writeInt(cached.counts[i]);
+			}
+			out.close();
+			out = null;
+			replace(temporary, cacheFile(textFile, language, VECTOR));
+		} catch (IOException e) {
+			e.printStackTrace();
+		} finally{
+			close(out);
+			if( temporary != null ){
+				temporary.delete();
+			}
+		}
+	}
+
+	/**
+	 * This method loads a stored bilingual document.
+	 * @param textFile - name of the textfile of the document
+	 * @return pairs - the stored document, or null if it is not stored or
+	 * outdated
+	 */
+	public CachedPairs loadPairs( String textFile ){
+		DataInputStream in = open(textFile, null, 0, PAIRS);
+		if( in == null ){
+			return null;
+		}
+		try{
+			CachedPairs cached = new CachedPairs();
+			int size = in.readInt();
+			cached.sources = new String[size];
+			cached.targets = new String[size];
+			cached.probabilities = new double[size];
+			for( int i = 0; i < size; i++ ){
+				cached.sources[i] = in.readUTF();
+				cached.targets[i] = in.readUTF();
+				cached.probabilities[i] = in.readDouble();
+			}
+			return cached;
+		} catch (IOException e) {
+			return null;
+		} finally{
+			close(in);
+		}
+	}
+
+	/**
+	 * This method stores a bilingual document, unless the textfile was
+	 * changed while it was parsed.
+	 * @param textFile - name of the textfile of the document
+	 * @param state - state of the textfile before it was parsed, with the
+	 * checksum of the parsed bytes (see getState())
+	 * @param cached - the document
+	 */
+	public void storePairs( String textFile, SourceState state,
+			CachedPairs cached ){
+		if( changed(textFile, state) ){
+			return;
+		}
+		File temporary = null;
+		DataOutputStream out = null;
+		try{
+			temporary = File.createTempFile("document", ".tmp", directory);
+			out = new DataOutputStream(new BufferedOutputStream(
+					new FileOutputStream(temporary), 64 * 1024));
+			writeHeader(out, textFile, null, 0, state, PAIRS);
+			out.writeInt(cached.probabilities.length);
+			for( int i = 0; i < cached.probabilities.length; i++ ){
+				out.writeUTF(cached.sources[i]);
+				out.writeUTF(cached.targets[i]);
+				out.writeDouble(cached.probabilities[i]);
+			}
+			out.close();
+			out = null;
+			replace(temporary, cacheFile(textFile, null, PAIRS));
+		} catch (IOException e) {
+			e.printStackTrace();
+		} finally{
+			close(out);
+			if( temporary != null ){
+				temporary.delete();
+			}
+		}
+	}
+
+	/**
+	 * This method returns the file in which a document is stored. Its name
+	 * consists of the name of the textfile, a checksum of its absolute path
+	 * and the language, the language and the kind of document, so a
+	 * monolingual and a bilingual document of the same textfile are stored
+	 * in different files.
+	 * @param textFile - name of the textfile of the document
+	 * @param language - language of the shortlist (or null)
+	 * @param kind - VECTOR or PAIRS
+	 * @return file
+	 */
+	private File cacheFile( String textFile, String language, byte kind ){
+		File source = new File(textFile);
+		CRC32 crc = new CRC32();
+		String key = source.getAbsolutePath() + "\n" + language;
+		for( int i = 0; i < key.length(); i++ ){
+			char c = key.charAt(i);
+			crc.update(c >>> 8);
+			crc.update(c);
+		}
+		String name = source.getName().replaceAll("[^A-Za-z0-9._-]", "_");
+		return new File(directory, name + "-" + Long.toHexString(crc.getValue()) +
+				"-" + (language == null ? "none" : language) +
+				(kind == PAIRS ? "-pairs" : "-vector") + ".cache");
+	}
+
+	/**
+	 * This method checks whether a textfile was changed after its state
+	 * was taken.
+	 * @param textFile - name of the textfile
+	 * @param state - state of the textfile before it was parsed
+	 * @return changed
+	 */
+	private static boolean changed( String textFile, SourceState state ){
+		File source = new File(textFile);
+		return source.length() != state.length ||
+				source.lastModified() != state.modified;
+	}
+
+	/**
+	 * This method writes the header of a stored document, which identifies
+	 * the textfile and the state it was in when it was parsed.
+	 */
+	private void writeHeader( DataOutputStream out, String textFile,
+			String language, long fingerprint, SourceState state, byte kind )
+			throws IOException{
+		File source = new File(textFile);
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeByte(kind);
+		out.writeUTF(source.getAbsolutePath());
+		out.writeUTF(language == null ? "" : language);
+		out.writeLong(fingerprint);
+		out.writeLong(state.length);
+		out.writeLong(state.modified);
+		out.writeLong(state.checksum.getValue());
+	}
+
+	/**
+	 * This method opens a stored document and checks its header.
+	 * @return in - stream positioned after the header, or null if the
+	 * document is not stored or outdated
+	 */
+	private DataInputStream open( String textFile, String language,
+			long fingerprint, byte kind ){
+		File file = cacheFile(textFile, language, kind);
+		if( !file.isFile() ){
+			return null;
+		}
+		File source = new File(textFile);
+		DataInputStream in = null;
+		try{
+			in = new DataInputStream(new BufferedInputStream(
+					new FileInputStream(file), 64 * 1024));
+			boolean valid = in.readInt() == MAGIC &&
+					in.readInt() == VERSION &&
+					in.readByte() == kind &&
+					in.readUTF().equals(source.getAbsolutePath()) &&
+					in.readUTF().equals(language == null ? "" : language) &&
+					in.readLong() == fingerprint &&
+					in.readLong() == source.length();
+			if( valid ){
+				long modified = in.readLong();
+				long checksum = in.readLong();
+				// Only read the textfile again if it may have been changed
+				valid = modified == source.lastModified() ||
+						checksum == checksum(source);
+			}
+			if( valid ){
+				return in;
+			}
+		} catch (IOException e) {
+			// Unreadable file, parse the textfile again
+		}
+		close(in);
+		return null;
+	}
+
+	/**
+	 * This method computes the CRC32 checksum of the content of a file.
+	 * @param file - the file
+	 * @return checksum
+	 * @throws IOException
+	 */
+	private static long checksum( File file ) throws IOException{
+		CRC32 crc = new CRC32();
+		RandomAccessFile in = new RandomAccessFile(file, "r");
+		try{
+			FileChannel channel = in.getChannel();
+			long size = channel.size();
+			long regionSize = 64L * 1024 * 1024;
+			for( long position = 0; position < size; position += regionSize ){
+				crc.update(channel.map(FileChannel.MapMode.READ_ONLY, position,
+						Math.min(regionSize, size - position)));
+			}
+		} finally{
+			in.close();
+		}
+		return crc.getValue();
+	}
+
+	private static void replace( File temporary, File file ) throws IOException{
+		if( !temporary.renameTo(file) ){
+			file.delete();
+			if( !temporary.renameTo(file) ){
+				throw new IOException("Could not write " + file);
+			}
+		}
+	}
+
+	private static void close( Closeable stream ){
+		if( stream != null ){
+			try{
+				stream.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+}
@@ -14,7 +14,7 @@ import java.io.FilenameFilter;
  * 
  * @author miriamhuijser
  * Class FileLoadingUtils provides methods that list the files in a directory
- * or the directories in a directory.
+ * or the directories in a directory, and the translations of files.
  */
 public class FileLoadingUtils {
 
@@ -64,4 +64,35 @@ public class FileLoadingUtils {
 		});
 		return directories;	
 	}
+
+	/**
+	 * This method lists the translations of the files that have a certain
+	 * extension: a file directory/name.en is translated by
+	 * translationDirectory + name.nl. Files without the extension are
+	 * skipped.
+	 * @param files - names of the files
+	 * @param extension - extension of the files that are translated (e.g.
+	 * ".en")
+	 * @param translationDirectory - directory of the translations, ending
+	 * with "/"
+	 * @param translationExtension - extension of the translations (e.g.
+	 * ".nl")
+	 * @return translations - names of the translations, in the order of the
+	 * files
+	 */
+	public static ArrayList<String> listTranslations( ArrayList<String> files,
+			String extension, String translationDirectory,
+			String translationExtension ){
+		ArrayList<String> translations = new ArrayList<String>();
+		for( int i = 0; i < files.size(); i++ ){
+			String file = files.get(i);
+			if( file.contains(extension) ){
+				int index = file.indexOf(extension);
+				int index2 = file.lastIndexOf("/")+1;
+				translations.add(translationDirectory +
+						file.substring(index2, index) + translationExtension);
+			}
+		}
+		return translations;
+	}
 }
\ No newline at end of file
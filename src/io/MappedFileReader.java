@@ -0,0 +1,179 @@
+package io;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.Checksum;
+import data_representation.Tokenizer;
+
+/**
+ * Class MappedFileReader feeds the text of a file to a
+ * data_representation.Tokenizer. The file is memory-mapped (see
+ * java.nio.channels.FileChannel.map) region by region and the UTF-8 bytes
+ * are decoded directly, without a java.io.Reader or a Scanner in between.
+ * Bytes below 128 (ASCII) are passed on as characters right away; only
+ * the other bytes go through the UTF-8 decoding. Malformed byte sequences
+ * are replaced by the replacement character U+FFFD.
+ */
+public class MappedFileReader{
+	private static final int REGION_SIZE = 64 * 1024 * 1024;
+	private static final int CHUNK_SIZE = 64 * 1024;
+	private static final char REPLACEMENT = '\uFFFD';
+
+	private Tokenizer tokenizer;
+	private int codePoint = 0;
+	private int pending = 0; // number of continuation bytes still expected
+	private int minimum = 0; // smallest code point for the current sequence
+
+	/**
+	 * Constructor
+	 * @param tokenizer - tokenizer that receives the characters of the file
+	 */
+	public MappedFileReader( Tokenizer tokenizer ){
+		this.tokenizer = tokenizer;
+	}
+
+	/**
+	 * This method tokenizes the text of a file with the given tokenizer.
+	 * @param fileName - name of the (UTF-8 or ASCII) textfile
+	 * @param tokenizer - tokenizer that receives the characters of the file
+	 * @throws IOException
+	 */
+	public static void tokenize( String fileName, Tokenizer tokenizer )
+			throws IOException{
+		tokenize(fileName, tokenizer, null);
+	}
+
+	/**
+	 * This method tokenizes the text of a file with the given tokenizer and
+	 * adds the bytes that were read to a checksum, so that the content that
+	 * was tokenized can be recognized without reading the file again (see
+	 * io.DocumentCache).
+	 * @param fileName - name of the (UTF-8 or ASCII) textfile
+	 * @param tokenizer - tokenizer that receives the characters of the file
+	 * @param checksum - checksum to which the bytes are added (or null)
+	 * @throws IOException
+	 */
+	public static void tokenize( String fileName, Tokenizer tokenizer,
+			Checksum checksum ) throws IOException{
+		MappedFileReader reader = new MappedFileReader(tokenizer);
+		reader.read(fileName, checksum);
+	}
+
+	/**
+	 * This method maps the file region by region and decodes its bytes.
+	 * At the end of the file the tokenizer is finished.
+	 * @param fileName - name of the textfile
+	 * @throws IOException
+	 */
+	public void read( String fileName ) throws IOException{
+		read(fileName, null);
+	}
+
+	/**
+	 * This method maps the file region by region and decodes its bytes,
+	 * and adds them to a checksum. At the end of the file the tokenizer is
+	 * finished.
+	 * @param fileName - name of the textfile
+	 * @param checksum - checksum to which the bytes are added (or null)
+	 * @throws IOException
+	 */
+	public void read( String fileName, Checksum checksum ) throws IOException{
+		RandomAccessFile file = new RandomAccessFile(fileName, "r");
+		try{
+			FileChannel channel = file.getChannel();
+			long size = channel.size();
+			byte[] chunk = new byte[CHUNK_SIZE];
+			for( long position = 0; position < size; position += REGION_SIZE ){
+				long regionSize = Math.min(REGION_SIZE, size - position);
+				MappedByteBuffer region = channel.map(
+						FileChannel.MapMode.READ_ONLY, position, regionSize);
+				while( region.hasRemaining() ){
+					int length = Math.min(chunk.length, region.remaining());
+					region.get(chunk, 0, length);
+					if( checksum != null ){
+						checksum.update(chunk, 0, length);
+					}
+					decode(chunk, length);
+				}
+			}
+		} finally{
+			file.close();
+		}
+		if( pending > 0 ){
+			tokenizer.accept(REPLACEMENT);
+			pending = 0;
+		}
+		tokenizer.finish();
+	}
+
+	/**
+	 * This method decodes a chunk of UTF-8 bytes. A multi-byte sequence
+	 * may continue in the next chunk.
+	 * @param bytes - chunk of bytes
+	 * @param length - number of bytes in the chunk
+	 */
+	private void decode( byte[] bytes, int length ){
+		for( int i = 0; i < length; i++ ){
+			int b = bytes[i];
+			// ASCII fast path
+			if( b >= 0 && pending == 0 ){
+				tokenizer.accept((char) b);
+				continue;
+			}
+			b = b & 0xFF;
+			if( pending > 0 ){
+				if( (b & 0xC0) == 0x80 ){
+					codePoint = (codePoint << 6) | (b & 0x3F);
+					pending--;
+					if( pending == 0 ){
+						emit();
+					}
+					continue;
+				}
+				// Sequence was cut off, the current byte starts a new one
+				tokenizer.accept(REPLACEMENT);
+				pending = 0;
+				if( b < 0x80 ){
+					tokenizer.accept((char) b);
+					continue;
+				}
+			}
+			if( b >= 0xC2 && b <= 0xDF ){
+				codePoint = b & 0x1F;
+				pending = 1;
+				minimum = 0x80;
+			}
+			else if( b >= 0xE0 && b <= 0xEF ){
+				codePoint = b & 0x0F;
+				pending = 2;
+				minimum = 0x800;
+			}
+			else if( b >= 0xF0 && b <= 0xF4 ){
+				codePoint = b & 0x07;
+				pending = 3;
+				minimum = 0x10000;
+			}
+			else tokenizer.accept(REPLACEMENT);
+		}
+	}
+
+	/**
+	 * This method passes the decoded code point on to the tokenizer (as a
+	 * surrogate pair if necessary).
+	 */
+	private void emit(){
+		if( codePoint < minimum || codePoint > Character.MAX_CODE_POINT ||
+				(codePoint >= 0xD800 && codePoint <= 0xDFFF) ){
+			tokenizer.accept(REPLACEMENT);
+		}
+		else if( codePoint < 0x10000 ){
+			tokenizer.accept((char) codePoint);
+		}
+		else{
+			tokenizer.accept(Character.highSurrogate(codePoint));
+			tokenizer.accept(Character.lowSurrogate(codePoint));
+		}
+	}
+}
@@ -0,0 +1,425 @@
+package metrics;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import data_representation.FrequencyList;
+import io.CondensedMatrixFile;
+
+/**
+ * Class CheckpointedRun computes the similarity scores of all pairs of
+ * documents with a SimilarityEngine in blocks of rows, and keeps every
+ * completed block in a directory, so that a run that is stopped (e.g. by a
+ * restart of the machine) continues with the blocks that are not done yet.
+ * The directory contains:
+ * - manifest.txt: the number of documents, the block size, the metrics and
+ * the documents of the run, followed by a line "done first last" for every
+ * completed block. A block counts as done only once its line is written.
+ * - block-first.bin: the scores of the rows first up to last of a completed
+ * block, for every metric, as doubles. It is written to a temporary file,
+ * synced to disk and then renamed, so it is either complete or missing. The
+ * directory is synced after the rename where the platform allows it; a
+ * block in the manifest of which the file is missing or incomplete after a
+ * crash is computed again.
+ * - block-first.lock: a lock file that is locked by the process that
+ * computes the block. The lock is released by the operating system when the
+ * process stops, so the block of a stopped process is taken up again.
+ * Because of the locks, several processes can compute the blocks of the same
+ * run at the same time (see startWorker()). When all blocks are done, the
+ * blocks are put together in .csv files or condensed matrix files (see
+ * writeMatrices() and writeCondensed()), which are the same as those that
+ * the engine writes itself. The directory can then be removed.
+ */
+public class CheckpointedRun{
+	private static final String MANIFEST = "manifest.txt";
+
+	private SimilarityEngine engine;
+	private String[] metricNames;
+	private List<String> files;
+	private File directory;
+	private List<FrequencyList> documents;
+	public int blockSize = 512; // rows of a block
+
+	/**
+	 * Constructor
+	 * @param engine - engine that computes the scores
+	 * @param metricNames - name of every metric of the engine, as in
+	 * plugin_metrics.MetricRegistry
+	 * @param files - names of the documents
+	 * @param directory - directory in which the blocks are kept
+	 */
+	public CheckpointedRun( SimilarityEngine engine, String[] metricNames,
+			List<String> files, String directory ){
+		this.engine = engine;
+		this.metricNames = metricNames.clone();
+		this.files = new ArrayList<String>(files);
+		this.directory = new File(directory);
+	}
+
+	/**
+	 * This method computes the blocks that are neither done nor being
+	 * computed by another process. The documents are only created if there
+	 * is a block to compute.
+	 * @return true if all blocks are done
+	 * @throws IOException if the directory can not be written, or it belongs
+	 * to a run with other documents, metrics or block size
+	 */
+	public boolean run() throws IOException{
+		if( !directory.isDirectory() && !directory.mkdirs() ){
+			throw new IOException("Can not create " + directory);
+		}
+		Set<Integer> done = completedBlocks();
+		for( int first = 1; first < files.size(); first = first + blockSize ){
+			if( done.contains(first) ){
+				continue;
+			}
+			RandomAccessFile lockFile = new RandomAccessFile(new File(directory,
+					"block-" + first + ".lock"), "rw");
+			try{
+				FileLock lock = lockFile.getChannel().tryLock();
+				// Another process is computing the block
+				if( lock == null ){
+					continue;
+				}
+				// The block may have been completed since the manifest was read
+				done = completedBlocks();
+				if( !done.contains(first) ){
+					int last = Math.min(first + blockSize, files.size());
+					writeBlock(first, last);
+					done.add(first);
+				}
+				lock.release();
+			} finally{
+				lockFile.close();
+			}
+		}
+		return completedBlocks().size() == numberOfBlocks();
+	}
+
+	/**
+	 * This method puts the blocks together in a .csv file per metric, and
+	 * writes the names that are given for the documents to a textfile per
+	 * metric (see SimilarityEngine.writeMatrices()).
+	 * @param names - names that are written for the documents
+	 * @param matrixFiles - name of the .csv file of every metric
+	 * @param namesFiles - name of the textfile with the names of every metric
+	 * @throws IOException if the files can not be read or written, or not all
+	 * blocks are done
+	 */
+	public void writeMatrices( List<String> names, String[] matrixFiles,
+			String[] namesFiles ) throws IOException{
+		checkComplete(matrixFiles, namesFiles);
+		PrintWriter[] writers = SimilarityEngine.openWriters(names, matrixFiles,
+				namesFiles);
+		for( int first = 1; first < files.size(); first = first + blockSize ){
+			int last = Math.min(first + blockSize, files.size());
+			SimilarityEngine.writeBand(readBlock(first, last), first, last, writers);
+		}
+		for( int m = 0; m < writers.length; m++ ){
+			writers[m].close();
+		}
+	}
+
+	/**
+	 * This method puts the blocks together in a condensed matrix file per
+	 * metric (see io.CondensedMatrixFile), and writes the names that are given
+	 * for the documents to a textfile per metric.
+	 * @param names - names that are written for the documents
+	 * @param matrixFiles - name of the condensed matrix file of every metric
+	 * @param namesFiles - name of the textfile with the names of every metric
+	 * @param floatPrecision - the scores are stored as floats
+	 * @throws IOException if the files can not be read or written, or not all
+	 * blocks are done
+	 */
+	public void writeCondensed( List<String> names, String[] matrixFiles,
+			String[] namesFiles, boolean floatPrecision ) throws IOException{
+		checkComplete(matrixFiles, namesFiles);
+		CondensedMatrixFile.Writer[] writers = SimilarityEngine.openCondensed(
+				files.size(), names, metricNames, matrixFiles, namesFiles,
+				floatPrecision);
+		for( int first = 1; first < files.size(); first = first + blockSize ){
+			int last = Math.min(first + blockSize, files.size());
+			SimilarityEngine.writeBand(readBlock(first, last), first, last, writers);
+		}
+		for( int m = 0; m < writers.length; m++ ){
+			writers[m].close();
+		}
+	}
+
+	/**
+	 * This method starts a worker process: a new Java virtual machine with
+	 * the classpath of this one, which runs the main method of a class. The
+	 * class should create a CheckpointedRun with the same directory and call
+	 * run(); the output of the worker is written to the output of this
+	 * process.
+	 * @param mainClass - name of the class of which the main method is run
+	 * @param args - arguments of the main method
+	 * @return process - the started worker
+	 * @throws IOException if the process can not be started
+	 */
+	public static Process startWorker( String mainClass, String[] args )
+			throws IOException{
+		ArrayList<String> command = new ArrayList<String>();
+		command.add(System.getProperty("java.home") + File.separator + "bin" +
+				File.separator + "java");
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		command.add(mainClass);
+		for( int i = 0; i < args.length; i++ ){
+			command.add(args[i]);
+		}
+		return new ProcessBuilder(command).inheritIO().start();
+	}
+
+	/**
+	 * This method computes a block and writes it to its block file, and then
+	 * adds it to the manifest.
+	 * @param first - first row of the block
+	 * @param last - row after the last row of the block
+	 * @throws IOException if the block can not be written
+	 */
+	private void writeBlock( int first, int last ) throws IOException{
+		// The documents are created in the same order in every process, so
+		// the words get the same ids as in a run without blocks
+		if( documents == null ){
+			documents = engine.load(files);
+		}
+		double[][][] band = engine.computeBand(documents, first, last);
+		File block = new File(directory, "block-" + first + ".bin");
+		File temporary = new File(directory, "block-" + first + ".bin.tmp");
+		FileOutputStream stream = new FileOutputStream(temporary);
+		try{
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+					stream, 1 << 16));
+			for( int m = 0; m < band.length; m++ ){
+				for( int i = first; i < last; i++ ){
+					double[] row = band[m][i - first];
+					for( int j = 0; j < i; j++ ){
+						out.writeDouble(row[j]);
+					}
+				}
+			}
+			out.flush();
+			stream.getFD().sync();
+		} finally{
+			stream.close();
+		}
+		Files.move(temporary.toPath(), block.toPath(),
+				StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		syncDirectory();
+		RandomAccessFile manifest = lockManifest();
+		try{
+			manifest.seek(manifest.length());
+			manifest.write(("done " + first + " " + last + "\n").getBytes("UTF-8"));
+			manifest.getChannel().force(true);
+		} finally{
+			manifest.close();
+		}
+	}
+
+	/**
+	 * This method reads the scores of a completed block from its block file.
+	 * @param first - first row of the block
+	 * @param last - row after the last row of the block
+	 * @return band - scores of every metric of every row of the block
+	 * @throws IOException if the block file can not be read
+	 */
+	private double[][][] readBlock( int first, int last ) throws IOException{
+		File block = new File(directory, "block-" + first + ".bin");
+		long expected = blockLength(first, last);
+		if( block.length() != expected ){
+			throw new IOException(block + " should have " + expected + " bytes");
+		}
+		double[][][] band = new double[metricNames.length][last - first][];
+		DataInputStream in = new DataInputStream(new BufferedInputStream(
+				new FileInputStream(block), 1 << 16));
+		try{
+			for( int m = 0; m < band.length; m++ ){
+				for( int i = first; i < last; i++ ){
+					double[] row = new double[i];
+					for( int j = 0; j < i; j++ ){
+						row[j] = in.readDouble();
+					}
+					band[m][i - first] = row;
+				}
+			}
+		} finally{
+			in.close();
+		}
+		return band;
+	}
+
+	/**
+	 * This method syncs the directory to disk, so that the rename of a block
+	 * file is durable before the block is added to the manifest. Not every
+	 * platform can open a directory; there the check in completedBlocks()
+	 * is left.
+	 */
+	private void syncDirectory(){
+		try{
+			FileChannel channel = FileChannel.open(directory.toPath(),
+					StandardOpenOption.READ);
+			try{
+				channel.force(true);
+			} finally{
+				channel.close();
+			}
+		} catch( IOException e ){
+			// The directory can not be synced on this platform
+		}
+	}
+
+	/**
+	 * This method returns the completed blocks: the blocks in the manifest
+	 * of which the block file is complete.
+	 * @return done - first rows of the completed blocks
+	 * @throws IOException if the manifest can not be read or written, or it
+	 * belongs to another run
+	 */
+	private Set<Integer> completedBlocks() throws IOException{
+		Set<Integer> done = readManifest();
+		Iterator<Integer> blocks = done.iterator();
+		while( blocks.hasNext() ){
+			int first = blocks.next();
+			int last = Math.min(first + blockSize, files.size());
+			File block = new File(directory, "block-" + first + ".bin");
+			if( block.length() != blockLength(first, last) ){
+				blocks.remove();
+			}
+		}
+		return done;
+	}
+
+	/**
+	 * This method returns the length of the file of a block.
+	 * @param first - first row of the block
+	 * @param last - row after the last row of the block
+	 * @return length - number of bytes
+	 */
+	private long blockLength( int first, int last ){
+		return 8L * metricNames.length * (CondensedMatrixFile.index(last, 0) -
+				CondensedMatrixFile.index(first, 0));
+	}
+
+	/**
+	 * This method reads the completed blocks from the manifest. If there is
+	 * no manifest yet, it is created with the description of the run.
+	 * @return done - first rows of the completed blocks
+	 * @throws IOException if the manifest can not be read or written, or it
+	 * belongs to another run
+	 */
+	private Set<Integer> readManifest() throws IOException{
+		RandomAccessFile manifest = lockManifest();
+		try{
+			String description = description();
+			byte[] bytes = new byte[(int) manifest.length()];
+			manifest.readFully(bytes);
+			String content = new String(bytes, "UTF-8");
+			// A new manifest, or one of which the description was not completely
+			// written
+			if( content.length() < description.length() &&
+					description.startsWith(content) ){
+				manifest.setLength(0);
+				manifest.write(description.getBytes("UTF-8"));
+				manifest.getChannel().force(true);
+				content = description;
+			}
+			if( !content.startsWith(description) ){
+				throw new IOException(directory + " belongs to a run with other " +
+						"documents, metrics or block size");
+			}
+			Set<Integer> done = new HashSet<Integer>();
+			String[] lines = content.substring(description.length()).split("\n");
+			for( int i = 0; i < lines.length; i++ ){
+				String[] fields = lines[i].split(" ");
+				// A line that was not completely written is left out
+				if( fields.length == 3 && fields[0].equals("done") ){
+					done.add(Integer.parseInt(fields[1]));
+				}
+			}
+			return done;
+		} finally{
+			manifest.close();
+		}
+	}
+
+	/**
+	 * This method opens the manifest and locks it for this process. The lock
+	 * is released when the returned file is closed.
+	 * @return manifest - the opened and locked manifest
+	 * @throws IOException if the manifest can not be opened or locked
+	 */
+	private RandomAccessFile lockManifest() throws IOException{
+		RandomAccessFile manifest = new RandomAccessFile(new File(directory,
+				MANIFEST), "rw");
+		try{
+			manifest.getChannel().lock();
+		} catch( IOException e ){
+			manifest.close();
+			throw e;
+		}
+		return manifest;
+	}
+
+	/**
+	 * This method returns the description of the run with which the manifest
+	 * starts.
+	 * @return description
+	 */
+	private String description(){
+		StringBuilder description = new StringBuilder();
+		description.append("documents ").append(files.size()).append('\n');
+		description.append("blockSize ").append(blockSize).append('\n');
+		for( int m = 0; m < metricNames.length; m++ ){
+			description.append("metric ").append(metricNames[m]).append('\n');
+		}
+		for( int i = 0; i < files.size(); i++ ){
+			description.append("document ").append(files.get(i)).append('\n');
+		}
+		return description.toString();
+	}
+
+	/**
+	 * This method checks that all blocks are done and that there is a file
+	 * for every metric.
+	 * @param matrixFiles - name of the matrix file of every metric
+	 * @param namesFiles - name of the textfile with the names of every metric
+	 * @throws IOException if not all blocks are done
+	 * @throws IllegalArgumentException if the number of files is not the
+	 * number of metrics
+	 */
+	private void checkComplete( String[] matrixFiles, String[] namesFiles )
+			throws IOException{
+		if( matrixFiles.length != metricNames.length ||
+				namesFiles.length != metricNames.length ){
+			throw new IllegalArgumentException("A matrix file and a names file " +
+					"are needed for each of the " + metricNames.length + " metrics");
+		}
+		int done = completedBlocks().size();
+		if( done != numberOfBlocks() ){
+			throw new IOException(done + " of the " + numberOfBlocks() +
+					" blocks in " + directory + " are done");
+		}
+	}
+
+	private int numberOfBlocks(){
+		return Math.max(files.size() - 1 + blockSize - 1, 0) / blockSize;
+	}
+}
@@ -4,6 +4,7 @@ import java.util.Map;
 import plugin_metrics.Chisquare;
 import data_representation.FrequencyList;
 import data_representation.BilingualDocument;
+import data_representation.FeatureHashing;
 
 /**
  * 
@@ -11,13 +12,18 @@ import data_representation.BilingualDocument;
  * Class ChisquareMetric provides methods that computes the chisquare between
  * the top 500 words/wordpairs of two distributions 
  * (Either monolingual or bilingual).
+ * The documents can also be given after they have been created with
+ * createList(), so that a document that is compared to many others is only
+ * parsed once. The monolingual top words are compared by their ids (see
+ * data_representation.TermPrefix), without going through the lists.
  */
 public class ChisquareMetric{
 	private String textFileA;
 	private String textFileB;
 	private String combinationMethod;
 	private String language;
-	private int topN = 500;
+	private static final int TOP_N = 500;
+	private int topN = TOP_N;
 	private int corpusSizeA;
 	private int corpusSizeB;
 	private FrequencyList freqObjectA;
@@ -26,6 +32,7 @@ public class ChisquareMetric{
 	private Map<String, Double> freqListB;
 	private int topNrevised;
 	private boolean bilingual;
+	private FeatureHashing hashing;
 	private Chisquare c;
 
 	/**
@@ -48,17 +55,121 @@ public class ChisquareMetric{
 		this.bilingual = bilingual;
 	}
 
+	/**
+	 * Constructor
+	 * @param textFileA - name of first document
+	 * @param textFileB - name of second document
+	 * @param language - language of document (null if one does not want
+	 * stopwords to be filtered out)
+	 * @param combinationMethod - method of how to combine the similarity
+	 * scores computed A to B and B to A. ("average" or "minimum")
+	 * @param bilingual - boolean that indicates whether the bilingual
+	 * representation is used
+	 * @param hashing - feature hashing that is used to represent the
+	 * documents (see data_representation.FeatureHashing), or null if the
+	 * words themselves are used. Signs are not used, since the
+	 * frequencies should not be negative.
+	 */
+	public ChisquareMetric( String textFileA, String textFileB, String language,
+					 	String combinationMethod, boolean bilingual, FeatureHashing hashing ){
+		this( textFileA, textFileB, language, combinationMethod, bilingual );
+		if( hashing != null ){
+			this.hashing = hashing.unsigned();
+		}
+	}
+
+	/**
+	 * Constructor for documents that have been created already (see
+	 * createList()). Both documents should be monolingual or both
+	 * bilingual.
+	 * @param freqObjectA - first document
+	 * @param freqObjectB - second document
+	 * @param combinationMethod - method of how to combine the similarity
+	 * scores computed A to B and B to A. ("average" or "minimum")
+	 */
+	public ChisquareMetric( FrequencyList freqObjectA, FrequencyList freqObjectB,
+			String combinationMethod ){
+		this.textFileA = freqObjectA.textFile;
+		this.textFileB = freqObjectB.textFile;
+		this.combinationMethod = combinationMethod;
+		this.bilingual = freqObjectA instanceof BilingualDocument;
+		this.freqObjectA = freqObjectA;
+		this.freqObjectB = freqObjectB;
+		c = new Chisquare(bilingual);
+		freqListA = freqObjectA.getList();
+		freqListB = freqObjectB.getList();
+		corpusSizeA = freqObjectA.corpusSize;
+		corpusSizeB = freqObjectB.corpusSize;
+	}
+
+	/**
+	 * This method creates the representation of a document in the way this
+	 * metric uses it, so that it can be given to the constructor for created
+	 * documents.
+	 * @param textFile - name of the document
+	 * @param language - language of document (null if one does not want
+	 * stopwords to be filtered out)
+	 * @param bilingual - boolean that indicates whether the bilingual
+	 * representation is used
+	 * @param hashing - feature hashing that is used to represent the
+	 * document, or null if the words themselves are used. It should be
+	 * unsigned (see FeatureHashing.unsigned()), and the same for every
+	 * document.
+	 * @return freqObject - created document
+	 */
+	public static FrequencyList createList( String textFile, String language,
+			boolean bilingual, FeatureHashing hashing ){
+		FrequencyList freqObject = SimilarityEngine.createList(textFile,
+				language, TOP_N, bilingual, hashing);
+		if( !bilingual ){
+			freqObject.getPrefix();
+		}
+		return freqObject;
+	}
+
+	/**
+	 * This method returns this metric as it is used by the
+	 * SimilarityEngine, which creates every document once.
+	 * @param language - language of documents (null if one does not want
+	 * stopwords to be filtered out)
+	 * @param combinationMethod - method of how to combine the similarity
+	 * scores computed A to B and B to A. ("average" or "minimum")
+	 * @param bilingual - boolean that indicates whether the bilingual
+	 * representation is used
+	 * @param hashing - feature hashing that is used to represent the
+	 * document, or null if the words themselves are used. Signs are not used,
+	 * since the frequencies should not be negative.
+	 * @return metric - metric for the engine
+	 */
+	public static SimilarityEngine.PairMetric pairMetric( final String language,
+			final String combinationMethod, final boolean bilingual,
+			FeatureHashing hashing ){
+		final FeatureHashing used = hashing == null ? null : hashing.unsigned();
+		return new SimilarityEngine.PairMetric(){
+			public FrequencyList load( String textFile ){
+				return createList(textFile, language, bilingual, used);
+			}
+			public double computeSimilarity( FrequencyList a, FrequencyList b ){
+				return new ChisquareMetric(a, b,
+						combinationMethod).computeSimilarity();
+			}
+		};
+	}
+
 	/**
 	 * This method initializes the desired distributions and computes the 
 	 * similarity between the two.
 	 * @return similarityScore - similarity score
 	 */	
 	public double computeSimilarity(){
-		if(bilingual){
-			init(bilingual);
-		}
-		else{
-			init();
+		// Documents that were given to the constructor are created already
+		if( c == null ){
+			if(bilingual){
+				init(bilingual);
+			}
+			else{
+				init();
+			}
 		}
 		// If one of the distributions has fewer words than 500 words, 
 		// then that number words are taken as the top.
@@ -71,8 +182,21 @@ public class ChisquareMetric{
 
 		double similarityScore = -1;
 
-		double scoreAtoB = c.computeDistance( freqListA, corpusSizeA, freqListB, corpusSizeB, topNrevised );
-		double scoreBtoA = c.computeDistance( freqListB, corpusSizeB, freqListA, corpusSizeA, topNrevised );
+		double scoreAtoB;
+		double scoreBtoA;
+		if( bilingual ){
+			scoreAtoB = c.computeDistance( freqListA, corpusSizeA, freqListB, corpusSizeB, topNrevised );
+			scoreBtoA = c.computeDistance( freqListB, corpusSizeB, freqListA, corpusSizeA, topNrevised );
+		}
+		// The top words are compared by id both ways in one merge, without
+		// going through the lists
+		else{
+			double[] scores = new double[2];
+			c.computeDistances( freqObjectA.getPrefix(), corpusSizeA,
+					freqObjectB.getPrefix(), corpusSizeB, topNrevised, scores );
+			scoreAtoB = scores[0];
+			scoreBtoA = scores[1];
+		}
 
 		// Minimum score of the two scores is taken to be the similarity score
 		if( combinationMethod.equals("minimum") ){
@@ -97,6 +221,8 @@ public class ChisquareMetric{
 		c = new Chisquare(false);
 		freqObjectA = new FrequencyList( textFileA, language, topN );
 		freqObjectB = new FrequencyList( textFileB, language, topN );
+		freqObjectA.setFeatureHashing(hashing);
+		freqObjectB.setFeatureHashing(hashing);
 		freqListA = freqObjectA.createList();
 		freqListB = freqObjectB.createList();
 		corpusSizeA = freqObjectA.corpusSize;
@@ -111,6 +237,8 @@ public class ChisquareMetric{
 		c = new Chisquare(true);
 		freqObjectA = new BilingualDocument(textFileA);
 		freqObjectB = new BilingualDocument(textFileB);
+		freqObjectA.setFeatureHashing(hashing);
+		freqObjectB.setFeatureHashing(hashing);
 		freqListA = freqObjectA.createList();
 		freqListB = freqObjectB.createList();
 		corpusSizeA = freqObjectA.corpusSize;
@@ -4,6 +4,7 @@ import java.util.Map;
 import plugin_metrics.Cosine;
 import data_representation.FrequencyList;
 import data_representation.BilingualDocument;
+import data_representation.FeatureHashing;
 
 /**
  * 
@@ -22,6 +23,7 @@ public class CosineMetric {
 	private int corpusSizeA;
 	private int corpusSizeB;
 	private boolean bilingual;
+	private FeatureHashing hashing;
 	private Cosine c;
 	
 	/**
@@ -41,6 +43,38 @@ public class CosineMetric {
 		this.bilingual = bilingual;
 	}
 
+	/**
+	 * Constructor
+	 * @param textFileA - name of first document
+	 * @param textFileB - name of second document
+	 * @param language - language of document (null if one does not want
+	 * stopwords to be filtered out)
+	 * @param bilingual - boolean that indicates whether the bilingual
+	 * representation is used
+	 * @param hashing - feature hashing that is used to represent the
+	 * documents (see data_representation.FeatureHashing), or null if the
+	 * words themselves are used
+	 */
+	public CosineMetric( String textFileA, String textFileB, 
+			String language, boolean bilingual, FeatureHashing hashing ){
+		this( textFileA, textFileB, language, bilingual );
+		this.hashing = hashing;
+	}
+
+	/**
+	 * Constructor for documents that have been created already (see
+	 * SimilarityEngine.createList()). Both documents should be monolingual
+	 * or both bilingual.
+	 * @param freqObjectA - first document
+	 * @param freqObjectB - second document
+	 */
+	public CosineMetric( FrequencyList freqObjectA, FrequencyList freqObjectB ){
+		this.textFileA = freqObjectA.textFile;
+		this.textFileB = freqObjectB.textFile;
+		this.bilingual = freqObjectA instanceof BilingualDocument;
+		setDocuments(freqObjectA, freqObjectB);
+	}
+
 	/**
 	 * This method initializes the desired distributions and computes the 
 	 * similarity between the two.
@@ -48,12 +82,10 @@ public class CosineMetric {
 	 */
 	public double computeSimilarity(){
 		double result = 0;
-		if(bilingual){
-			init(bilingual);
-		}
-		else{
+		// Documents that were given to the constructor are created already
+		if( c == null ){
 			init();
-		}			
+		}
 		result = c.computeDistance(freqListA, 
 				corpusSizeA, freqListB, corpusSizeB);
 		
@@ -61,29 +93,51 @@ public class CosineMetric {
 	}
 
 	/**
-	 * This method initializes the monolingual distributions
+	 * This method initializes the representations of the textfiles
 	 */
 	private void init(){
-		c = new Cosine(false);
-		freqObjectA = new FrequencyList( textFileA, language, -1 );
-		freqObjectB = new FrequencyList( textFileB, language, -1 );
-		freqListA = freqObjectA.createList();
-		freqListB = freqObjectB.createList();
-		corpusSizeA = freqObjectA.corpusSize;
-		corpusSizeB = freqObjectB.corpusSize;
+		setDocuments(SimilarityEngine.createList(textFileA, language, -1,
+				bilingual, hashing), SimilarityEngine.createList(textFileB,
+				language, -1, bilingual, hashing));
 	}
 
 	/**
-	 * This method initializes the bilingual distributions
-	 * @param bilingual
+	 * This method sets the documents that are compared.
+	 * @param freqObjectA - first document
+	 * @param freqObjectB - second document
 	 */
-	private void init( boolean bilingual){
-		c = new Cosine(true);
-		freqObjectA = new BilingualDocument(textFileA);
-		freqObjectB = new BilingualDocument(textFileB);
-		freqListA = freqObjectA.createList();
-		freqListB = freqObjectB.createList();
+	private void setDocuments( FrequencyList freqObjectA,
+			FrequencyList freqObjectB ){
+		c = new Cosine(bilingual);
+		this.freqObjectA = freqObjectA;
+		this.freqObjectB = freqObjectB;
+		freqListA = freqObjectA.getList();
+		freqListB = freqObjectB.getList();
 		corpusSizeA = freqObjectA.corpusSize;
 		corpusSizeB = freqObjectB.corpusSize;
-	}	
-}
\ No newline at end of file
+	}
+
+	/**
+	 * This method returns this metric as it is used by the
+	 * SimilarityEngine, which creates every document once.
+	 * @param language - language of documents (null if one does not want
+	 * stopwords to be filtered out)
+	 * @param bilingual - boolean that indicates whether the bilingual
+	 * representation is used
+	 * @param hashing - feature hashing that is used to represent the
+	 * document, or null if the words themselves are used
+	 * @return metric - metric for the engine
+	 */
+	public static SimilarityEngine.PairMetric pairMetric( final String language,
+			final boolean bilingual, final FeatureHashing hashing ){
+		return new SimilarityEngine.PairMetric(){
+			public FrequencyList load( String textFile ){
+				return SimilarityEngine.createList(textFile, language, -1,
+						bilingual, hashing);
+			}
+			public double computeSimilarity( FrequencyList a, FrequencyList b ){
+				return new CosineMetric(a, b).computeSimilarity();
+			}
+		};
+	}
+}
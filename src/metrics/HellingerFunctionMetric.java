@@ -2,6 +2,7 @@ package metrics;
 
 import data_representation.FrequencyList;
 import data_representation.BilingualDocument;
+import data_representation.FeatureHashing;
 import plugin_metrics.HellingerFunction;
 import java.util.Map;
 
@@ -23,6 +24,7 @@ public class HellingerFunctionMetric{
 	private int corpusSizeA;
 	private int corpusSizeB;
 	private boolean bilingual;
+	private FeatureHashing hashing;
 	private HellingerFunction h;
 
 	/**
@@ -41,7 +43,43 @@ public class HellingerFunctionMetric{
 		this.language = language;
 		this.bilingual = bilingual;
 	}
+
+	/**
+	 * Constructor
+	 * @param textFileA - first document
+	 * @param textFileB - second document
+	 * @param language - language of document (null if one does not want
+	 * stopwords to be filtered out)
+	 * @param bilingual - boolean that indicates whether the bilingual
+	 * representation is used
+	 * @param hashing - feature hashing that is used to represent the
+	 * documents (see data_representation.FeatureHashing), or null if the
+	 * words themselves are used. Signs are not used, since the
+	 * frequencies should not be negative.
+	 */
+	public HellingerFunctionMetric( String textFileA, String textFileB, 
+			String language, boolean bilingual, FeatureHashing hashing ){
+		this( textFileA, textFileB, language, bilingual );
+		if( hashing != null ){
+			this.hashing = hashing.unsigned();
+		}
+	}
 	
+	/**
+	 * Constructor for documents that have been created already (see
+	 * SimilarityEngine.createList()). Both documents should be monolingual
+	 * or both bilingual.
+	 * @param freqObjectA - first document
+	 * @param freqObjectB - second document
+	 */
+	public HellingerFunctionMetric( FrequencyList freqObjectA,
+			FrequencyList freqObjectB ){
+		this.textFileA = freqObjectA.textFile;
+		this.textFileB = freqObjectB.textFile;
+		this.bilingual = freqObjectA instanceof BilingualDocument;
+		setDocuments(freqObjectA, freqObjectB);
+	}
+
 	/**
 	 * This method initializes the desired representations and computes the
 	 * similarity between the two distributions.
@@ -49,12 +87,10 @@ public class HellingerFunctionMetric{
 	 */
 	public double computeSimilarity(){
 		double result = 0;
-		if(bilingual){
-			init(bilingual);
-		}
-		else{
+		// Documents that were given to the constructor are created already
+		if( h == null ){
 			init();
-		}		
+		}
 		
 		result = h.computeDistance(freqListA, 
 				corpusSizeA, freqListB, corpusSizeB);
@@ -63,29 +99,53 @@ public class HellingerFunctionMetric{
 	}
 	
 	/**
-	 * This method initializes the monolingual representations
+	 * This method initializes the representations of the textfiles
 	 */
 	private void init(){
-		h = new HellingerFunction(false);
-		freqObjectA = new FrequencyList( textFileA, language, -1 );
-		freqObjectB = new FrequencyList( textFileB, language, -1 );
-		freqListA = freqObjectA.createList();
-		freqListB = freqObjectB.createList();
-		corpusSizeA = freqObjectA.corpusSize;
-		corpusSizeB = freqObjectB.corpusSize;
+		setDocuments(SimilarityEngine.createList(textFileA, language, -1,
+				bilingual, hashing), SimilarityEngine.createList(textFileB,
+				language, -1, bilingual, hashing));
 	}
 
 	/**
-	 * This method initializes the bilingual representations
-	 * @param bilingual
+	 * This method sets the documents that are compared.
+	 * @param freqObjectA - first document
+	 * @param freqObjectB - second document
 	 */
-	private void init( boolean bilingual){
-		h = new HellingerFunction(true);
-		freqObjectA = new BilingualDocument(textFileA);
-		freqObjectB = new BilingualDocument(textFileB);
-		freqListA = freqObjectA.createList();
-		freqListB = freqObjectB.createList();
+	private void setDocuments( FrequencyList freqObjectA,
+			FrequencyList freqObjectB ){
+		h = new HellingerFunction(bilingual);
+		this.freqObjectA = freqObjectA;
+		this.freqObjectB = freqObjectB;
+		freqListA = freqObjectA.getList();
+		freqListB = freqObjectB.getList();
 		corpusSizeA = freqObjectA.corpusSize;
 		corpusSizeB = freqObjectB.corpusSize;
-	}			
-}
\ No newline at end of file
+	}
+
+	/**
+	 * This method returns this metric as it is used by the
+	 * SimilarityEngine, which creates every document once.
+	 * @param language - language of documents (null if one does not want
+	 * stopwords to be filtered out)
+	 * @param bilingual - boolean that indicates whether the bilingual
+	 * representation is used
+	 * @param hashing - feature hashing that is used to represent the
+	 * document, or null if the words themselves are used. Signs are not used,
+	 * since the frequencies should not be negative.
+	 * @return metric - metric for the engine
+	 */
+	public static SimilarityEngine.PairMetric pairMetric( final String language,
+			final boolean bilingual, FeatureHashing hashing ){
+		final FeatureHashing used = hashing == null ? null : hashing.unsigned();
+		return new SimilarityEngine.PairMetric(){
+			public FrequencyList load( String textFile ){
+				return SimilarityEngine.createList(textFile, language, -1,
+						bilingual, used);
+			}
+			public double computeSimilarity( FrequencyList a, FrequencyList b ){
+				return new HellingerFunctionMetric(a, b).computeSimilarity();
+			}
+		};
+	}
+}
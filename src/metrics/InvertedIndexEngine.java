@@ -0,0 +1,395 @@
+package metrics;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import data_representation.BilingualDocument;
+import data_representation.FeatureHashing;
+import data_representation.FrequencyList;
+import data_representation.PairVector;
+import data_representation.SparseVector;
+import io.CondensedMatrixFile;
+
+/**
+ * Class InvertedIndexEngine computes the cosine and Jaccard's coefficient of
+ * all pairs of documents from an inverted index, and writes them in the same
+ * layout as SimilarityEngine. Only the words that two documents have in
+ * common contribute to the dot product and to the sum of the minima, so
+ * instead of comparing every pair word by word, the index lists for every
+ * word the documents it occurs in (the postings), and the products and
+ * minima of a document with all documents before it are added up along the
+ * postings of its words (a sparse X * X^T). The norms and the sums of the
+ * documents are computed once, so
+ * cosine = dot / (norm(q) * norm(r)) and
+ * jaccard = min / (sum(q) + sum(r) - min).
+ * The scores are the same as those of CosineMetric and
+ * JaccardsCoefficientMetric up to rounding, since the terms are added in
+ * another order.
+ * Words that occur in more than dfCap documents (e.g. stopwords) can be
+ * skipped: their postings are the longest, but they say little about the
+ * similarity. Their part of the dot product and of the minima is then left
+ * out; the norms and sums still contain them.
+ * The rows are computed in bands and tiles of rows on a fork-join pool, as
+ * by SimilarityEngine, and written to .csv files or condensed matrix files.
+ */
+public class InvertedIndexEngine{
+	public static final String[] METRICS = { "Cosine", "Jaccards" };
+
+	private String[] names;
+	private boolean cosine;
+	private boolean jaccard;
+	private String language;
+	private boolean bilingual;
+	private FeatureHashing hashing;
+	private ForkJoinPool pool;
+	public int dfCap = Integer.MAX_VALUE; // words in more documents are skipped
+	public int tileSize = 64; // rows of a tile
+	public int bandSize = 512; // rows that are computed before writing
+
+	/**
+	 * Constructor, uses as many workers as there are processors
+	 * @param names - names of the metrics that are computed (see METRICS)
+	 * @param language - language of documents (null if one does not want
+	 * stopwords to be filtered out)
+	 * @param bilingual - boolean that indicates whether the bilingual
+	 * representation is used
+	 * @param hashing - feature hashing that is used to represent the
+	 * documents, or null if the words themselves are used. Signs are not
+	 * used, since the minima of Jaccard's coefficient need frequencies that
+	 * are not negative.
+	 */
+	public InvertedIndexEngine( String[] names, String language,
+			boolean bilingual, FeatureHashing hashing ){
+		this(names, language, bilingual, hashing,
+				Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Constructor
+	 * @param names - names of the metrics that are computed (see METRICS)
+	 * @param language - language of documents (null if one does not want
+	 * stopwords to be filtered out)
+	 * @param bilingual - boolean that indicates whether the bilingual
+	 * representation is used
+	 * @param hashing - feature hashing that is used to represent the
+	 * documents, or null if the words themselves are used
+	 * @param parallelism - number of workers that compute scores at the same
+	 * time
+	 * @throws IllegalArgumentException if one of the names is not in METRICS
+	 */
+	public InvertedIndexEngine( String[] names, String language,
+			boolean bilingual, FeatureHashing hashing, int parallelism ){
+		for( int m = 0; m < names.length; m++ ){
+			if( names[m].equals("Cosine") ){
+				cosine = true;
+			}
+			else if( names[m].equals("Jaccards") ){
+				jaccard = true;
+			}
+			else throw new IllegalArgumentException("The inverted index can not" +
+					" compute " + names[m]);
+		}
+		this.names = names.clone();
+		this.language = language;
+		this.bilingual = bilingual;
+		this.hashing = hashing == null ? null : hashing.unsigned();
+		pool = new ForkJoinPool(parallelism);
+	}
+
+	/**
+	 * This method creates the documents of the dataset, one after the other,
+	 * in the way CosineMetric and JaccardsCoefficientMetric create them.
+	 * @param files - names of the documents
+	 * @return documents - created documents
+	 */
+	public ArrayList<FrequencyList> load( List<String> files ){
+		ArrayList<FrequencyList> documents = new ArrayList<FrequencyList>();
+		for( int i = 0; i < files.size(); i++ ){
+			documents.add(SimilarityEngine.createList(files.get(i), language, -1,
+					bilingual, hashing));
+		}
+		return documents;
+	}
+
+	/**
+	 * This method computes the scores of all pairs of documents for every
+	 * metric and writes them to a .csv file per metric, and the names that
+	 * are given for the documents to a textfile per metric.
+	 * @param files - names of the documents
+	 * @param names - names that are written for the documents
+	 * @param matrixFiles - name of the .csv file of every metric
+	 * @param namesFiles - name of the textfile with the names of every metric
+	 * @throws IOException if one of the files can not be written
+	 * @throws IllegalArgumentException if the number of files is not the
+	 * number of metrics
+	 */
+	public void writeMatrices( List<String> files, List<String> names,
+			String[] matrixFiles, String[] namesFiles ) throws IOException{
+		if( matrixFiles.length != this.names.length ||
+				namesFiles.length != this.names.length ){
+			throw new IllegalArgumentException("A matrix file and a names file " +
+					"are needed for each of the " + this.names.length + " metrics");
+		}
+		Index index = new Index(load(files));
+		PrintWriter[] writers = SimilarityEngine.openWriters(names, matrixFiles,
+				namesFiles);
+		writeMatrices(index, writers);
+		for( int m = 0; m < writers.length; m++ ){
+			writers[m].close();
+		}
+	}
+
+	/**
+	 * This method computes the scores of all pairs of documents and writes
+	 * them row after row, the scores of every metric to a writer of its own.
+	 * @param documents - created documents (see load())
+	 * @param writers - writer of every metric, in the order of the names
+	 */
+	public void writeMatrices( List<FrequencyList> documents,
+			PrintWriter[] writers ){
+		writeMatrices(new Index(documents), writers);
+	}
+
+	/**
+	 * This method computes the scores of all pairs of documents for every
+	 * metric and writes them to a condensed matrix file per metric (see
+	 * io.CondensedMatrixFile), and the names that are given for the
+	 * documents to a textfile per metric.
+	 * @param files - names of the documents
+	 * @param names - names that are written for the documents
+	 * @param matrixFiles - name of the condensed matrix file of every metric
+	 * @param namesFiles - name of the textfile with the names of every metric
+	 * @param floatPrecision - the scores are stored as floats
+	 * @throws IOException if one of the files can not be written
+	 * @throws IllegalArgumentException if the number of files is not the
+	 * number of metrics
+	 */
+	public void writeCondensed( List<String> files, List<String> names,
+			String[] matrixFiles, String[] namesFiles, boolean floatPrecision )
+			throws IOException{
+		if( matrixFiles.length != this.names.length ||
+				namesFiles.length != this.names.length ){
+			throw new IllegalArgumentException("A matrix file and a names file " +
+					"are needed for each of the " + this.names.length + " metrics");
+		}
+		Index index = new Index(load(files));
+		CondensedMatrixFile.Writer[] writers = SimilarityEngine.openCondensed(
+				index.size, names, this.names, matrixFiles, namesFiles,
+				floatPrecision);
+		for( int first = 1; first < index.size; first = first + bandSize ){
+			int last = Math.min(first + bandSize, index.size);
+			SimilarityEngine.writeBand(computeBand(index, first, last), first,
+					last, writers);
+		}
+		for( int m = 0; m < writers.length; m++ ){
+			writers[m].close();
+		}
+	}
+
+	private void writeMatrices( Index index, PrintWriter[] writers ){
+		for( int first = 1; first < index.size; first = first + bandSize ){
+			int last = Math.min(first + bandSize, index.size);
+			SimilarityEngine.writeBand(computeBand(index, first, last), first,
+					last, writers);
+		}
+	}
+
+	/**
+	 * This method shuts down the workers of the engine.
+	 */
+	public void shutdown(){
+		pool.shutdown();
+	}
+
+	/**
+	 * This method computes the scores of the rows first up to last with all
+	 * documents before them, tile by tile.
+	 * @param index - index of the documents
+	 * @param first - first row of the band
+	 * @param last - row after the last row of the band
+	 * @return band - scores of every metric of every row of the band
+	 */
+	private double[][][] computeBand( Index index, int first, int last ){
+		double[][] dots = cosine ? new double[last - first][] : null;
+		double[][] minima = jaccard ? new double[last - first][] : null;
+		for( int i = first; i < last; i++ ){
+			if( cosine ){
+				dots[i - first] = new double[i];
+			}
+			if( jaccard ){
+				minima[i - first] = new double[i];
+			}
+		}
+		ArrayDeque<ForkJoinTask<Void>> tasks = new ArrayDeque<ForkJoinTask<Void>>();
+		for( int row = first; row < last; row = row + tileSize ){
+			tasks.add(pool.submit(tileTask(index, dots, minima, first, row,
+					Math.min(row + tileSize, last))));
+		}
+		while( !tasks.isEmpty() ){
+			tasks.poll().join();
+		}
+		double[][][] band = new double[names.length][][];
+		for( int m = 0; m < names.length; m++ ){
+			band[m] = names[m].equals("Cosine") ? dots : minima;
+		}
+		return band;
+	}
+
+	/**
+	 * This method creates the task that computes the scores of the rows
+	 * row up to rowEnd: the products and minima are added up along the
+	 * postings of the words of every row, and then turned into the scores
+	 * in place.
+	 * @param index - index of the documents
+	 * @param dots - rows of the cosine (null if it is not computed)
+	 * @param minima - rows of Jaccard's coefficient (null if it is not
+	 * computed)
+	 * @param first - first row of the band
+	 * @param row - first row of the tile
+	 * @param rowEnd - row after the last row of the tile
+	 * @return task
+	 */
+	private RecursiveAction tileTask( final Index index, final double[][] dots,
+			final double[][] minima, final int first, final int row,
+			final int rowEnd ){
+		return new RecursiveAction(){
+			protected void compute(){
+				for( int i = row; i < rowEnd; i++ ){
+					double[] dot = cosine ? dots[i - first] : null;
+					double[] min = jaccard ? minima[i - first] : null;
+					int[] terms = index.terms[i];
+					double[] values = index.values[i];
+					for( int k = 0; k < terms.length; k++ ){
+						int t = terms[k];
+						int end = index.postingStart[t + 1];
+						if( end - index.postingStart[t] > dfCap ){
+							continue;
+						}
+						double q = values[k];
+						// The postings are sorted by document, so only the documents
+						// before this one are visited
+						for( int p = index.postingStart[t]; p < end; p++ ){
+							int j = index.postingDocs[p];
+							if( j >= i ){
+								break;
+							}
+							double r = index.postingValues[p];
+							if( cosine ){
+								dot[j] = dot[j] + q * r;
+							}
+							if( jaccard ){
+								min[j] = min[j] + Math.min(q, r);
+							}
+						}
+					}
+					for( int j = 0; j < i; j++ ){
+						if( cosine ){
+							dot[j] = dot[j] / (index.norms[i] * index.norms[j]);
+						}
+						if( jaccard ){
+							min[j] = min[j] / (index.sums[i] + index.sums[j] - min[j]);
+						}
+					}
+				}
+			}
+		};
+	}
+
+	/**
+	 * Class Index contains the words of every document with their values
+	 * (divided by the corpus size, or the relative frequencies of the
+	 * bilingual representation, as used by CosineMetric and
+	 * JaccardsCoefficientMetric; the buckets if feature hashing is used), and for every word the documents it
+	 * occurs in with their values. The words are numbered from 0.
+	 */
+	private class Index{
+		int size;
+		int[][] terms;
+		double[][] values;
+		double[] norms;
+		double[] sums;
+		int[] postingStart;
+		int[] postingDocs;
+		double[] postingValues;
+
+		Index( List<FrequencyList> documents ){
+			size = documents.size();
+			terms = new int[size][];
+			values = new double[size][];
+			norms = new double[size];
+			sums = new double[size];
+			HashMap<Long, Integer> numbers = new HashMap<Long, Integer>();
+			for( int i = 0; i < size; i++ ){
+				addDocument(i, documents.get(i), numbers);
+			}
+			int[] df = new int[numbers.size()];
+			for( int i = 0; i < size; i++ ){
+				for( int k = 0; k < terms[i].length; k++ ){
+					df[terms[i][k]]++;
+				}
+			}
+			postingStart = new int[df.length + 1];
+			for( int t = 0; t < df.length; t++ ){
+				postingStart[t + 1] = postingStart[t] + df[t];
+			}
+			postingDocs = new int[postingStart[df.length]];
+			postingValues = new double[postingDocs.length];
+			int[] next = postingStart.clone();
+			for( int i = 0; i < size; i++ ){
+				for( int k = 0; k < terms[i].length; k++ ){
+					int t = terms[i][k];
+					postingDocs[next[t]] = i;
+					postingValues[next[t]] = values[i][k];
+					next[t]++;
+				}
+			}
+		}
+
+		private void addDocument( int i, FrequencyList document,
+				HashMap<Long, Integer> numbers ){
+			long[] keys;
+			double[] scaled;
+			if( bilingual && hashing == null ){
+				PairVector pairs = ((BilingualDocument) document).getPairVector();
+				keys = new long[pairs.size];
+				scaled = new double[pairs.size];
+				for( int k = 0; k < pairs.size; k++ ){
+					keys[k] = pairs.keys[k];
+					scaled[k] = pairs.values[k];
+				}
+			}
+			else{
+				// With feature hashing the bilingual representation compares the
+				// buckets, which contain relative frequencies as well
+				SparseVector vector = document.getVector();
+				double divisor = bilingual ? 1 : document.corpusSize;
+				keys = new long[vector.size];
+				scaled = new double[vector.size];
+				for( int k = 0; k < vector.size; k++ ){
+					keys[k] = vector.ids[k];
+					scaled[k] = vector.value(k) / divisor;
+				}
+			}
+			terms[i] = new int[keys.length];
+			values[i] = scaled;
+			double sumOfSquares = 0;
+			for( int k = 0; k < keys.length; k++ ){
+				Integer number = numbers.get(keys[k]);
+				if( number == null ){
+					number = numbers.size();
+					numbers.put(keys[k], number);
+				}
+				terms[i][k] = number;
+				sums[i] = sums[i] + scaled[k];
+				sumOfSquares = sumOfSquares + scaled[k] * scaled[k];
+			}
+			norms[i] = Math.sqrt(sumOfSquares);
+		}
+	}
+}
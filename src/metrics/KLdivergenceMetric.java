@@ -4,6 +4,7 @@ import java.util.Map;
 import plugin_metrics.KLdivergence;
 import data_representation.FrequencyList;
 import data_representation.BilingualDocument;
+import data_representation.FeatureHashing;
 
 /**
  * 
@@ -24,6 +25,7 @@ public class KLdivergenceMetric{
 	private int corpusSizeA;
 	private int corpusSizeB;
 	private boolean bilingual;
+	private FeatureHashing hashing;
 	private KLdivergence k;
 
 	/**
@@ -46,6 +48,47 @@ public class KLdivergenceMetric{
 		this.bilingual = bilingual;
 	}
 
+	/**
+	 * Constructor
+	 * @param textFileA - first document
+	 * @param textFileB - second document
+	 * @param language - language of document (null if one does not want
+	 * stopwords to be filtered out)
+	 * @param combinationMethod - method of how to combine the similarity
+	 * scores computed A to B and B to A. ("average" or "minimum")
+	 * @param bilingual - boolean that indicates whether the bilingual
+	 * representation is used
+	 * @param hashing - feature hashing that is used to represent the
+	 * documents (see data_representation.FeatureHashing), or null if the
+	 * words themselves are used. Signs are not used, since the
+	 * frequencies should not be negative.
+	 */
+	public KLdivergenceMetric( String textFileA, String textFileB, 
+		String language, String combinationMethod, boolean bilingual, FeatureHashing hashing ){
+		this( textFileA, textFileB, language, combinationMethod, bilingual );
+		if( hashing != null ){
+			this.hashing = hashing.unsigned();
+		}
+	}
+
+	/**
+	 * Constructor for documents that have been created already (see
+	 * SimilarityEngine.createList()). Both documents should be monolingual
+	 * or both bilingual.
+	 * @param freqObjectA - first document
+	 * @param freqObjectB - second document
+	 * @param combinationMethod - method of how to combine the similarity
+	 * scores computed A to B and B to A. ("average" or "minimum")
+	 */
+	public KLdivergenceMetric( FrequencyList freqObjectA,
+			FrequencyList freqObjectB, String combinationMethod ){
+		this.textFileA = freqObjectA.textFile;
+		this.textFileB = freqObjectB.textFile;
+		this.combinationMethod = combinationMethod;
+		this.bilingual = freqObjectA instanceof BilingualDocument;
+		setDocuments(freqObjectA, freqObjectB);
+	}
+
 	/**
 	 * This method initializes the desired representations and computes
 	 * the similarity between the two distributions
@@ -53,12 +96,10 @@ public class KLdivergenceMetric{
 	 */
 	public double computeSimilarity(){
 		double similarityScore = -1;
-		if(bilingual){
-			init(bilingual);
-		}
-		else{
+		// Documents that were given to the constructor are created already
+		if( k == null ){
 			init();
-		}	
+		}
 		similarityScore = k.computeDistance( freqListA, corpusSizeA, 
 			freqListB, corpusSizeB );
 
@@ -66,29 +107,57 @@ public class KLdivergenceMetric{
 	}
 
 	/**
-	 * This method initializes the monolingual representations
+	 * This method initializes the representations of the textfiles
 	 */
 	private void init(){
-		k = new KLdivergence(false, combinationMethod);
-		freqObjectA = new FrequencyList( textFileA, language, -1 );
-		freqObjectB = new FrequencyList( textFileB, language, -1 );
-		freqListA = freqObjectA.createList();
-		freqListB = freqObjectB.createList();
-		corpusSizeA = freqObjectA.corpusSize;
-		corpusSizeB = freqObjectB.corpusSize;
-	}	
+		setDocuments(SimilarityEngine.createList(textFileA, language, -1,
+				bilingual, hashing), SimilarityEngine.createList(textFileB,
+				language, -1, bilingual, hashing));
+	}
 
 	/**
-	 * This method initializes the bilingual representations
-	 * @param bilingual
+	 * This method sets the documents that are compared.
+	 * @param freqObjectA - first document
+	 * @param freqObjectB - second document
 	 */
-	private void init( boolean bilingual){
-		k = new KLdivergence(true, combinationMethod);
-		freqObjectA = new BilingualDocument(textFileA);
-		freqObjectB = new BilingualDocument(textFileB);
-		freqListA = freqObjectA.createList();
-		freqListB = freqObjectB.createList();
+	private void setDocuments( FrequencyList freqObjectA,
+			FrequencyList freqObjectB ){
+		k = new KLdivergence(bilingual, combinationMethod);
+		this.freqObjectA = freqObjectA;
+		this.freqObjectB = freqObjectB;
+		freqListA = freqObjectA.getList();
+		freqListB = freqObjectB.getList();
 		corpusSizeA = freqObjectA.corpusSize;
 		corpusSizeB = freqObjectB.corpusSize;
-	}	
-}
\ No newline at end of file
+	}
+
+	/**
+	 * This method returns this metric as it is used by the
+	 * SimilarityEngine, which creates every document once.
+	 * @param language - language of documents (null if one does not want
+	 * stopwords to be filtered out)
+	 * @param combinationMethod - method of how to combine the similarity
+	 * scores computed A to B and B to A. ("average" or "minimum")
+	 * @param bilingual - boolean that indicates whether the bilingual
+	 * representation is used
+	 * @param hashing - feature hashing that is used to represent the
+	 * document, or null if the words themselves are used. Signs are not used,
+	 * since the frequencies should not be negative.
+	 * @return metric - metric for the engine
+	 */
+	public static SimilarityEngine.PairMetric pairMetric( final String language,
+			final String combinationMethod, final boolean bilingual,
+			FeatureHashing hashing ){
+		final FeatureHashing used = hashing == null ? null : hashing.unsigned();
+		return new SimilarityEngine.PairMetric(){
+			public FrequencyList load( String textFile ){
+				return SimilarityEngine.createList(textFile, language, -1,
+						bilingual, used);
+			}
+			public double computeSimilarity( FrequencyList a, FrequencyList b ){
+				return new KLdivergenceMetric(a, b,
+						combinationMethod).computeSimilarity();
+			}
+		};
+	}
+}
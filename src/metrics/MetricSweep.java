@@ -0,0 +1,212 @@
+package metrics;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import plugin_metrics.KLdivergence;
+import plugin_metrics.SparseJoin;
+import plugin_metrics.SparseKernels;
+import data_representation.FeatureHashing;
+import data_representation.FrequencyList;
+
+/**
+ * Class MetricSweep computes several metrics for a pair of documents at the
+ * same time, so that SimilarityEngine writes the matrices of all of them in
+ * one sweep over the pairs. Every document is parsed once for all metrics,
+ * and the two documents of a pair are lined up once (see
+ * plugin_metrics.SparseJoin); every metric is then computed from the same
+ * join with the kernels in plugin_metrics.SparseKernels. The scores are the
+ * same as those of the metric classes in this package (e.g. CosineMetric).
+ * The metrics are named as in plugin_metrics.MetricRegistry, which are also
+ * the names in the result files (e.g. EN-ResultsCosine.csv).
+ * The chi-square compares the top 500 words of the documents, which are
+ * selected from the parsed document (see FrequencyList.copyTop()) instead
+ * of parsing the document again.
+ */
+public class MetricSweep implements SimilarityEngine.MetricSet{
+	public static final String[] ALL = { "Cosine", "Euclidian", "Hellinger",
+			"JSDivergence", "Jaccards", "KLDivergence", "L1norm", "Chisquare" };
+	private static final int TOP_N = 500;
+
+	private String[] names;
+	private String language;
+	private boolean bilingual;
+	private FeatureHashing hashing;
+	private boolean chisquare;
+	private Map<FrequencyList, FrequencyList> tops =
+			new IdentityHashMap<FrequencyList, FrequencyList>();
+	public String klCombination = "average"; // see KLComputeSimilarity
+	public String chisquareCombination = "minimum";
+
+	/**
+	 * Constructor
+	 * @param names - names of the metrics that are computed (see ALL)
+	 * @param language - language of documents (null if one does not want
+	 * stopwords to be filtered out)
+	 * @param bilingual - boolean that indicates whether the bilingual
+	 * representation is used
+	 * @param hashing - feature hashing that is used to represent the
+	 * documents, or null if the words themselves are used. Signs are not
+	 * used, since most of the metrics need frequencies that are not negative;
+	 * so the cosine and euclidian distance are computed from unsigned buckets
+	 * as well.
+	 * @throws IllegalArgumentException if one of the names is not known
+	 */
+	public MetricSweep( String[] names, String language, boolean bilingual,
+			FeatureHashing hashing ){
+		for( int m = 0; m < names.length; m++ ){
+			if( index(names[m]) < 0 ){
+				throw new IllegalArgumentException("Unknown metric " + names[m]);
+			}
+			chisquare = chisquare || names[m].equals("Chisquare");
+		}
+		this.names = names.clone();
+		this.language = language;
+		this.bilingual = bilingual;
+		this.hashing = hashing == null ? null : hashing.unsigned();
+	}
+
+	/**
+	 * Getter for the names of the metrics, in the order of the scores
+	 * @return names
+	 */
+	public String[] getNames(){
+		return names.clone();
+	}
+
+	/**
+	 * This method releases the top words of the documents of an earlier
+	 * dataset (see SimilarityEngine.load()), which can then no longer be
+	 * compared with the chi-square.
+	 */
+	public void clear(){
+		tops.clear();
+	}
+
+	/**
+	 * This method creates a document for all metrics. The documents should
+	 * be created one after the other (see SimilarityEngine.load()).
+	 * @param textFile - name of the document
+	 * @return freqObject - created document
+	 */
+	public FrequencyList load( String textFile ){
+		FrequencyList freqObject = SimilarityEngine.createList(textFile,
+				language, -1, bilingual, hashing);
+		// The bilingual chi-square uses all wordpairs as well
+		if( chisquare && !bilingual ){
+			FrequencyList top = freqObject.copyTop(TOP_N);
+			top.getPrefix();
+			tops.put(freqObject, top);
+		}
+		return freqObject;
+	}
+
+	/**
+	 * Getter for the number of metrics
+	 * @return size
+	 */
+	public int size(){
+		return names.length;
+	}
+
+	/**
+	 * This method computes the scores of all metrics for two documents that
+	 * were created with load().
+	 * @param a - first document
+	 * @param b - second document
+	 * @param scores - array in which the score of every metric is stored
+	 */
+	public void computeSimilarities( FrequencyList a, FrequencyList b,
+			double[] scores ){
+		SparseJoin join = SparseJoin.getInstance();
+		boolean joined = join.join(a.getList(), b.getList());
+		// Counts are divided by the corpus sizes, the bilingual
+		// representation uses relative frequencies
+		double sizeA = bilingual ? 1 : a.corpusSize;
+		double sizeB = bilingual ? 1 : b.corpusSize;
+		double[] divergences = null;
+		for( int m = 0; m < names.length; m++ ){
+			String name = names[m];
+			if( name.equals("Chisquare") ){
+				FrequencyList topA = bilingual ? a : tops.get(a);
+				FrequencyList topB = bilingual ? b : tops.get(b);
+				scores[m] = new ChisquareMetric(topA, topB,
+						chisquareCombination).computeSimilarity();
+			}
+			else if( !joined ){
+				scores[m] = compute(name, a, b);
+			}
+			else if( name.equals("Cosine") ){
+				scores[m] = SparseKernels.cosine(join, sizeA, sizeB);
+			}
+			else if( name.equals("Euclidian") ){
+				scores[m] = SparseKernels.euclidianDistance(join, sizeA, sizeB);
+			}
+			else if( name.equals("Hellinger") ){
+				scores[m] = SparseKernels.hellinger(join, sizeA, sizeB);
+			}
+			else if( name.equals("Jaccards") ){
+				scores[m] = SparseKernels.jaccardsCoefficient(join, sizeA, sizeB);
+			}
+			else if( name.equals("L1norm") ){
+				scores[m] = SparseKernels.l1norm(join, sizeA, sizeB);
+			}
+			else if( name.equals("JSDivergence") ){
+				scores[m] = SparseKernels.jsDivergence(join, a.corpusSize,
+						b.corpusSize, bilingual);
+			}
+			else{
+				if( divergences == null ){
+					divergences = new double[2];
+				}
+				SparseKernels.klDivergences(join, a.corpusSize, b.corpusSize,
+						bilingual, divergences);
+				scores[m] = KLdivergence.combine(divergences[0], divergences[1],
+						klCombination);
+			}
+		}
+	}
+
+	/**
+	 * This method computes a metric with its metric class, for documents
+	 * that can not be lined up (e.g. documents with different dictionaries).
+	 * @param name - name of the metric
+	 * @param a - first document
+	 * @param b - second document
+	 * @return similarityScore - similarity score
+	 */
+	private double compute( String name, FrequencyList a, FrequencyList b ){
+		if( name.equals("Cosine") ){
+			return new CosineMetric(a, b).computeSimilarity();
+		}
+		if( name.equals("Euclidian") ){
+			return new EuclidianDistanceMetric(a, b).computeSimilarity();
+		}
+		if( name.equals("Hellinger") ){
+			return new HellingerFunctionMetric(a, b).computeSimilarity();
+		}
+		if( name.equals("Jaccards") ){
+			return new JaccardsCoefficientMetric(a, b).computeSimilarity();
+		}
+		if( name.equals("L1norm") ){
+			return new L1normMetric(a, b).computeSimilarity();
+		}
+		if( name.equals("JSDivergence") ){
+			return new JSdivergenceMetric(a, b).computeSimilarity();
+		}
+		return new KLdivergenceMetric(a, b, klCombination).computeSimilarity();
+	}
+
+	/**
+	 * This method returns the position of a metric in ALL.
+	 * @param name - name of the metric
+	 * @return index - position, or -1 if the metric is not known
+	 */
+	private static int index( String name ){
+		for( int m = 0; m < ALL.length; m++ ){
+			if( ALL[m].equals(name) ){
+				return m;
+			}
+		}
+		return -1;
+	}
+}
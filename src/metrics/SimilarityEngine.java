@@ -0,0 +1,498 @@
+package metrics;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import data_representation.BilingualDocument;
+import data_representation.FeatureHashing;
+import data_representation.FrequencyList;
+import io.CondensedMatrixFile;
+import plugin_metrics.MetricProperties;
+import plugin_metrics.MetricRegistry;
+
+/**
+ * Class SimilarityEngine computes the similarity scores of all pairs of
+ * documents in a dataset and writes them in the layout that
+ * data_representation.AdjacencyMatrix reads: a line for every document i > 0
+ * with the scores of document i and documents 0 up to i-1, every score
+ * followed by a comma.
+ * Every document is parsed once (see PairMetric.load()), instead of once for
+ * every pair as by the metric classes that are given two textfiles. The
+ * scores are then computed on a fork-join pool in tiles: a block of rows is
+ * compared to a block of columns, so the documents of both blocks stay in
+ * the cache while they are compared. The rows are computed in bands, and a
+ * band is written before the next band is computed, so only the scores of
+ * one band are kept in memory.
+ * Several metrics can also be computed in the same sweep over the pairs
+ * (see MetricSet and MetricSweep), which writes a matrix for every metric.
+ * Instead of .csv files, the matrices can be written as condensed matrix
+ * files (see io.CondensedMatrixFile), which are read without parsing.
+ */
+public class SimilarityEngine{
+	/**
+	 * Interface PairMetric is a metric as it is used by the engine: it
+	 * creates the representation of a document once, and computes the
+	 * similarity score of two created documents. The metric classes in this
+	 * package return one with pairMetric() (e.g. CosineMetric.pairMetric()).
+	 * The score may be computed by several threads at the same time, so it
+	 * should not change the documents.
+	 */
+	public interface PairMetric{
+		FrequencyList load( String textFile );
+		double computeSimilarity( FrequencyList a, FrequencyList b );
+	}
+
+	/**
+	 * Interface MetricSet is a set of metrics that are computed for a pair of
+	 * documents at the same time, e.g. so that the documents are lined up
+	 * only once (see MetricSweep). The scores are stored in the order of the
+	 * metrics; as for PairMetric, they may be computed by several threads at
+	 * the same time. clear() is called before the documents of a dataset are
+	 * created, so that what the set keeps for the documents of an earlier
+	 * dataset can be released.
+	 */
+	public interface MetricSet{
+		void clear();
+		FrequencyList load( String textFile );
+		int size();
+		void computeSimilarities( FrequencyList a, FrequencyList b,
+				double[] scores );
+	}
+
+	private MetricSet metrics;
+	private ForkJoinPool pool;
+	public int tileSize = 64; // rows and columns of a tile
+	public int bandSize = 512; // rows that are computed before writing
+
+	/**
+	 * Default constructor, uses as many workers as there are processors
+	 * @param metric - metric that is used to compute the scores
+	 */
+	public SimilarityEngine( PairMetric metric ){
+		this(metric, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Constructor
+	 * @param metric - metric that is used to compute the scores
+	 * @param parallelism - number of workers that compute scores at the same
+	 * time
+	 */
+	public SimilarityEngine( PairMetric metric, int parallelism ){
+		this(single(metric), parallelism);
+	}
+
+	/**
+	 * Constructor for several metrics, uses as many workers as there are
+	 * processors
+	 * @param metrics - metrics that are used to compute the scores
+	 */
+	public SimilarityEngine( MetricSet metrics ){
+		this(metrics, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Constructor for several metrics
+	 * @param metrics - metrics that are used to compute the scores
+	 * @param parallelism - number of workers that compute scores at the same
+	 * time
+	 */
+	public SimilarityEngine( MetricSet metrics, int parallelism ){
+		this.metrics = metrics;
+		pool = new ForkJoinPool(parallelism);
+	}
+
+	/**
+	 * This method creates a document in the way the metric classes in this
+	 * package create it from a textfile.
+	 * @param textFile - name of the document
+	 * @param language - language of document (null if one does not want
+	 * stopwords to be filtered out)
+	 * @param topN - number of words that are used, -1 for all words
+	 * @param bilingual - boolean that indicates whether the bilingual
+	 * representation is used
+	 * @param hashing - feature hashing that is used to represent the
+	 * document, or null if the words themselves are used
+	 * @return freqObject - created document
+	 */
+	public static FrequencyList createList( String textFile, String language,
+			int topN, boolean bilingual, FeatureHashing hashing ){
+		FrequencyList freqObject;
+		if( bilingual ){
+			freqObject = new BilingualDocument(textFile);
+		}
+		else freqObject = new FrequencyList( textFile, language, topN );
+		freqObject.setFeatureHashing(hashing);
+		freqObject.createList();
+		return freqObject;
+	}
+
+	/**
+	 * This method creates the documents of the dataset, one after the other,
+	 * so the words get the same ids in every run. Every document is compared
+	 * to itself once, so that what the metric computes from a single
+	 * document (e.g. its statistics) is computed before the document is
+	 * shared by the workers.
+	 * @param files - names of the documents
+	 * @return documents - created documents
+	 */
+	public ArrayList<FrequencyList> load( List<String> files ){
+		metrics.clear();
+		ArrayList<FrequencyList> documents = new ArrayList<FrequencyList>();
+		for( int i = 0; i < files.size(); i++ ){
+			FrequencyList document = metrics.load(files.get(i));
+			metrics.computeSimilarities(document, document,
+					new double[metrics.size()]);
+			documents.add(document);
+		}
+		return documents;
+	}
+
+	/**
+	 * This method computes the similarity scores of all pairs of documents
+	 * and writes them to a .csv file, and the names of the documents to a
+	 * textfile (one name per line, in the order of the rows).
+	 * @param files - names of the documents
+	 * @param matrixFile - name of the .csv file
+	 * @param namesFile - name of the textfile with the names
+	 * @throws IOException if one of the files can not be written
+	 */
+	public void writeMatrix( List<String> files, String matrixFile,
+			String namesFile ) throws IOException{
+		writeMatrix(files, files, matrixFile, namesFile);
+	}
+
+	/**
+	 * This method computes the similarity scores of all pairs of documents
+	 * and writes them to a .csv file, and the names that are given for the
+	 * documents to a textfile (one name per line, in the order of the rows).
+	 * @param files - names of the documents
+	 * @param names - names that are written for the documents (e.g. the
+	 * directories of the bilingual documents)
+	 * @param matrixFile - name of the .csv file
+	 * @param namesFile - name of the textfile with the names
+	 * @throws IOException if one of the files can not be written
+	 */
+	public void writeMatrix( List<String> files, List<String> names,
+			String matrixFile, String namesFile ) throws IOException{
+		writeMatrices(files, names, new String[]{matrixFile},
+				new String[]{namesFile});
+	}
+
+	/**
+	 * This method computes the similarity scores of all pairs of documents
+	 * for every metric of the set, and writes them to a .csv file per metric.
+	 * The names that are given for the documents are written to a textfile
+	 * per metric as well (one name per line, in the order of the rows).
+	 * @param files - names of the documents
+	 * @param names - names that are written for the documents
+	 * @param matrixFiles - name of the .csv file of every metric
+	 * @param namesFiles - name of the textfile with the names of every metric
+	 * @throws IOException if one of the files can not be written
+	 * @throws IllegalArgumentException if the number of files is not the
+	 * number of metrics
+	 */
+	public void writeMatrices( List<String> files, List<String> names,
+			String[] matrixFiles, String[] namesFiles ) throws IOException{
+		if( matrixFiles.length != metrics.size() ||
+				namesFiles.length != metrics.size() ){
+			throw new IllegalArgumentException("A matrix file and a names file " +
+					"are needed for each of the " + metrics.size() + " metrics");
+		}
+		ArrayList<FrequencyList> documents = load(files);
+		PrintWriter[] writers = openWriters(names, matrixFiles, namesFiles);
+		writeMatrices(documents, writers);
+		for( int m = 0; m < writers.length; m++ ){
+			writers[m].close();
+		}
+	}
+
+	/**
+	 * This method writes the names of the documents to the textfile of every
+	 * matrix and opens the .csv files of the matrices.
+	 * @param names - names that are written for the documents
+	 * @param matrixFiles - name of the .csv file of every matrix
+	 * @param namesFiles - name of the textfile with the names of every matrix
+	 * @return writers - writer of every .csv file
+	 * @throws IOException if one of the files can not be written
+	 */
+	static PrintWriter[] openWriters( List<String> names, String[] matrixFiles,
+			String[] namesFiles ) throws IOException{
+		writeNames(names, namesFiles);
+		PrintWriter[] writers = new PrintWriter[matrixFiles.length];
+		for( int m = 0; m < matrixFiles.length; m++ ){
+			writers[m] = new PrintWriter(matrixFiles[m], "UTF-8");
+		}
+		return writers;
+	}
+
+	/**
+	 * This method computes the similarity scores of all pairs of documents
+	 * for every metric of the set, and writes them to a condensed matrix file
+	 * per metric (see io.CondensedMatrixFile). The names that are given for
+	 * the documents are written to a textfile per metric.
+	 * @param files - names of the documents
+	 * @param names - names that are written for the documents
+	 * @param metricNames - name of every metric, as in
+	 * plugin_metrics.MetricRegistry
+	 * @param matrixFiles - name of the condensed matrix file of every metric
+	 * @param namesFiles - name of the textfile with the names of every metric
+	 * @param floatPrecision - the scores are stored as floats
+	 * @throws IOException if one of the files can not be written
+	 * @throws IllegalArgumentException if the number of files is not the
+	 * number of metrics, or a metric is not registered
+	 */
+	public void writeCondensed( List<String> files, List<String> names,
+			String[] metricNames, String[] matrixFiles, String[] namesFiles,
+			boolean floatPrecision ) throws IOException{
+		if( metricNames.length != metrics.size() ||
+				matrixFiles.length != metrics.size() ||
+				namesFiles.length != metrics.size() ){
+			throw new IllegalArgumentException("A name, a matrix file and a " +
+					"names file are needed for each of the " + metrics.size() +
+					" metrics");
+		}
+		ArrayList<FrequencyList> documents = load(files);
+		CondensedMatrixFile.Writer[] writers = openCondensed(documents.size(),
+				names, metricNames, matrixFiles, namesFiles, floatPrecision);
+		writeCondensed(documents, writers);
+		for( int m = 0; m < writers.length; m++ ){
+			writers[m].close();
+		}
+	}
+
+	/**
+	 * This method computes the similarity scores of all pairs of documents
+	 * for every metric of the set and writes them row after row to the
+	 * condensed matrix file of the metric.
+	 * @param documents - created documents (see load())
+	 * @param writers - writer of every metric
+	 * @throws IOException if one of the files can not be written
+	 */
+	public void writeCondensed( List<FrequencyList> documents,
+			CondensedMatrixFile.Writer[] writers ) throws IOException{
+		int n = documents.size();
+		for( int first = 1; first < n; first = first + bandSize ){
+			int last = Math.min(first + bandSize, n);
+			writeBand(computeBand(documents, first, last), first, last, writers);
+		}
+	}
+
+	/**
+	 * This method writes the names of the documents to the textfile of every
+	 * matrix and opens the condensed matrix files of the matrices. Whether
+	 * higher scores are more similar is taken from
+	 * plugin_metrics.MetricRegistry.
+	 * @param numberOfDocuments - number of documents
+	 * @param names - names that are written for the documents
+	 * @param metricNames - name of every metric
+	 * @param matrixFiles - name of the condensed matrix file of every matrix
+	 * @param namesFiles - name of the textfile with the names of every matrix
+	 * @param floatPrecision - the scores are stored as floats
+	 * @return writers - writer of every condensed matrix file
+	 * @throws IOException if one of the files can not be written
+	 * @throws IllegalArgumentException if a metric is not registered
+	 */
+	static CondensedMatrixFile.Writer[] openCondensed( int numberOfDocuments,
+			List<String> names, String[] metricNames, String[] matrixFiles,
+			String[] namesFiles, boolean floatPrecision ) throws IOException{
+		MetricProperties[] properties = new MetricProperties[metricNames.length];
+		for( int m = 0; m < metricNames.length; m++ ){
+			properties[m] = MetricRegistry.forName(metricNames[m]);
+			if( properties[m] == null ){
+				throw new IllegalArgumentException("Unknown metric " +
+						metricNames[m]);
+			}
+		}
+		writeNames(names, namesFiles);
+		CondensedMatrixFile.Writer[] writers =
+				new CondensedMatrixFile.Writer[matrixFiles.length];
+		for( int m = 0; m < matrixFiles.length; m++ ){
+			writers[m] = new CondensedMatrixFile.Writer(matrixFiles[m],
+					numberOfDocuments, metricNames[m], properties[m].higherIsSimilar,
+					floatPrecision);
+		}
+		return writers;
+	}
+
+	/**
+	 * This method writes the names of the documents to textfiles, one name
+	 * per line.
+	 * @param names - names that are written for the documents
+	 * @param namesFiles - names of the textfiles
+	 * @throws IOException if one of the files can not be written
+	 */
+	private static void writeNames( List<String> names, String[] namesFiles )
+			throws IOException{
+		for( int m = 0; m < namesFiles.length; m++ ){
+			PrintWriter writerF = new PrintWriter(namesFiles[m]);
+			for( int i = 0; i < names.size(); i++ ){
+				writerF.println(names.get(i));
+			}
+			writerF.close();
+		}
+	}
+
+	/**
+	 * This method computes the similarity scores of all pairs of documents
+	 * and writes them row after row.
+	 * @param documents - created documents (see load())
+	 * @param writer - writer to which the rows are written
+	 */
+	public void writeMatrix( List<FrequencyList> documents, PrintWriter writer ){
+		writeMatrices(documents, new PrintWriter[]{writer});
+	}
+
+	/**
+	 * This method computes the similarity scores of all pairs of documents
+	 * for every metric of the set and writes them row after row, the scores
+	 * of every metric to a writer of its own.
+	 * @param documents - created documents (see load())
+	 * @param writers - writer of every metric
+	 */
+	public void writeMatrices( List<FrequencyList> documents,
+			PrintWriter[] writers ){
+		int n = documents.size();
+		for( int first = 1; first < n; first = first + bandSize ){
+			int last = Math.min(first + bandSize, n);
+			writeBand(computeBand(documents, first, last), first, last, writers);
+		}
+	}
+
+	/**
+	 * This method writes the rows of a band, the scores of every metric to a
+	 * writer of its own. Every score is followed by a comma.
+	 * @param band - scores of every metric of every row of the band
+	 * @param first - first row of the band
+	 * @param last - row after the last row of the band
+	 * @param writers - writer of every metric
+	 */
+	static void writeBand( double[][][] band, int first, int last,
+			PrintWriter[] writers ){
+		for( int m = 0; m < writers.length; m++ ){
+			for( int i = first; i < last; i++ ){
+				double[] row = band[m][i - first];
+				StringBuilder line = new StringBuilder();
+				for( int j = 0; j < i; j++ ){
+					line.append(row[j]).append(',');
+				}
+				writers[m].println(line);
+			}
+		}
+	}
+
+	/**
+	 * This method writes the rows of a band to condensed matrix files, the
+	 * scores of every metric to a file of its own.
+	 * @param band - scores of every metric of every row of the band
+	 * @param first - first row of the band
+	 * @param last - row after the last row of the band
+	 * @param writers - writer of every metric
+	 * @throws IOException if one of the files can not be written
+	 */
+	static void writeBand( double[][][] band, int first, int last,
+			CondensedMatrixFile.Writer[] writers ) throws IOException{
+		for( int m = 0; m < writers.length; m++ ){
+			for( int i = first; i < last; i++ ){
+				writers[m].writeRow(band[m][i - first], i);
+			}
+		}
+	}
+
+	/**
+	 * This method computes the similarity scores of the rows first up to
+	 * last with all documents before them, tile by tile.
+	 * @param documents - created documents
+	 * @param first - first row of the band
+	 * @param last - row after the last row of the band
+	 * @return band - scores of every metric of every row of the band
+	 */
+	public double[][][] computeBand( List<FrequencyList> documents, int first,
+			int last ){
+		double[][][] band = new double[metrics.size()][last - first][];
+		for( int m = 0; m < band.length; m++ ){
+			for( int i = first; i < last; i++ ){
+				band[m][i - first] = new double[i];
+			}
+		}
+		ArrayDeque<ForkJoinTask<Void>> tasks = new ArrayDeque<ForkJoinTask<Void>>();
+		for( int row = first; row < last; row = row + tileSize ){
+			int rowEnd = Math.min(row + tileSize, last);
+			for( int column = 0; column < rowEnd - 1; column = column + tileSize ){
+				tasks.add(pool.submit(tileTask(documents, band, first, row, rowEnd,
+						column, Math.min(column + tileSize, rowEnd - 1))));
+			}
+		}
+		while( !tasks.isEmpty() ){
+			tasks.poll().join();
+		}
+		return band;
+	}
+
+	/**
+	 * This method shuts down the workers of the engine.
+	 */
+	public void shutdown(){
+		pool.shutdown();
+	}
+
+	/**
+	 * This method creates the task that computes the scores of a tile: the
+	 * rows row up to rowEnd with the columns column up to columnEnd (only
+	 * the columns before the row itself).
+	 * @param documents - created documents
+	 * @param band - scores of the band
+	 * @param first - first row of the band
+	 * @param row - first row of the tile
+	 * @param rowEnd - row after the last row of the tile
+	 * @param column - first column of the tile
+	 * @param columnEnd - column after the last column of the tile
+	 * @return task
+	 */
+	private RecursiveAction tileTask( final List<FrequencyList> documents,
+			final double[][][] band, final int first, final int row,
+			final int rowEnd, final int column, final int columnEnd ){
+		return new RecursiveAction(){
+			protected void compute(){
+				double[] scores = new double[band.length];
+				for( int i = row; i < rowEnd; i++ ){
+					FrequencyList a = documents.get(i);
+					int end = Math.min(columnEnd, i);
+					for( int j = column; j < end; j++ ){
+						metrics.computeSimilarities(a, documents.get(j), scores);
+						for( int m = 0; m < scores.length; m++ ){
+							band[m][i - first][j] = scores[m];
+						}
+					}
+				}
+			}
+		};
+	}
+
+	/**
+	 * This method turns a single metric into a set of one metric.
+	 * @param metric - the metric
+	 * @return metrics - set with the metric
+	 */
+	private static MetricSet single( final PairMetric metric ){
+		return new MetricSet(){
+			public void clear(){
+			}
+			public FrequencyList load( String textFile ){
+				return metric.load(textFile);
+			}
+			public int size(){
+				return 1;
+			}
+			public void computeSimilarities( FrequencyList a, FrequencyList b,
+					double[] scores ){
+				scores[0] = metric.computeSimilarity(a, b);
+			}
+		};
+	}
+}
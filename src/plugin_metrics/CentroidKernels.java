@@ -0,0 +1,255 @@
+package plugin_metrics;
+
+import data_representation.*;
+
+/**
+ * Class CentroidKernels computes the metrics between a document and all
+ * centroids of a CentroidIndex at once. The words of the document are gone
+ * through once, and for every word the centroids in which it occurs are
+ * updated, so the cost per document depends on the length of the document
+ * and the number of centroids the words occur in, not on the size of the
+ * centroids. The statistics of the document and the centroids (see
+ * data_representation.VectorStatistics) complete the metrics in the same way
+ * as in SparseKernels.
+ * The values of a centroid are divided by its distribution size if the
+ * counts are used, and by 1 if the relative frequencies are used.
+ */
+public class CentroidKernels{
+
+	/**
+	 * This method computes the cosine between a document and every centroid.
+	 * @param doc - vector of the document
+	 * @param statisticsD - statistics of the document
+	 * @param sizeD - divisor of the document
+	 * @param index - index of the centroids
+	 * @param relativeFreq - representation with relative frequency is used
+	 * @return results - similarity score for every centroid
+	 */
+	public static double[] cosine( SparseVector doc,
+			VectorStatistics statisticsD, double sizeD, CentroidIndex index,
+			boolean relativeFreq ){
+		double[] results = dots(doc, index);
+		for( int c = 0; c < results.length; c++ ){
+			results[c] = SparseKernels.cosine(results[c], statisticsD, sizeD,
+					statistics(index, c), size(index, c, relativeFreq));
+		}
+		return results;
+	}
+
+	/**
+	 * This method computes the euclidian distance between a document and
+	 * every centroid.
+	 * @param doc - vector of the document
+	 * @param statisticsD - statistics of the document
+	 * @param sizeD - divisor of the document
+	 * @param index - index of the centroids
+	 * @param relativeFreq - representation with relative frequency is used
+	 * @return results - similarity score for every centroid
+	 */
+	public static double[] euclidianDistance( SparseVector doc,
+			VectorStatistics statisticsD, double sizeD, CentroidIndex index,
+			boolean relativeFreq ){
+		double[] results = dots(doc, index);
+		for( int c = 0; c < results.length; c++ ){
+			results[c] = SparseKernels.euclidianDistance(results[c], statisticsD,
+					sizeD, statistics(index, c), size(index, c, relativeFreq));
+		}
+		return results;
+	}
+
+	/**
+	 * This method computes the hellinger distance between a document and
+	 * every centroid.
+	 * @param doc - vector of the document
+	 * @param statisticsD - statistics of the document
+	 * @param sizeD - divisor of the document
+	 * @param index - index of the centroids
+	 * @param relativeFreq - representation with relative frequency is used
+	 * @return results - similarity score for every centroid
+	 */
+	public static double[] hellinger( SparseVector doc,
+			VectorStatistics statisticsD, double sizeD, CentroidIndex index,
+			boolean relativeFreq ){
+		double[] results = new double[index.clusters.size()];
+		int dimension = index.dimension();
+		for( int i = 0; i < doc.size; i++ ){
+			int id = doc.ids[i];
+			if( id >= dimension ){
+				continue;
+			}
+			double d = doc.value(i);
+			for( int p = index.start[id]; p < index.start[id + 1]; p++ ){
+				results[index.centroids[p]] = results[index.centroids[p]] +
+						Math.sqrt(d * index.values[p]);
+			}
+		}
+		for( int c = 0; c < results.length; c++ ){
+			results[c] = SparseKernels.hellinger(results[c], statisticsD, sizeD,
+					statistics(index, c), size(index, c, relativeFreq));
+		}
+		return results;
+	}
+
+	/**
+	 * This method computes the L1 norm between a document and every
+	 * centroid: the sums of the absolute values of both, of which every word
+	 * that occurs in both replaces its part by abs(d - c) (see
+	 * SparseKernels.l1norm()).
+	 * @param doc - vector of the document
+	 * @param statisticsD - statistics of the document
+	 * @param sizeD - divisor of the document
+	 * @param index - index of the centroids
+	 * @param relativeFreq - representation with relative frequency is used
+	 * @return results - similarity score for every centroid
+	 */
+	public static double[] l1norm( SparseVector doc,
+			VectorStatistics statisticsD, double sizeD, CentroidIndex index,
+			boolean relativeFreq ){
+		int k = index.clusters.size();
+		double[] sizes = new double[k];
+		for( int c = 0; c < k; c++ ){
+			sizes[c] = size(index, c, relativeFreq);
+		}
+		double[] results = new double[k];
+		int dimension = index.dimension();
+		for( int i = 0; i < doc.size; i++ ){
+			int id = doc.ids[i];
+			if( id >= dimension ){
+				continue;
+			}
+			double d1 = doc.value(i) / sizeD;
+			for( int p = index.start[id]; p < index.start[id + 1]; p++ ){
+				int c = index.centroids[p];
+				double c1 = index.values[p] / sizes[c];
+				results[c] = results[c] + Math.abs(d1 - c1) - Math.abs(c1) -
+						Math.abs(d1);
+			}
+		}
+		for( int c = 0; c < k; c++ ){
+			double result = statisticsD.sumOfAbsolutes / sizeD +
+					statistics(index, c).sumOfAbsolutes / sizes[c] + results[c];
+			results[c] = Math.max(result, 0);
+		}
+		return results;
+	}
+
+	/**
+	 * This method computes the KL divergence of a document to every centroid
+	 * from their log vectors (see SparseKernels.klDivergence()), or of every
+	 * centroid to the document.
+	 * @param doc - vector of the document
+	 * @param logD - log vector of the document
+	 * @param index - index of the centroids
+	 * @param relativeFreq - representation with relative frequency is used
+	 * @param reverse - the divergence of every centroid to the document is
+	 * computed instead
+	 * @return results - similarity score for every centroid
+	 */
+	public static double[] klDivergence( SparseVector doc, LogVector logD,
+			CentroidIndex index, boolean relativeFreq, boolean reverse ){
+		int k = index.clusters.size();
+		LogVector[] logC = new LogVector[k];
+		double[] results = new double[k];
+		for( int c = 0; c < k; c++ ){
+			logC[c] = index.clusters.get(c).centroid.getLogVector(relativeFreq);
+			// Every word is compared to the smoothed value first
+			if( !reverse ){
+				results[c] = logD.sum * logC[c].logSmooth;
+			}
+			else results[c] = logC[c].sum * logD.logSmooth;
+		}
+		int dimension = index.dimension();
+		for( int i = 0; i < doc.size; i++ ){
+			int id = doc.ids[i];
+			if( id >= dimension ){
+				continue;
+			}
+			for( int p = index.start[id]; p < index.start[id + 1]; p++ ){
+				int c = index.centroids[p];
+				int position = index.positions[p];
+				if( !reverse ){
+					results[c] = results[c] + logD.probabilities[i] *
+							(logC[c].logs[position] - logC[c].logSmooth);
+				}
+				else results[c] = results[c] + logC[c].probabilities[position] *
+						(logD.logs[i] - logD.logSmooth);
+			}
+		}
+		for( int c = 0; c < k; c++ ){
+			double sumPLogP = reverse ? logC[c].sumPLogP : logD.sumPLogP;
+			results[c] = sumPLogP - results[c];
+		}
+		return results;
+	}
+
+	/**
+	 * This method computes the KL divergences of a document to every centroid
+	 * and of every centroid to the document in one pass over the index, with
+	 * the same results as computing both ways separately (see
+	 * klDivergence()).
+	 * @param doc - vector of the document
+	 * @param logD - log vector of the document
+	 * @param index - index of the centroids
+	 * @param relativeFreq - representation with relative frequency is used
+	 * @return results - divergence of the document to every centroid (at 0)
+	 * and of every centroid to the document (at 1)
+	 */
+	public static double[][] klDivergences( SparseVector doc, LogVector logD,
+			CentroidIndex index, boolean relativeFreq ){
+		int k = index.clusters.size();
+		LogVector[] logC = new LogVector[k];
+		double[] toCentroids = new double[k];
+		double[] fromCentroids = new double[k];
+		for( int c = 0; c < k; c++ ){
+			logC[c] = index.clusters.get(c).centroid.getLogVector(relativeFreq);
+			toCentroids[c] = logD.sum * logC[c].logSmooth;
+			fromCentroids[c] = logC[c].sum * logD.logSmooth;
+		}
+		int dimension = index.dimension();
+		for( int i = 0; i < doc.size; i++ ){
+			int id = doc.ids[i];
+			if( id >= dimension ){
+				continue;
+			}
+			for( int p = index.start[id]; p < index.start[id + 1]; p++ ){
+				int c = index.centroids[p];
+				int position = index.positions[p];
+				toCentroids[c] = toCentroids[c] + logD.probabilities[i] *
+						(logC[c].logs[position] - logC[c].logSmooth);
+				fromCentroids[c] = fromCentroids[c] +
+						logC[c].probabilities[position] * (logD.logs[i] - logD.logSmooth);
+			}
+		}
+		for( int c = 0; c < k; c++ ){
+			toCentroids[c] = logD.sumPLogP - toCentroids[c];
+			fromCentroids[c] = logC[c].sumPLogP - fromCentroids[c];
+		}
+		return new double[][]{toCentroids, fromCentroids};
+	}
+
+	private static double[] dots( SparseVector doc, CentroidIndex index ){
+		double[] dots = new double[index.clusters.size()];
+		int dimension = index.dimension();
+		for( int i = 0; i < doc.size; i++ ){
+			int id = doc.ids[i];
+			if( id >= dimension ){
+				continue;
+			}
+			double d = doc.value(i);
+			for( int p = index.start[id]; p < index.start[id + 1]; p++ ){
+				dots[index.centroids[p]] = dots[index.centroids[p]] +
+						d * index.values[p];
+			}
+		}
+		return dots;
+	}
+
+	private static VectorStatistics statistics( CentroidIndex index, int c ){
+		return index.clusters.get(c).centroid.getStatistics();
+	}
+
+	private static double size( CentroidIndex index, int c,
+			boolean relativeFreq ){
+		return relativeFreq ? 1 : index.clusters.get(c).centroid.distributionSize;
+	}
+}
@@ -44,6 +44,50 @@ public class Chisquare extends Metric{
 		return result;
 	}
 
+	/**
+	 * This method computes the chisquare distance between the top words of
+	 * two documents that are stored as prefixes sorted by id (see
+	 * FrequencyList.getPrefix()), so no Map is used. Both documents should
+	 * use the same dictionary.
+	 * @param q - top words of first document
+	 * @param corpusSizeQ - size of corpus of first document
+	 * @param r - top words of second document
+	 * @param corpusSizeR - size of corpus of second document
+	 * @param topN - number of words that will be used in the computation
+	 * @return result - similarity score
+	 */
+	public double computeDistance(TermPrefix q, int corpusSizeQ,
+			TermPrefix r, int corpusSizeR, int topN){
+		this.topN = topN;
+		if( relativeFreq ){
+			return computeChisquare(q, 1.0, r, 1.0, topN);
+		}
+		return computeChisquare(q, (double) corpusSizeQ, r,
+				(double) corpusSizeR, topN);
+	}
+
+	/**
+	 * This method computes the chisquare distances between the top words of
+	 * two documents both ways (q to r and r to q) in one merge of their
+	 * prefixes (see computeChisquares()).
+	 * @param q - top words of first document
+	 * @param corpusSizeQ - size of corpus of first document
+	 * @param r - top words of second document
+	 * @param corpusSizeR - size of corpus of second document
+	 * @param topN - number of words that will be used in the computation
+	 * @param scores - array in which the distance of q to r (at 0) and of r
+	 * to q (at 1) are stored
+	 */
+	public void computeDistances(TermPrefix q, int corpusSizeQ,
+			TermPrefix r, int corpusSizeR, int topN, double[] scores){
+		this.topN = topN;
+		if( relativeFreq ){
+			computeChisquares(q, 1.0, r, 1.0, topN, scores);
+		}
+		else computeChisquares(q, (double) corpusSizeQ, r, (double) corpusSizeR,
+				topN, scores);
+	}
+
 	/**
 	 * This method determines which method should be used to compute the 
 	 * chisquare of two documents, depending on whether the relative frequency
@@ -113,6 +157,10 @@ public class Chisquare extends Metric{
 	public static double computeChisquare( Map<String, Double> freqList1, 
 			int corpusSize1, Map<String, Double> freqList2, int corpusSize2, 
 			int topNrevised ){
+		if( isVector(freqList1, freqList2) ){
+			return computeChisquare(freqList1, (double) corpusSize1, freqList2,
+					(double) corpusSize2, topNrevised);
+		}
 		double chiSquare = 0;
 		int counter = 0;
 		
@@ -132,6 +180,114 @@ public class Chisquare extends Metric{
 		return chiSquare;
 	}
 
+	/**
+	 * This method computes the chisquare similarity between the top words of
+	 * two documents by merging their prefixes, which are sorted by id. The
+	 * words of the first document with a rank below topNrevised are used;
+	 * their terms are added up in the order of their rank, as in the
+	 * methods that iterate over the list of words, so the result is the
+	 * same.
+	 * @param prefix1 - top words of first document
+	 * @param size1 - divisor of the first document (its corpus size, or 1 if
+	 * the relative frequencies are used)
+	 * @param prefix2 - top words of second document
+	 * @param size2 - divisor of the second document
+	 * @param topNrevised - number of words used in computation
+	 * @return chiSquare - chisquare similarity score
+	 */
+	public static double computeChisquare( TermPrefix prefix1, double size1,
+			TermPrefix prefix2, double size2, int topNrevised ){
+		// As in the methods on lists, the first word is always used
+		int top = Math.min(prefix1.size, Math.max(topNrevised, 1));
+		double[] terms = new double[top];
+		int j = 0;
+		for( int i = 0; i < prefix1.size; i++ ){
+			int rank = prefix1.ranks[i];
+			if( rank >= top ){
+				continue;
+			}
+			int id = prefix1.ids[i];
+			while( j < prefix2.size && prefix2.ids[j] < id ){
+				j++;
+			}
+			double freq1 = prefix1.value(i) / size1;
+			if( j < prefix2.size && prefix2.ids[j] == id ){
+				double freq2 = prefix2.value(j) / size2;
+				terms[rank] = Math.pow((freq1 - freq2), 2) / freq1;
+			}
+			else terms[rank] = freq1;
+		}
+		double chiSquare = 0;
+		for( int rank = 0; rank < top; rank++ ){
+			chiSquare = chiSquare + terms[rank];
+		}
+		return chiSquare;
+	}
+
+	/**
+	 * This method computes the chisquare similarities between the top words
+	 * of two documents both ways in one merge of their prefixes: a word that
+	 * occurs in both prefixes gives a term for each document in which it is
+	 * within the top. The terms of each way are added up in the order of
+	 * their rank, so the results are the same as those of
+	 * computeChisquare(TermPrefix, double, TermPrefix, double, int).
+	 * @param prefix1 - top words of first document
+	 * @param size1 - divisor of the first document (its corpus size, or 1 if
+	 * the relative frequencies are used)
+	 * @param prefix2 - top words of second document
+	 * @param size2 - divisor of the second document
+	 * @param topNrevised - number of words used in computation
+	 * @param chiSquares - array in which the similarity of the first to the
+	 * second document (at 0) and of the second to the first (at 1) are stored
+	 */
+	public static void computeChisquares( TermPrefix prefix1, double size1,
+			TermPrefix prefix2, double size2, int topNrevised,
+			double[] chiSquares ){
+		int top1 = Math.min(prefix1.size, Math.max(topNrevised, 1));
+		int top2 = Math.min(prefix2.size, Math.max(topNrevised, 1));
+		double[] terms1 = new double[top1];
+		double[] terms2 = new double[top2];
+		int i = 0;
+		int j = 0;
+		while( i < prefix1.size || j < prefix2.size ){
+			if( j >= prefix2.size ||
+					(i < prefix1.size && prefix1.ids[i] < prefix2.ids[j]) ){
+				if( prefix1.ranks[i] < top1 ){
+					terms1[prefix1.ranks[i]] = prefix1.value(i) / size1;
+				}
+				i++;
+			}
+			else if( i >= prefix1.size || prefix2.ids[j] < prefix1.ids[i] ){
+				if( prefix2.ranks[j] < top2 ){
+					terms2[prefix2.ranks[j]] = prefix2.value(j) / size2;
+				}
+				j++;
+			}
+			else{
+				double freq1 = prefix1.value(i) / size1;
+				double freq2 = prefix2.value(j) / size2;
+				if( prefix1.ranks[i] < top1 ){
+					terms1[prefix1.ranks[i]] = Math.pow((freq1 - freq2), 2) / freq1;
+				}
+				if( prefix2.ranks[j] < top2 ){
+					terms2[prefix2.ranks[j]] = Math.pow((freq2 - freq1), 2) / freq2;
+				}
+				i++;
+				j++;
+			}
+		}
+		double chiSquare1 = 0;
+		for( int rank = 0; rank < top1; rank++ ){
+			chiSquare1 = chiSquare1 + terms1[rank];
+		}
+		double chiSquare2 = 0;
+		for( int rank = 0; rank < top2; rank++ ){
+			chiSquare2 = chiSquare2 + terms2[rank];
+		}
+		chiSquares[0] = chiSquare1;
+		chiSquares[1] = chiSquare2;
+	}
+
 	/**
 	 * This method computes the chisquare similarity between two distributions
 	 * (representations where the relative frequency is used).
@@ -142,6 +298,9 @@ public class Chisquare extends Metric{
 	 */
 	public static double computeChisquare( Map<String, Double> freqList1,
 			Map<String, Double> freqList2, int topNrevised ){
+		if( isVector(freqList1, freqList2) ){
+			return computeChisquare(freqList1, 1.0, freqList2, 1.0, topNrevised);
+		}
 		double chiSquare = 0;
 		int counter = 0;
 		
@@ -160,4 +319,84 @@ public class Chisquare extends Metric{
 		}
 		return chiSquare;
 	}	
-}
\ No newline at end of file
+
+	/**
+	 * This method checks whether both documents are views on a vector with
+	 * the same dictionaries, so that their words can be looked up by id.
+	 * @param freqList1 - first document
+	 * @param freqList2 - second document
+	 * @return true if the words can be looked up by id
+	 */
+	private static boolean isVector( Map<String, Double> freqList1,
+			Map<String, Double> freqList2 ){
+		if( freqList1 instanceof TermVectorMap &&
+				freqList2 instanceof TermVectorMap ){
+			return ((TermVectorMap) freqList1).getDictionary() ==
+					((TermVectorMap) freqList2).getDictionary();
+		}
+		if( freqList1 instanceof PairVectorMap &&
+				freqList2 instanceof PairVectorMap ){
+			PairVectorMap pairs1 = (PairVectorMap) freqList1;
+			PairVectorMap pairs2 = (PairVectorMap) freqList2;
+			return pairs1.getSourceDictionary() == pairs2.getSourceDictionary() &&
+					pairs1.getTargetDictionary() == pairs2.getTargetDictionary();
+		}
+		return false;
+	}
+
+	/**
+	 * This method computes the chisquare similarity between two documents
+	 * that are views on a vector (see isVector()). The words of the first
+	 * document are iterated in the same order as its entries, but they are
+	 * looked up in the second document by their id instead of by the word.
+	 * @param freqList1 - first document
+	 * @param size1 - divisor of the first document (its corpus size, or 1 if
+	 * the relative frequencies are used)
+	 * @param freqList2 - second document
+	 * @param size2 - divisor of the second document
+	 * @param topNrevised - number of words used in computation
+	 * @return chiSquare - chisquare similarity score
+	 */
+	private static double computeChisquare( Map<String, Double> freqList1,
+			double size1, Map<String, Double> freqList2, double size2,
+			int topNrevised ){
+		double chiSquare = 0;
+		if( freqList1 instanceof TermVectorMap ){
+			SparseVector vector1 = ((TermVectorMap) freqList1).getVector();
+			SparseVector vector2 = ((TermVectorMap) freqList2).getVector();
+			int[] order = ((TermVectorMap) freqList1).getOrder();
+			for( int rank = 0; rank < vector1.size; rank++ ){
+				int index1 = order == null ? rank : order[rank];
+				double freq1 = vector1.value(index1) / size1;
+				int index2 = vector2.indexOf(vector1.ids[index1]);
+				if( index2 >= 0 ){
+					double freq2 = vector2.value(index2) / size2;
+					chiSquare = chiSquare + (Math.pow((freq1 - freq2), 2) / freq1);
+				}
+				else chiSquare = chiSquare + freq1;
+
+				if( rank + 1 >= topNrevised )
+					break;
+			}
+		}
+		else{
+			PairVector vector1 = ((PairVectorMap) freqList1).getVector();
+			PairVector vector2 = ((PairVectorMap) freqList2).getVector();
+			int[] order = ((PairVectorMap) freqList1).getOrder();
+			for( int rank = 0; rank < vector1.size; rank++ ){
+				int index1 = order == null ? rank : order[rank];
+				double freq1 = vector1.values[index1] / size1;
+				int index2 = vector2.indexOf(vector1.keys[index1]);
+				if( index2 >= 0 ){
+					double freq2 = vector2.values[index2] / size2;
+					chiSquare = chiSquare + (Math.pow((freq1 - freq2), 2) / freq1);
+				}
+				else chiSquare = chiSquare + freq1;
+
+				if( rank + 1 >= topNrevised )
+					break;
+			}
+		}
+		return chiSquare;
+	}
+}
@@ -47,6 +47,44 @@ public class Cosine extends Metric{
 		return distance;
 	}
 
+	/**
+	 * This method computes the cosine between the centroid of a cluster and
+	 * a document from the cached norms and their dot product, if their
+	 * statistics are available.
+	 * @param centroid - centroid of the cluster
+	 * @param doc - document
+	 * @return distance - resulting similarity score
+	 */
+	public double computeDistance(Centroid centroid, Document doc){
+		if( !hasStatistics(centroid, doc) ){
+			return super.computeDistance(centroid, doc);
+		}
+		double sizeC = relativeFreq ? 1 : centroid.distributionSize;
+		double sizeD = relativeFreq ? 1 : doc.corpusSize;
+		return SparseKernels.cosine(gather(centroid, doc), doc.getStatistics(),
+				sizeD, centroid.getStatistics(), sizeC);
+	}
+
+	/**
+	 * This method determines the closest centroids for a document by
+	 * computing the cosine to all centroids at once, if the
+	 * document can be compared to the index (see Metric.hasStatistics()).
+	 * @param doc - document for which the closest centroids need to be
+	 * determined
+	 * @param index - index of the centroids of the clusters
+	 * @return closestCentroids - list of indices corresponding to the closest
+	 * centroids.
+	 */
+	public ArrayList<Integer> getClosestCentroids(Document doc,
+			CentroidIndex index){
+		if( !hasStatistics(index, doc) ){
+			return super.getClosestCentroids(doc, index);
+		}
+		double sizeD = relativeFreq ? 1 : doc.corpusSize;
+		return closest(CentroidKernels.cosine(doc.getVector(),
+				doc.getStatistics(), sizeD, index, relativeFreq), 0, true);
+	}
+
 	/**
 	 * This method determines the closest centroids for a document and returns
 	 * a list of the corresponding indices in the clusters-list.
@@ -61,12 +99,7 @@ public class Cosine extends Metric{
 		ArrayList<Integer> closestCentroids = new ArrayList<Integer>();
 		double bestCosine = 0;
 		for( int c = 0; c < clusters.size(); c++ ){
-			double cosine = computeDistance(
-						clusters.get(c).centroid.distribution,
-						clusters.get(c).centroid.distributionSize,
-						doc.words,
-						doc.corpusSize
-											);
+			double cosine = computeDistance( clusters.get(c).centroid, doc );
 			if( cosine == bestCosine ){
 				closestCentroids.add(c);
 			}
@@ -89,11 +122,14 @@ public class Cosine extends Metric{
 	 */
 	public static double computeCosine( Map<String, Double> q, 
 			Map<String, Double> r ){
+		SparseJoin join = SparseJoin.getInstance();
+		if( join.join(q, r) ){
+			return SparseKernels.cosine(join, 1, 1);
+		}
 		double result = 0;
 		double a = 0;
 		double b1 = 0;
 		double b2 = 0;
-		ArrayList<String> vocab = new ArrayList<String>();
 		for( Entry<String, Double> entry:q.entrySet() ){
 			String word = entry.getKey();
 			double q1 = entry.getValue();
@@ -104,10 +140,9 @@ public class Cosine extends Metric{
 			a = a + (q1*r1);
 			b1 = b1 + Math.pow(q1, 2);
 			b2 = b2 + Math.pow(r1, 2);
-			vocab.add(word);
 		}
 		for( Entry<String, Double> entry:r.entrySet() ){
-			if( !vocab.contains(entry.getKey()) ){
+			if( !q.containsKey(entry.getKey()) ){
 				double q1 = 0;
 				double r1 = entry.getValue();
 				
@@ -137,11 +172,14 @@ public class Cosine extends Metric{
 	 */
 	public static double computeCosine( Map<String, Double> q, int sizeQ,
 			Map<String, Double> r, int sizeR ){
+		SparseJoin join = SparseJoin.getInstance();
+		if( join.join(q, r) ){
+			return SparseKernels.cosine(join, sizeQ, sizeR);
+		}
 		double result = 0;
 		double a = 0;
 		double b1 = 0;
 		double b2 = 0;
-		ArrayList<String> vocab = new ArrayList<String>();
 		for( Entry<String, Double> entry:q.entrySet() ){
 			String word = entry.getKey();
 			double q1 = entry.getValue() / (double) sizeQ;
@@ -152,10 +190,9 @@ public class Cosine extends Metric{
 			a = a + (q1*r1);
 			b1 = b1 + Math.pow(q1, 2);
 			b2 = b2 + Math.pow(r1, 2);
-			vocab.add(word);
 		}
 		for( Entry<String, Double> entry:r.entrySet() ){
-			if( !vocab.contains(entry.getKey()) ){
+			if( !q.containsKey(entry.getKey()) ){
 				double q1 = 0;
 				double r1 = entry.getValue() / (double) sizeR;
 				
@@ -0,0 +1,97 @@
+package plugin_metrics;
+
+/**
+ * Class DenseKernels contains the loops of the kernels in SparseKernels that
+ * run over the words of a document lined up with the values of a dense
+ * centroid (see SparseJoin.gather()): the dot product, the sum of the square
+ * roots of the products and the sum of the absolute differences. These
+ * loops run over long arrays, so they are worth computing with SIMD
+ * instructions.
+ * The methods of this class are plain scalar loops. getInstance() returns
+ * the implementation with the Vector API (plugin_metrics.VectorKernels in
+ * the source path src-vector) if it was compiled and the module
+ * jdk.incubator.vector is available, and this class otherwise. To use it:
+ * javac --add-modules jdk.incubator.vector -cp <classes> -d <classes>
+ * src-vector/plugin_metrics/VectorKernels.java
+ * java --add-modules jdk.incubator.vector ...
+ * The vector kernels add up the terms in another order, so their results
+ * can differ from the scalar ones in the last bits.
+ */
+public class DenseKernels{
+	public static final DenseKernels SCALAR = new DenseKernels();
+	private static final DenseKernels INSTANCE = load();
+
+	/**
+	 * This method returns the kernels with the Vector API if they are
+	 * available, and the scalar kernels otherwise.
+	 * @return kernels
+	 */
+	public static DenseKernels getInstance(){
+		return INSTANCE;
+	}
+
+	private static DenseKernels load(){
+		try{
+			return (DenseKernels) Class.forName("plugin_metrics.VectorKernels")
+					.getDeclaredConstructor().newInstance();
+		} catch( Exception e ){
+			return SCALAR;
+		} catch( LinkageError e ){
+			// The module jdk.incubator.vector was not added
+			return SCALAR;
+		}
+	}
+
+	/**
+	 * This method computes the dot product of two arrays.
+	 * @param q - values of the first document
+	 * @param r - values of the second document
+	 * @param size - number of values
+	 * @return dot
+	 */
+	public double dot( double[] q, double[] r, int size ){
+		double dot = 0;
+		for( int i = 0; i < size; i++ ){
+			dot = dot + q[i] * r[i];
+		}
+		return dot;
+	}
+
+	/**
+	 * This method computes the sum of the square roots of the products of
+	 * two arrays.
+	 * @param q - values of the first document
+	 * @param r - values of the second document
+	 * @param size - number of values
+	 * @return roots - sum(sqrt(q * r))
+	 */
+	public double sumOfRoots( double[] q, double[] r, int size ){
+		double roots = 0;
+		for( int i = 0; i < size; i++ ){
+			roots = roots + Math.sqrt(q[i] * r[i]);
+		}
+		return roots;
+	}
+
+	/**
+	 * This method adds abs(q - r) - abs(r) for the values of two arrays,
+	 * divided by the divisors of the documents, to a sum (see
+	 * SparseKernels.l1norm()).
+	 * @param sum - sum to which the terms are added
+	 * @param q - values of the first document
+	 * @param sizeQ - divisor of the first document
+	 * @param r - values of the second document
+	 * @param sizeR - divisor of the second document
+	 * @param size - number of values
+	 * @return sum
+	 */
+	public double sumOfDifferences( double sum, double[] q, double sizeQ,
+			double[] r, double sizeR, int size ){
+		for( int i = 0; i < size; i++ ){
+			double q1 = q[i] / sizeQ;
+			double r1 = r[i] / sizeR;
+			sum = sum + Math.abs(q1 - r1) - Math.abs(r1);
+		}
+		return sum;
+	}
+}
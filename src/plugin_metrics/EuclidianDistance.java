@@ -46,6 +46,45 @@ public class EuclidianDistance extends Metric{
 		return distance;
 	}
 
+	/**
+	 * This method computes the euclidian distance between the centroid of a
+	 * cluster and a document from the cached sums of squares and their dot
+	 * product, if their statistics are available.
+	 * @param centroid - centroid of the cluster
+	 * @param doc - document
+	 * @return distance - resulting similarity score
+	 */
+	public double computeDistance(Centroid centroid, Document doc){
+		if( !hasStatistics(centroid, doc) ){
+			return super.computeDistance(centroid, doc);
+		}
+		double sizeC = relativeFreq ? 1 : centroid.distributionSize;
+		double sizeD = relativeFreq ? 1 : doc.corpusSize;
+		return SparseKernels.euclidianDistance(gather(centroid, doc),
+				doc.getStatistics(), sizeD, centroid.getStatistics(), sizeC);
+	}
+
+	/**
+	 * This method determines the closest centroids for a document by
+	 * computing the euclidian distance to all centroids at once, if the
+	 * document can be compared to the index (see Metric.hasStatistics()).
+	 * @param doc - document for which the closest centroids need to be
+	 * determined
+	 * @param index - index of the centroids of the clusters
+	 * @return closestCentroids - list of indices corresponding to the closest
+	 * centroids.
+	 */
+	public ArrayList<Integer> getClosestCentroids(Document doc,
+			CentroidIndex index){
+		if( !hasStatistics(index, doc) ){
+			return super.getClosestCentroids(doc, index);
+		}
+		double sizeD = relativeFreq ? 1 : doc.corpusSize;
+		return closest(CentroidKernels.euclidianDistance(doc.getVector(),
+				doc.getStatistics(), sizeD, index, relativeFreq), Double.POSITIVE_INFINITY,
+				false);
+	}
+
 	/**
 	 * This method determines the closest centroids for a document and returns
 	 * a list of the corresponding indices in the clusters-list.
@@ -60,12 +99,7 @@ public class EuclidianDistance extends Metric{
 		ArrayList<Integer> closestCentroids = new ArrayList<Integer>();
 		double bestDistance = Double.POSITIVE_INFINITY;
 		for(int c = 0; c < clusters.size(); c++){
-			double euclidian =  computeDistance(
-								clusters.get(c).centroid.distribution,
-								clusters.get(c).centroid.distributionSize,
-								doc.words,
-								doc.corpusSize
-								);
+			double euclidian =  computeDistance( clusters.get(c).centroid, doc );
 			if( euclidian == bestDistance ){
 				closestCentroids.add(c);
 			}
@@ -87,14 +121,16 @@ public class EuclidianDistance extends Metric{
 	 */
 	public static double computeEuclidianDistance( Map<String, Double> q, 
 			Map<String, Double> r){
+		SparseJoin join = SparseJoin.getInstance();
+		if( join.join(q, r) ){
+			return SparseKernels.euclidianDistance(join, 1, 1);
+		}
 		double result = 0;
-		ArrayList<String> vocab = new ArrayList<String>();
 		for( Entry<String, Double> entry:q.entrySet() ){
 			result = result + calculateDistanceWord(entry.getKey(), q, r);
-			vocab.add(entry.getKey());
 		}
 		for( Entry<String, Double> entry:r.entrySet() ){
-			if( !vocab.contains(entry.getKey()) ){
+			if( !q.containsKey(entry.getKey()) ){
 				result = result + calculateDistanceWord(entry.getKey(), q, r);
 			}
 		}
@@ -115,15 +151,17 @@ public class EuclidianDistance extends Metric{
 	 */
 	public static double computeEuclidianDistance( Map<String, Double> q, 
 			int sizeQ, Map<String, Double> r, int sizeR ){
+		SparseJoin join = SparseJoin.getInstance();
+		if( join.join(q, r) ){
+			return SparseKernels.euclidianDistance(join, sizeQ, sizeR);
+		}
 		double result = 0;
-		ArrayList<String> vocab = new ArrayList<String>();
 		for( Entry<String, Double> entry:q.entrySet() ){
 			result = result + calculateDistanceWord(entry.getKey(), q, sizeQ, 
 					r, sizeR );
-			vocab.add(entry.getKey());
 		}
 		for( Entry<String, Double> entry:r.entrySet() ){
-			if( !vocab.contains(entry.getKey()) ){
+			if( !q.containsKey(entry.getKey()) ){
 				result = result + calculateDistanceWord(entry.getKey(), q, sizeQ, 
 						r, sizeR);
 			}
@@ -44,6 +44,45 @@ public class HellingerFunction extends Metric{
 		return distance;
 	}
 
+	/**
+	 * This method computes the hellinger distance between the centroid of a
+	 * cluster and a document from the cached sums and the words they have in
+	 * common, if their statistics are available.
+	 * @param centroid - centroid of the cluster
+	 * @param doc - document
+	 * @return distance - resulting similarity score
+	 */
+	public double computeDistance(Centroid centroid, Document doc){
+		if( !hasStatistics(centroid, doc) ){
+			return super.computeDistance(centroid, doc);
+		}
+		double sizeC = relativeFreq ? 1 : centroid.distributionSize;
+		double sizeD = relativeFreq ? 1 : doc.corpusSize;
+		return SparseKernels.hellinger(gather(centroid, doc),
+				doc.getStatistics(), sizeD, centroid.getStatistics(), sizeC);
+	}
+
+	/**
+	 * This method determines the closest centroids for a document by
+	 * computing the hellinger distance to all centroids at once, if the
+	 * document can be compared to the index (see Metric.hasStatistics()).
+	 * @param doc - document for which the closest centroids need to be
+	 * determined
+	 * @param index - index of the centroids of the clusters
+	 * @return closestCentroids - list of indices corresponding to the closest
+	 * centroids.
+	 */
+	public ArrayList<Integer> getClosestCentroids(Document doc,
+			CentroidIndex index){
+		if( !hasStatistics(index, doc) ){
+			return super.getClosestCentroids(doc, index);
+		}
+		double sizeD = relativeFreq ? 1 : doc.corpusSize;
+		return closest(CentroidKernels.hellinger(doc.getVector(),
+				doc.getStatistics(), sizeD, index, relativeFreq), Double.POSITIVE_INFINITY,
+				false);
+	}
+
 	/**
 	 * This method determines the closest centroids for a document and returns
 	 * a list of the corresponding indices in the clusters-list.
@@ -58,12 +97,7 @@ public class HellingerFunction extends Metric{
 		ArrayList<Integer> closestCentroids = new ArrayList<Integer>();
 		double bestDistance = Double.POSITIVE_INFINITY;
 		for( int c = 0; c < clusters.size(); c++){
-			double distance = computeDistance(
-								clusters.get(c).centroid.distribution,
-								clusters.get(c).centroid.distributionSize,
-								doc.words,
-								doc.corpusSize
-								);
+			double distance = computeDistance( clusters.get(c).centroid, doc );
 			if( distance == bestDistance ){
 				closestCentroids.add(c);
 			}
@@ -88,8 +122,11 @@ public class HellingerFunction extends Metric{
 	 */
 	public static double computeHellinger( Map<String, Double> q, 
 			int corpusSizeQ, Map<String, Double> r, int corpusSizeR ){
+		SparseJoin join = SparseJoin.getInstance();
+		if( join.join(q, r) ){
+			return SparseKernels.hellinger(join, corpusSizeQ, corpusSizeR);
+		}
 		double result = 0;
-		ArrayList<String> vocab = new ArrayList<String>();
 		for( Entry<String, Double> entry:q.entrySet() ){
 			String word = entry.getKey();
 			double q1 = entry.getValue() / (double) corpusSizeQ;
@@ -99,10 +136,9 @@ public class HellingerFunction extends Metric{
 			}
 			double sq = Math.sqrt(q1) - Math.sqrt(r1);
 			result = result + Math.pow(sq, 2);
-			vocab.add(word);
 		}
 		for( Entry<String, Double> entry:r.entrySet() ){
-			if( !vocab.contains(entry.getKey()) ){
+			if( !q.containsKey(entry.getKey()) ){
 				double r1 = entry.getValue() / (double) corpusSizeR;
 				result = result + r1;
 			}
@@ -119,8 +155,11 @@ public class HellingerFunction extends Metric{
 	 */
 	public static double computeHellinger( Map<String, Double> q, 
 			Map<String, Double> r ){
+		SparseJoin join = SparseJoin.getInstance();
+		if( join.join(q, r) ){
+			return SparseKernels.hellinger(join, 1, 1);
+		}
 		double result = 0;
-		ArrayList<String> vocab = new ArrayList<String>();
 		for( Entry<String, Double> entry:q.entrySet() ){
 			String word = entry.getKey();
 			double q1 = entry.getValue();
@@ -130,10 +169,9 @@ public class HellingerFunction extends Metric{
 			}
 			double sq = Math.sqrt(q1) - Math.sqrt(r1);
 			result = result + Math.pow(sq, 2);
-			vocab.add(word);
 		}
 		for( Entry<String, Double> entry:r.entrySet() ){
-			if( !vocab.contains(entry.getKey()) ){
+			if( !q.containsKey(entry.getKey()) ){
 				double r1 = entry.getValue();
 				result = result + r1;
 			}
@@ -2,7 +2,6 @@ package plugin_metrics;
 
 import java.util.Map.Entry;
 import java.util.Map;
-import java.util.HashMap;
 import data_representation.*;
 import java.util.ArrayList;
 /**
@@ -92,15 +91,7 @@ public class JSdivergence extends Metric{
 	 */
 	public static double computeJSdivergence(  Map<String, Double> q, int sizeQ, 
 			Map<String, Double> r, int sizeR, boolean relativeFreq ){
-		double result = 0;
-		Map<String, Double> average = createAverage(q, r);
-		int sizeAverage = (sizeQ + sizeR) / 2;
-		double klDivQ = KLdivergence.computeKLdivergence(q, sizeQ, average, 
-				sizeAverage, true );
-		double klDivR = KLdivergence.computeKLdivergence(r, sizeR, average, 
-				sizeAverage, true );
-		result = 0.5 * (klDivQ + klDivR);
-		return result;
+		return streamJSdivergence(q, sizeQ, r, sizeR, true);
 	}
 
 	/**
@@ -114,41 +105,48 @@ public class JSdivergence extends Metric{
 	 */
 	public static double computeJSdivergence(  Map<String, Double> q, int sizeQ,
 			Map<String, Double> r, int sizeR ){
-		double result = 0;
-		Map<String, Double> average = createAverage(q, r);
-		int sizeAverage = (sizeQ + sizeR) / 2;
-		double klDivQ = KLdivergence.computeKLdivergence(q, sizeQ, average,
-				sizeAverage );
-		double klDivR = KLdivergence.computeKLdivergence(r, sizeR, average, 
-				sizeAverage );
-		result = 0.5 * (klDivQ + klDivR);
-		
-		return result;
+		return streamJSdivergence(q, sizeQ, r, sizeR, false);
 	}
 
 	/**
-	 * This method creates an average distribution between the two distributions
-	 * given as input.
-	 * @param q - first distribution (document)
-	 * @param r - second distribution (document)
-	 * @return average - average distribution between the two input distributions
+	 * This method computes the JS divergence between two documents without
+	 * creating their average: the vectors behind the documents are walked
+	 * through once if possible (see SparseKernels.jsDivergence()), otherwise
+	 * the words of both documents are walked through and the average of
+	 * every word is computed on the fly. The result may differ from computing
+	 * both KL divergences to the average separately by rounding (relative
+	 * differences below 1e-12).
+	 * @param q - first document
+	 * @param sizeQ - corpus size of first document
+	 * @param r - second document
+	 * @param sizeR - corpus size of second document
+	 * @param relativeFreq - representation with relative frequency is used
+	 * @return result - similarity score
 	 */
-	private static Map<String, Double> createAverage( Map<String, Double> q,
-			Map<String, Double> r ){
-		Map<String, Double> average = new HashMap<String, Double>();
-		for( Entry<String, Double> entry:q.entrySet()){
-			double count = entry.getValue() * 0.5;
-			average.put(entry.getKey(), count);
+	private static double streamJSdivergence( Map<String, Double> q,
+			int sizeQ, Map<String, Double> r, int sizeR, boolean relativeFreq ){
+		if( SparseJoin.joinable(q, r) ){
+			if( q instanceof TermVectorMap ){
+				return SparseKernels.jsDivergence(((TermVectorMap) q).getVector(),
+						sizeQ, ((TermVectorMap) r).getVector(), sizeR, relativeFreq);
+			}
+			return SparseKernels.jsDivergence(((PairVectorMap) q).getVector(),
+					sizeQ, ((PairVectorMap) r).getVector(), sizeR, relativeFreq);
+		}
+		int sizeAverage = (sizeQ + sizeR) / 2;
+		double result = 0;
+		for( Entry<String, Double> entry:q.entrySet() ){
+			Double valueR = r.get(entry.getKey());
+			result = result + SparseKernels.jsTerm(entry.getValue(), true, sizeQ,
+					valueR == null ? 0 : valueR, valueR != null, sizeR, sizeAverage,
+					relativeFreq);
 		}
-		for( Entry<String, Double> entry:r.entrySet()){
-			String word = entry.getKey();
-			double count = entry.getValue() * 0.5;
-			if( average.containsKey( word )){
-				count = count + average.get(word);
+		for( Entry<String, Double> entry:r.entrySet() ){
+			if( !q.containsKey(entry.getKey()) ){
+				result = result + SparseKernels.jsTerm(0, false, sizeQ,
+						entry.getValue(), true, sizeR, sizeAverage, relativeFreq);
 			}
-			average.put(word, count);
 		}
-
-		return average;
+		return 0.5 * result;
 	}
-}
\ No newline at end of file
+}
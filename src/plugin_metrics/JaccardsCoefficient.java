@@ -92,10 +92,13 @@ public class JaccardsCoefficient extends Metric{
 	 */
 	public static double computeJaccardsCoefficient( Map<String, Double> q, 
 			int corpusSizeQ, Map<String, Double> r, int corpusSizeR ){
+		SparseJoin join = SparseJoin.getInstance();
+		if( join.join(q, r) ){
+			return SparseKernels.jaccardsCoefficient(join, corpusSizeQ, corpusSizeR);
+		}
 		double result = 0;
 		double intersection = 0;
 		double union = 0;
-		ArrayList<String> vocab = new ArrayList<String>();
 		for( Entry<String, Double> entry:q.entrySet() ){
 			String word = entry.getKey();
 			double q1 = entry.getValue() / (double) corpusSizeQ;
@@ -106,10 +109,9 @@ public class JaccardsCoefficient extends Metric{
 			}
 			union = union + Math.max(r1, q1);
 			
-			vocab.add(word);
 		}
 		for( Entry<String, Double> entry:r.entrySet() ){
-			if( !vocab.contains(entry.getKey()) ){
+			if( !q.containsKey(entry.getKey()) ){
 				double r1 = entry.getValue() / (double) corpusSizeR;
 				union = union + r1; // r1 = max(r1, q1), because q1 = 0
 			}
@@ -127,10 +129,13 @@ public class JaccardsCoefficient extends Metric{
 	 */
 	public static double computeJaccardsCoefficient( Map<String, Double> q, 
 			Map<String, Double> r ){
+		SparseJoin join = SparseJoin.getInstance();
+		if( join.join(q, r) ){
+			return SparseKernels.jaccardsCoefficient(join, 1, 1);
+		}
 		double result = 0;
 		double intersection = 0;
 		double union = 0;
-		ArrayList<String> vocab = new ArrayList<String>();
 		for( Entry<String, Double> entry:q.entrySet() ){
 			String word = entry.getKey();
 			double q1 = entry.getValue();
@@ -141,10 +146,9 @@ public class JaccardsCoefficient extends Metric{
 			}
 			union = union + Math.max(r1, q1);
 			
-			vocab.add(word);
 		}
 		for( Entry<String, Double> entry:r.entrySet() ){
-			if( !vocab.contains(entry.getKey()) ){
+			if( !q.containsKey(entry.getKey()) ){
 				double r1 = entry.getValue();
 				union = union + r1; // r1 = max(r1, q1), because q1 = 0
 			}
@@ -62,6 +62,104 @@ public class KLdivergence extends Metric{
 		return distance;
 	}
 
+	/**
+	 * This method computes the KL divergence between the centroid of a
+	 * cluster and a document from their cached probabilities and logarithms
+	 * (see data_representation.LogVector), if their statistics are
+	 * available.
+	 * @param centroid - centroid of the cluster
+	 * @param doc - document
+	 * @return distance - distance between the centroid and the document
+	 */
+	public double computeDistance(Centroid centroid, Document doc){
+		if( !hasStatistics(centroid, doc) ){
+			return super.computeDistance(centroid, doc);
+		}
+		SparseJoin join = gather(centroid, doc);
+		LogVector logC = centroid.getLogVector(relativeFreq);
+		LogVector logD = doc.getLogVector(relativeFreq);
+		if( combiMethod == null ){
+			return SparseKernels.klDivergence(join, logD, logC, true);
+		}
+		// Both ways in one pass over the join
+		double[] divergences = new double[2];
+		SparseKernels.klDivergences(join, logD, logC, divergences);
+		return combine(divergences[1], divergences[0], combiMethod);
+	}
+
+	/**
+	 * This method determines the closest centroids for a document by
+	 * computing the KL divergence to all centroids at once, if the document
+	 * can be compared to the index (see Metric.hasStatistics()).
+	 * @param doc - document for which the closest centroids need to be
+	 * determined
+	 * @param index - index of the centroids of the clusters
+	 * @return closestCentroids - list of indices corresponding to the closest
+	 * centroids.
+	 */
+	public ArrayList<Integer> getClosestCentroids(Document doc,
+			CentroidIndex index){
+		if( !hasStatistics(index, doc) ){
+			return super.getClosestCentroids(doc, index);
+		}
+		LogVector logD = doc.getLogVector(relativeFreq);
+		double[] scores;
+		if( combiMethod == null ){
+			scores = CentroidKernels.klDivergence(doc.getVector(), logD, index,
+					relativeFreq, true);
+		}
+		else{
+			double[][] divergences = CentroidKernels.klDivergences(
+					doc.getVector(), logD, index, relativeFreq);
+			scores = divergences[1];
+			for( int c = 0; c < scores.length; c++ ){
+				scores[c] = combine(scores[c], divergences[0][c], combiMethod);
+			}
+		}
+		for( int c = 0; c < scores.length; c++ ){
+			scores[c] = Math.abs(scores[c]);
+		}
+		return closest(scores, Double.POSITIVE_INFINITY, false);
+	}
+
+	/**
+	 * This method returns the properties of this metric (see
+	 * MetricRegistry): the KL divergence is symmetric if both ways are
+	 * combined.
+	 * @return properties - properties
+	 */
+	public MetricProperties getProperties(){
+		MetricProperties properties = super.getProperties();
+		if( combiMethod == null || properties == null ){
+			return properties;
+		}
+		return properties.symmetrized();
+	}
+
+	/**
+	 * This method combines the KL divergences of two documents to each other
+	 * with the combination method.
+	 * @param scoreQtoR - divergence of the first document to the second
+	 * @param scoreRtoQ - divergence of the second document to the first
+	 * @param combinationMethod - "average" or "minimum"
+	 * @return similarityScore - combined score
+	 */
+	public static double combine(double scoreQtoR, double scoreRtoQ,
+			String combinationMethod){
+		double similarityScore = -2;
+		if( combinationMethod.equals("minimum") ){
+			if( scoreQtoR < scoreRtoQ )
+				similarityScore = scoreQtoR;
+			else similarityScore = scoreRtoQ;
+		}
+		else if( combinationMethod.equals("average") ){
+			similarityScore = 0.5 * scoreQtoR + 0.5 * scoreRtoQ;
+		}
+		else System.out.println("Other method than minimum or average not yet" +
+				" implemented");
+		return similarityScore;
+	}
+
 	/**
 	 * This method determines the closest centroids for a document and returns
 	 * a list of the corresponding indices in the clusters-list.
@@ -77,11 +175,7 @@ public class KLdivergence extends Metric{
 		double bestKLdivergence = Double.POSITIVE_INFINITY;
 		for( int c = 0; c < clusters.size(); c++ ){
 			double divergence = 
-					Math.abs(computeDistance( 
-							clusters.get(c).centroid.distribution, 
-							clusters.get(c).centroid.distributionSize,
-							doc.words,
-							doc.corpusSize )
+					Math.abs(computeDistance( clusters.get(c).centroid, doc )
 							);
 			if( divergence == bestKLdivergence ){
 				closestCentroids.add(c);
@@ -110,23 +204,19 @@ public class KLdivergence extends Metric{
 	public static double computeKLdivergence( Map<String, Double> q, 
 			int corpusSizeQ, Map<String, Double> r, int corpusSizeR, 
 			String combinationMethod ){
-		double scoreQtoR = computeKLdivergence( q, corpusSizeQ, r, corpusSizeR );
-		double scoreRtoQ = computeKLdivergence( r, corpusSizeR, q, corpusSizeQ );
-		double similarityScore = -2;
-
-		if( combinationMethod.equals("minimum") ){
-			if( scoreQtoR < scoreRtoQ )
-				similarityScore = scoreQtoR;
-			else similarityScore = scoreRtoQ;
+		double scoreQtoR;
+		double scoreRtoQ;
+		// Both ways are computed in one walk through the vectors
+		double[] divergences = new double[2];
+		if( klDivergences(q, corpusSizeQ, r, corpusSizeR, false, divergences) ){
+			scoreQtoR = divergences[0];
+			scoreRtoQ = divergences[1];
 		}
-		else if( combinationMethod.equals("average") ){
-			similarityScore = 0.5 * scoreQtoR + 0.5 * scoreRtoQ;
+		else{
+			scoreQtoR = computeKLdivergence( q, corpusSizeQ, r, corpusSizeR );
+			scoreRtoQ = computeKLdivergence( r, corpusSizeR, q, corpusSizeQ );
 		}
-		
-		else System.out.println("Other method than minimum or average not yet" +
-				" implemented");
-
-		return similarityScore;
+		return combine(scoreQtoR, scoreRtoQ, combinationMethod);
 	}
 
 	/**
@@ -146,27 +236,52 @@ public class KLdivergence extends Metric{
 	public static double computeKLdivergence( Map<String, Double> q,
 			int corpusSizeQ, Map<String, Double> r, int corpusSizeR,
 			String combinationMethod, boolean relativeFreq ){
-		
-		double scoreQtoR = computeKLdivergence( q, corpusSizeQ, r,
-				corpusSizeR, relativeFreq );
-		double scoreRtoQ = computeKLdivergence( r, corpusSizeR, q, 
-				corpusSizeQ, relativeFreq );
-		double similarityScore = -2;
-		
-		if( combinationMethod.equals("minimum") ){
-			if( scoreQtoR < scoreRtoQ )
-				similarityScore = scoreQtoR;
-			else similarityScore = scoreRtoQ;
+		double scoreQtoR;
+		double scoreRtoQ;
+		// Both ways are computed in one walk through the vectors
+		double[] divergences = new double[2];
+		if( klDivergences(q, corpusSizeQ, r, corpusSizeR, true, divergences) ){
+			scoreQtoR = divergences[0];
+			scoreRtoQ = divergences[1];
 		}
-		
-		else if( combinationMethod.equals("average") ){
-			similarityScore = 0.5 * scoreQtoR + 0.5 * scoreRtoQ;
+		else{
+			scoreQtoR = computeKLdivergence( q, corpusSizeQ, r,
+					corpusSizeR, relativeFreq );
+			scoreRtoQ = computeKLdivergence( r, corpusSizeR, q, 
+					corpusSizeQ, relativeFreq );
 		}
-		
-		else System.out.println("Other method than minimum or average not yet" +
-				" implemented");
+		return combine(scoreQtoR, scoreRtoQ, combinationMethod);
+	}
 
-		return similarityScore;
+	/**
+	 * This method computes the KL divergences of two documents to each other
+	 * in one walk through their vectors (see SparseKernels.klDivergences()),
+	 * if both documents are views on a vector with the same dictionaries.
+	 * @param q - first document
+	 * @param corpusSizeQ - corpus size of first document
+	 * @param r - second document
+	 * @param corpusSizeR - corpus size of second document
+	 * @param relativeFreq - representation with relative frequency is used
+	 * @param divergences - array in which the divergence of q to r (at 0) and
+	 * of r to q (at 1) are stored
+	 * @return true if the divergences were computed, false if the documents
+	 * have to be compared by their words
+	 */
+	private static boolean klDivergences( Map<String, Double> q,
+			int corpusSizeQ, Map<String, Double> r, int corpusSizeR,
+			boolean relativeFreq, double[] divergences ){
+		if( !SparseJoin.joinable(q, r) ){
+			return false;
+		}
+		if( q instanceof TermVectorMap ){
+			SparseKernels.klDivergences(((TermVectorMap) q).getVector(),
+					corpusSizeQ, ((TermVectorMap) r).getVector(), corpusSizeR,
+					relativeFreq, divergences);
+		}
+		else SparseKernels.klDivergences(((PairVectorMap) q).getVector(),
+				corpusSizeQ, ((PairVectorMap) r).getVector(), corpusSizeR,
+				relativeFreq, divergences);
+		return true;
 	}
 
 
@@ -181,6 +296,11 @@ public class KLdivergence extends Metric{
 	 */
 	public static double computeKLdivergence( Map<String, Double> q, 
 			int corpusSizeQ, Map<String, Double> r, int corpusSizeR ){
+		SparseJoin join = SparseJoin.getInstance();
+		if( join.join(q, r) ){
+			return SparseKernels.klDivergence(join, corpusSizeQ, corpusSizeR,
+					false, false);
+		}
 		double result = 0;
 		double q1 = 0;
 		double r1 = 0;
@@ -217,6 +337,11 @@ public class KLdivergence extends Metric{
 	public static double computeKLdivergence( Map<String, Double> q, 
 			int corpusSizeQ, Map<String, Double> r, int corpusSizeR, 
 			boolean relativeFreq ){
+		SparseJoin join = SparseJoin.getInstance();
+		if( join.join(q, r) ){
+			return SparseKernels.klDivergence(join, corpusSizeQ, corpusSizeR,
+					true, false);
+		}
 		double result = 0;
 		double q1 = 0;
 		double r1 = 1;
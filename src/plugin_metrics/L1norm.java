@@ -45,6 +45,45 @@ public class L1norm extends Metric{
 		return distance;
 	}
 
+	/**
+	 * This method computes the L1 norm between the centroid of a cluster and
+	 * a document from the statistics of the centroid and the words of the
+	 * document if possible (see Metric.hasStatistics()).
+	 * @param centroid - centroid of the cluster
+	 * @param doc - document
+	 * @return distance - resulting similarity score
+	 */
+	public double computeDistance(Centroid centroid, Document doc){
+		if( !hasStatistics(centroid, doc) ){
+			return super.computeDistance(centroid, doc);
+		}
+		double sizeC = relativeFreq ? 1 : centroid.distributionSize;
+		double sizeD = relativeFreq ? 1 : doc.corpusSize;
+		return SparseKernels.l1norm(gather(centroid, doc), sizeD,
+				centroid.getStatistics(), sizeC);
+	}
+
+	/**
+	 * This method determines the closest centroids for a document by
+	 * computing the L1 norm to all centroids at once, if the
+	 * document can be compared to the index (see Metric.hasStatistics()).
+	 * @param doc - document for which the closest centroids need to be
+	 * determined
+	 * @param index - index of the centroids of the clusters
+	 * @return closestCentroids - list of indices corresponding to the closest
+	 * centroids.
+	 */
+	public ArrayList<Integer> getClosestCentroids(Document doc,
+			CentroidIndex index){
+		if( !hasStatistics(index, doc) ){
+			return super.getClosestCentroids(doc, index);
+		}
+		double sizeD = relativeFreq ? 1 : doc.corpusSize;
+		return closest(CentroidKernels.l1norm(doc.getVector(),
+				doc.getStatistics(), sizeD, index, relativeFreq), Double.POSITIVE_INFINITY,
+				false);
+	}
+
 	/**
 	 * This method determines the closest centroids for a document and returns
 	 * a list of the corresponding indices in the clusters-list.
@@ -59,12 +98,7 @@ public class L1norm extends Metric{
 		ArrayList<Integer> closestCentroids = new ArrayList<Integer>();
 		double bestDistance = Double.POSITIVE_INFINITY;
 		for( int c = 0; c < clusters.size(); c++){
-			double distance = computeDistance(
-								clusters.get(c).centroid.distribution,
-								clusters.get(c).centroid.distributionSize,
-								doc.words,
-								doc.corpusSize
-								);
+			double distance = computeDistance( clusters.get(c).centroid, doc );
 			if( distance == bestDistance ){
 				closestCentroids.add(c);
 			}
@@ -88,8 +122,11 @@ public class L1norm extends Metric{
 	 */
 	public static double computeL1norm( Map<String, Double> q, int corpusSizeQ, 
 			Map<String, Double> r, int corpusSizeR ){
+		SparseJoin join = SparseJoin.getInstance();
+		if( join.join(q, r) ){
+			return SparseKernels.l1norm(join, corpusSizeQ, corpusSizeR);
+		}
 		double result = 0;
-		ArrayList<String> vocab = new ArrayList<String>();
 		for( Entry<String, Double> entry:q.entrySet() ){
 			String word = entry.getKey();
 			double q1 = entry.getValue() / (double) corpusSizeQ;
@@ -98,10 +135,9 @@ public class L1norm extends Metric{
 				r1 = r.get(word) / (double) corpusSizeR;
 			}
 			result = result + Math.abs( (q1 - r1) );
-			vocab.add(word);
 		}
 		for( Entry<String, Double> entry:r.entrySet() ){
-			if( !vocab.contains(entry.getKey()) ){
+			if( !q.containsKey(entry.getKey()) ){
 				double r1 = entry.getValue() / (double) corpusSizeR;
 				result = result + r1;
 			}
@@ -118,8 +154,11 @@ public class L1norm extends Metric{
 	 */
 	public static double computeL1norm( Map<String, Double> q, 
 			Map<String, Double> r ){
+		SparseJoin join = SparseJoin.getInstance();
+		if( join.join(q, r) ){
+			return SparseKernels.l1norm(join, 1, 1);
+		}
 		double result = 0;
-		ArrayList<String> vocab = new ArrayList<String>();
 		for( Entry<String, Double> entry:q.entrySet() ){
 			String word = entry.getKey();
 			double q1 = entry.getValue();
@@ -128,10 +167,9 @@ public class L1norm extends Metric{
 				r1 = r.get(word);
 			}
 			result = result + Math.abs( (q1 - r1) );
-			vocab.add(word);
 		}
 		for( Entry<String, Double> entry:r.entrySet() ){
-			if( !vocab.contains(entry.getKey()) ){
+			if( !q.containsKey(entry.getKey()) ){
 				double r1 = entry.getValue();
 				result = result + r1;
 			}
@@ -11,6 +11,12 @@ import data_representation.*;
  * that computes the distance between two distributions and a method that
  * computes the closest centroids to a document. This class provides an 
  * implemented method that determines the closest cluster to a document.
+ * The distance between a centroid and a document can be computed from
+ * their statistics (see data_representation.VectorStatistics) by the
+ * metrics that support this; they override computeDistance(Centroid,
+ * Document), and can compare a document to all centroids at once (see
+ * data_representation.CentroidIndex) by overriding
+ * getClosestCentroids(Document, CentroidIndex).
  */
 public abstract class Metric{
 	abstract double computeDistance(Map<String, Double> q, int corpusSizeQ, 
@@ -18,6 +24,92 @@ public abstract class Metric{
 	abstract ArrayList<Integer> getClosestCentroids(Document doc, 
 			ArrayList<Cluster> clusters);
 
+	/**
+	 * This method computes the distance between the centroid of a cluster
+	 * and a document.
+	 * @param centroid - centroid of the cluster
+	 * @param doc - document
+	 * @return distance - distance between the centroid and the document
+	 */
+	public double computeDistance(Centroid centroid, Document doc){
+		return computeDistance(centroid.distribution, centroid.distributionSize,
+				doc.words, doc.corpusSize);
+	}
+
+	/**
+	 * This method computes the distance between the centroids of two
+	 * clusters.
+	 * @param a - first centroid
+	 * @param b - second centroid
+	 * @return distance - distance between the centroids
+	 */
+	public double computeDistance(Centroid a, Centroid b){
+		return computeDistance(a.distribution, a.distributionSize,
+				b.distribution, b.distributionSize);
+	}
+
+	/**
+	 * This method returns the properties of this metric (see
+	 * MetricRegistry).
+	 * @return properties - properties, or null if the metric is not
+	 * registered
+	 */
+	public MetricProperties getProperties(){
+		return MetricRegistry.get(getClass());
+	}
+
+	/**
+	 * This method checks whether the distribution of a centroid and a
+	 * document are both views on a vector with the same dictionary, so that
+	 * their statistics (see data_representation.VectorStatistics) can be
+	 * used to compute the distance.
+	 * @param centroid - centroid of a cluster
+	 * @param doc - document
+	 * @return true if the statistics can be used
+	 */
+	protected static boolean hasStatistics(Centroid centroid, Document doc){
+		if( !(centroid.distribution instanceof TermVectorMap) ||
+				!(doc.words instanceof TermVectorMap) ){
+			return false;
+		}
+		TermVectorMap distribution = (TermVectorMap) centroid.distribution;
+		TermVectorMap words = (TermVectorMap) doc.words;
+		return distribution.getDictionary() == words.getDictionary() &&
+				words.getVector() == doc.getVector() &&
+				doc.getStatistics() != null;
+	}
+
+	/**
+	 * This method returns the vector behind the distribution of a centroid
+	 * (see hasStatistics()).
+	 * @param centroid - centroid of a cluster
+	 * @return vector
+	 */
+	protected static SparseVector vectorOf(Centroid centroid){
+		return ((TermVectorMap) centroid.distribution).getVector();
+	}
+
+	/**
+	 * This method lines up the words of a document with the values of the
+	 * distribution of a centroid (see SparseJoin.gather() and
+	 * hasStatistics()). The values are looked up directly if the centroid is
+	 * dense enough (see data_representation.Centroid.getDense()) and searched
+	 * for otherwise.
+	 * @param centroid - centroid of a cluster
+	 * @param doc - document
+	 * @return join - join of the current thread with the document as first
+	 * and the centroid as second vector
+	 */
+	protected static SparseJoin gather(Centroid centroid, Document doc){
+		SparseJoin join = SparseJoin.getInstance();
+		DenseVector dense = centroid.getDense();
+		if( dense != null ){
+			join.gather(doc.getVector(), dense);
+		}
+		else join.gather(doc.getVector(), vectorOf(centroid));
+		return join;
+	}
+
 	/**
 	 * This method determines the closest cluster for a document by computing
 	 * the distance to each of the clusters' centroids. It then returns
@@ -28,8 +120,93 @@ public abstract class Metric{
 	 * @return bestCluster - index of closest cluster to the document
 	 */
 	public int getBestCluster(Document doc, ArrayList<Cluster> clusters){
+		return getBestCluster(getClosestCentroids(doc, clusters), clusters);
+	}
+
+	/**
+	 * This method determines the closest cluster for a document in the same
+	 * way as getBestCluster(Document, ArrayList), but compares the document
+	 * to all centroids at once (see getClosestCentroids(Document,
+	 * CentroidIndex)).
+	 * @param doc - document for which closest cluster needs to be determined
+	 * @param index - index of the centroids of the clusters
+	 * @return bestCluster - index of closest cluster to the document
+	 */
+	public int getBestCluster(Document doc, CentroidIndex index){
+		return getBestCluster(getClosestCentroids(doc, index), index.clusters);
+	}
+
+	/**
+	 * This method determines the closest centroids for a document by
+	 * comparing it to all centroids of an index at once. The metrics that
+	 * support this override it; by default the centroids are compared one by
+	 * one (see getClosestCentroids(Document, ArrayList)).
+	 * @param doc - document for which the closest centroids need to be
+	 * determined
+	 * @param index - index of the centroids of the clusters
+	 * @return closestCentroids - list of indices corresponding to the closest
+	 * centroids.
+	 */
+	public ArrayList<Integer> getClosestCentroids(Document doc,
+			CentroidIndex index){
+		return getClosestCentroids(doc, index.clusters);
+	}
+
+	/**
+	 * This method checks whether a document can be compared to all
+	 * centroids of an index at once: its words have to be stored in a vector
+	 * with the dictionary of the index (see hasStatistics()).
+	 * @param index - index of the centroids of the clusters
+	 * @param doc - document
+	 * @return true if the document can be compared to the index
+	 */
+	protected static boolean hasStatistics(CentroidIndex index, Document doc){
+		if( !(doc.words instanceof TermVectorMap) ){
+			return false;
+		}
+		TermVectorMap words = (TermVectorMap) doc.words;
+		return index.dictionary == words.getDictionary() &&
+				words.getVector() == doc.getVector() &&
+				doc.getStatistics() != null;
+	}
+
+	/**
+	 * This method returns the indices of the best scores, in the same way as
+	 * the metrics determine their closest centroids: a score is only taken
+	 * if it is at least as good as the initial score.
+	 * @param scores - score for every centroid
+	 * @param initial - initial best score
+	 * @param higher - true if a higher score is better
+	 * @return closestCentroids - list of indices corresponding to the closest
+	 * centroids.
+	 */
+	protected static ArrayList<Integer> closest(double[] scores, double initial,
+			boolean higher){
+		ArrayList<Integer> closestCentroids = new ArrayList<Integer>();
+		double best = initial;
+		for( int c = 0; c < scores.length; c++ ){
+			if( scores[c] == best ){
+				closestCentroids.add(c);
+			}
+			else if( higher ? scores[c] > best : scores[c] < best ){
+				closestCentroids.clear();
+				closestCentroids.add(c);
+				best = scores[c];
+			}
+		}
+		return closestCentroids;
+	}
+
+	/**
+	 * This method determines the closest cluster from a list of closest
+	 * centroids: the one with the fewest members.
+	 * @param closestCentroid - indices of the closest centroids
+	 * @param clusters - clusters
+	 * @return bestCluster - index of closest cluster to the document
+	 */
+	private int getBestCluster(ArrayList<Integer> closestCentroid,
+			ArrayList<Cluster> clusters){
 		int bestCluster = 0;
-		ArrayList<Integer> closestCentroid = getClosestCentroids(doc, clusters);
 
 		// Determine closest centroid from the resulting list
 		int numberMembers = Integer.MAX_VALUE;
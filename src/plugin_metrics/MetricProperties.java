@@ -0,0 +1,64 @@
+package plugin_metrics;
+
+/**
+ * Class MetricProperties describes the properties of a metric that the
+ * engines that use the metrics can rely on (see MetricRegistry):
+ * - higherIsSimilar: higher scores are given to more similar documents
+ * (a similarity), instead of lower scores (a distance);
+ * - symmetric: the score of q and r is the score of r and q, so only half of
+ * the pairs has to be computed;
+ * - triangleInequality: the score is a distance for which
+ * d(q, r) <= d(q, s) + d(s, r), so bounds on the distance can be used to skip
+ * computations (see clustering.Kmeans);
+ * - lowerBound and upperBound: the range of the scores (infinite if the
+ * scores are not bounded);
+ * - dotProduct: the score can be computed from a sum over the words two
+ * documents have in common, like a dot product, and statistics of the single
+ * documents (see CentroidKernels).
+ */
+public class MetricProperties{
+	public String name;
+	public boolean higherIsSimilar;
+	public boolean symmetric;
+	public boolean triangleInequality;
+	public double lowerBound;
+	public double upperBound;
+	public boolean dotProduct;
+
+	/**
+	 * Constructor
+	 * @param name - name of the metric as it is used in the names of the
+	 * result files
+	 * @param higherIsSimilar - higher scores are given to more similar
+	 * documents
+	 * @param symmetric - the score does not depend on the order of the
+	 * documents
+	 * @param triangleInequality - the score satisfies the triangle inequality
+	 * @param lowerBound - lowest possible score
+	 * @param upperBound - highest possible score
+	 * @param dotProduct - the score can be computed from a sum over the
+	 * words in common
+	 */
+	public MetricProperties( String name, boolean higherIsSimilar,
+			boolean symmetric, boolean triangleInequality, double lowerBound,
+			double upperBound, boolean dotProduct ){
+		this.name = name;
+		this.higherIsSimilar = higherIsSimilar;
+		this.symmetric = symmetric;
+		this.triangleInequality = triangleInequality;
+		this.lowerBound = lowerBound;
+		this.upperBound = upperBound;
+		this.dotProduct = dotProduct;
+	}
+
+	/**
+	 * This method returns the properties of the metric when the scores of
+	 * both orders of the documents are combined (e.g. by the minimum or the
+	 * average), which makes the metric symmetric.
+	 * @return properties - properties of the combined metric
+	 */
+	public MetricProperties symmetrized(){
+		return new MetricProperties(name, higherIsSimilar, true,
+				triangleInequality, lowerBound, upperBound, dotProduct);
+	}
+}
@@ -0,0 +1,94 @@
+package plugin_metrics;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Class MetricRegistry contains the properties (see MetricProperties) of
+ * every metric in plugin_metrics, so that the clustering and ranking
+ * engines do not have to know the metrics by name. A new metric can be
+ * registered with register().
+ * The KL divergence and the chi-square are not symmetric on their own, but
+ * they are when they are computed both ways and combined (see
+ * Metric.getProperties()). The KL and JS divergences are not bounded because
+ * the smoothed probabilities do not sum up to 1.
+ */
+public class MetricRegistry{
+	private static final Map<Class<? extends Metric>, MetricProperties>
+			registry = new LinkedHashMap<Class<? extends Metric>,
+			MetricProperties>();
+
+	static{
+		double infinity = Double.POSITIVE_INFINITY;
+		register(Cosine.class, new MetricProperties("Cosine", true, true,
+				false, -1, 1, true));
+		register(JaccardsCoefficient.class, new MetricProperties("Jaccards",
+				true, true, false, 0, 1, false));
+		register(EuclidianDistance.class, new MetricProperties("Euclidian",
+				false, true, true, 0, infinity, true));
+		register(L1norm.class, new MetricProperties("L1norm", false, true,
+				true, 0, 2, true));
+		register(HellingerFunction.class, new MetricProperties("Hellinger",
+				false, true, false, 0, 2, true));
+		register(KLdivergence.class, new MetricProperties("KLDivergence",
+				false, false, false, -infinity, infinity, true));
+		register(JSdivergence.class, new MetricProperties("JSDivergence",
+				false, true, false, -infinity, infinity, false));
+		register(Chisquare.class, new MetricProperties("Chisquare", false,
+				false, false, 0, infinity, false));
+	}
+
+	/**
+	 * This method registers the properties of a metric.
+	 * @param metric - class of the metric
+	 * @param properties - properties of the metric
+	 */
+	public static synchronized void register( Class<? extends Metric> metric,
+			MetricProperties properties ){
+		registry.put(metric, properties);
+	}
+
+	/**
+	 * This method returns the properties of a metric.
+	 * @param metric - class of the metric
+	 * @return properties - properties, or null if the metric is not
+	 * registered
+	 */
+	public static synchronized MetricProperties get(
+			Class<? extends Metric> metric ){
+		return registry.get(metric);
+	}
+
+	/**
+	 * This method returns the properties of a metric by its name.
+	 * @param name - name of the metric (e.g. "Cosine")
+	 * @return properties - properties, or null if no metric has the name
+	 */
+	public static synchronized MetricProperties forName( String name ){
+		for( MetricProperties properties:registry.values() ){
+			if( properties.name.equals(name) ){
+				return properties;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * This method returns the properties of the metric of which the scores
+	 * are stored in a result file, which is recognised by the name of the
+	 * metric in the name of the file (e.g. EN-ResultsCosine.csv).
+	 * @param fileName - name or path of the result file
+	 * @return properties - properties, or null if the name of the file does
+	 * not contain the name of a metric
+	 */
+	public static synchronized MetricProperties forFileName( String fileName ){
+		String name = new File(fileName).getName();
+		for( MetricProperties properties:registry.values() ){
+			if( name.contains(properties.name) ){
+				return properties;
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,230 @@
+package plugin_metrics;
+
+import java.util.Arrays;
+import java.util.Map;
+import data_representation.*;
+
+/**
+ * Class SparseJoin lines up two sparse vectors (see
+ * data_representation.SparseVector and data_representation.PairVector): it
+ * walks through the sorted ids of both vectors at the same time (a merge
+ * join) and stores the values of every word that occurs in either of them
+ * at the same position, so that the metrics (see SparseKernels) can be
+ * computed in a single pass over the union of the two vocabularies.
+ * For every position it is also stored whether the word occurs in the first
+ * and in the second vector; the value of a word that does not occur is 0.
+ * A join can also be restricted to the words of the first vector (see
+ * gather()), which is enough for the metrics that also use the statistics
+ * of the vectors (see data_representation.VectorStatistics).
+ * The arrays are reused by the next join, so every thread gets a join of
+ * its own (see getInstance()).
+ */
+public class SparseJoin{
+	private static final ThreadLocal<SparseJoin> instances =
+			new ThreadLocal<SparseJoin>(){
+		protected SparseJoin initialValue(){
+			return new SparseJoin();
+		}
+	};
+
+	public double[] q = new double[64];
+	public double[] r = new double[64];
+	public boolean[] inQ = new boolean[64];
+	public boolean[] inR = new boolean[64];
+	public int[] at = new int[64]; // position in the second vector (gather())
+	public int size;
+	public boolean dense; // the second vector is a DenseVector (gather())
+
+	/**
+	 * This method returns the join of the current thread.
+	 * @return join
+	 */
+	public static SparseJoin getInstance(){
+		return instances.get();
+	}
+
+	/**
+	 * This method joins two documents if both of them are views on a vector
+	 * (see data_representation.TermVectorMap and
+	 * data_representation.PairVectorMap) with the same dictionaries.
+	 * @param q - first document
+	 * @param r - second document
+	 * @return true if the documents were joined, false if the documents
+	 * have to be compared by their words
+	 */
+	public boolean join( Map<String, Double> q, Map<String, Double> r ){
+		if( !joinable(q, r) ){
+			return false;
+		}
+		if( q instanceof TermVectorMap ){
+			join(((TermVectorMap) q).getVector(), ((TermVectorMap) r).getVector());
+		}
+		else join(((PairVectorMap) q).getVector(), ((PairVectorMap) r).getVector());
+		return true;
+	}
+
+	/**
+	 * This method checks whether two documents are both views on a vector
+	 * (see data_representation.TermVectorMap and
+	 * data_representation.PairVectorMap) with the same dictionaries, so that
+	 * they can be joined.
+	 * @param q - first document
+	 * @param r - second document
+	 * @return true if the documents can be joined
+	 */
+	public static boolean joinable( Map<String, Double> q,
+			Map<String, Double> r ){
+		if( q instanceof TermVectorMap && r instanceof TermVectorMap ){
+			return ((TermVectorMap) q).getDictionary() ==
+					((TermVectorMap) r).getDictionary();
+		}
+		if( q instanceof PairVectorMap && r instanceof PairVectorMap ){
+			PairVectorMap a = (PairVectorMap) q;
+			PairVectorMap b = (PairVectorMap) r;
+			return a.getSourceDictionary() == b.getSourceDictionary() &&
+					a.getTargetDictionary() == b.getTargetDictionary();
+		}
+		return false;
+	}
+
+	/**
+	 * This method joins two vectors of words.
+	 * @param a - first vector
+	 * @param b - second vector
+	 */
+	public void join( SparseVector a, SparseVector b ){
+		ensureCapacity(a.size + b.size);
+		int i = 0;
+		int j = 0;
+		size = 0;
+		dense = false;
+		while( i < a.size || j < b.size ){
+			if( j >= b.size || (i < a.size && a.ids[i] < b.ids[j]) ){
+				set(a.value(i), true, 0, false);
+				i++;
+			}
+			else if( i >= a.size || b.ids[j] < a.ids[i] ){
+				set(0, false, b.value(j), true);
+				j++;
+			}
+			else{
+				set(a.value(i), true, b.value(j), true);
+				i++;
+				j++;
+			}
+		}
+	}
+
+	/**
+	 * This method joins two vectors of wordpairs.
+	 * @param a - first vector
+	 * @param b - second vector
+	 */
+	public void join( PairVector a, PairVector b ){
+		ensureCapacity(a.size + b.size);
+		int i = 0;
+		int j = 0;
+		size = 0;
+		dense = false;
+		while( i < a.size || j < b.size ){
+			if( j >= b.size || (i < a.size && a.keys[i] < b.keys[j]) ){
+				set(a.values[i], true, 0, false);
+				i++;
+			}
+			else if( i >= a.size || b.keys[j] < a.keys[i] ){
+				set(0, false, b.values[j], true);
+				j++;
+			}
+			else{
+				set(a.values[i], true, b.values[j], true);
+				i++;
+				j++;
+			}
+		}
+	}
+
+	/**
+	 * This method lines up the words of the first vector with the values of
+	 * the second vector, which are searched for in its sorted ids. Only the
+	 * words of the first vector are stored, so inQ is true everywhere; the
+	 * position of the word in the second vector is stored in at (-1 if it
+	 * does not occur).
+	 * @param a - first vector
+	 * @param b - second vector
+	 */
+	public void gather( SparseVector a, SparseVector b ){
+		ensureCapacity(a.size);
+		size = 0;
+		dense = false;
+		int from = 0;
+		for( int i = 0; i < a.size; i++ ){
+			int index = -1;
+			if( from < b.size ){
+				index = Arrays.binarySearch(b.ids, from, b.size, a.ids[i]);
+				from = index >= 0 ? index + 1 : -index - 1;
+			}
+			if( index >= 0 ){
+				at[size] = index;
+				set(a.value(i), true, b.value(index), true);
+			}
+			else{
+				at[size] = -1;
+				set(a.value(i), true, 0, false);
+			}
+		}
+	}
+
+	/**
+	 * This method lines up the words of the first vector with the values of
+	 * the second vector, which are looked up directly in the dense vector.
+	 * Only the words of the first vector are stored, so inQ is true
+	 * everywhere; the position of the word in the second vector is stored in
+	 * at (-1 if it does not occur).
+	 * @param a - first vector
+	 * @param b - second vector
+	 */
+	public void gather( SparseVector a, DenseVector b ){
+		ensureCapacity(a.size);
+		int[] ids = a.ids;
+		double[] values = b.values;
+		int[] positions = b.positions;
+		double divisor = a.divisor;
+		for( int i = 0; i < a.size; i++ ){
+			int id = ids[i];
+			q[i] = a.raw(i) / divisor;
+			inQ[i] = true;
+			// Words that were added to the dictionary after b was built
+			if( id < values.length ){
+				r[i] = values[id];
+				at[i] = positions[id];
+			}
+			else{
+				r[i] = 0;
+				at[i] = -1;
+			}
+			inR[i] = at[i] >= 0;
+		}
+		size = a.size;
+		dense = true;
+	}
+
+	private void set( double valueQ, boolean occursQ, double valueR,
+			boolean occursR ){
+		q[size] = valueQ;
+		inQ[size] = occursQ;
+		r[size] = valueR;
+		inR[size] = occursR;
+		size++;
+	}
+
+	private void ensureCapacity( int capacity ){
+		if( q.length < capacity ){
+			int length = Math.max(capacity, q.length * 2);
+			q = Arrays.copyOf(q, length);
+			r = Arrays.copyOf(r, length);
+			inQ = Arrays.copyOf(inQ, length);
+			inR = Arrays.copyOf(inR, length);
+			at = Arrays.copyOf(at, length);
+		}
+	}
+}
@@ -0,0 +1,714 @@
+package plugin_metrics;
+
+import data_representation.LogVector;
+import data_representation.PairVector;
+import data_representation.SparseVector;
+import data_representation.VectorStatistics;
+
+/**
+ * Class SparseKernels computes the metrics in a single pass over two
+ * documents that are lined up by a SparseJoin. The rules of the metrics
+ * (e.g. the smoothing of words that do not occur) are the same as in the
+ * metric classes that compare the documents by their words. The values of
+ * the documents are divided by sizeQ and sizeR, which are the corpus sizes
+ * of the documents if their counts are used, or 1 if the relative
+ * frequencies (probabilities) are used.
+ * The metrics that can be written in terms of statistics of the single
+ * documents (see data_representation.VectorStatistics) can also be computed
+ * from those statistics and the words of one document lined up with the
+ * values of the other document (see SparseJoin.gather()), which is faster if
+ * one of the documents has far fewer words than the other (e.g. a document
+ * and a centroid).
+ */
+public class SparseKernels{
+
+	/**
+	 * This method computes the cosine of the angle between two documents.
+	 * @param join - the two documents
+	 * @param sizeQ - divisor of first document
+	 * @param sizeR - divisor of second document
+	 * @return result - similarity score
+	 */
+	public static double cosine( SparseJoin join, double sizeQ, double sizeR ){
+		double a = 0;
+		double b1 = 0;
+		double b2 = 0;
+		for( int i = 0; i < join.size; i++ ){
+			double q1 = join.q[i] / sizeQ;
+			double r1 = join.r[i] / sizeR;
+			a = a + (q1*r1);
+			b1 = b1 + Math.pow(q1, 2);
+			b2 = b2 + Math.pow(r1, 2);
+		}
+		return a / (Math.sqrt(b1) * Math.sqrt(b2));
+	}
+
+	/**
+	 * This method computes the euclidian distance between two documents.
+	 * @param join - the two documents
+	 * @param sizeQ - divisor of first document
+	 * @param sizeR - divisor of second document
+	 * @return result - similarity score
+	 */
+	public static double euclidianDistance( SparseJoin join, double sizeQ,
+			double sizeR ){
+		double result = 0;
+		for( int i = 0; i < join.size; i++ ){
+			double difference = join.q[i] / sizeQ - join.r[i] / sizeR;
+			result = result + Math.pow(difference, 2);
+		}
+		return Math.sqrt(result);
+	}
+
+	/**
+	 * This method computes the hellinger distance between two documents.
+	 * @param join - the two documents
+	 * @param sizeQ - divisor of first document
+	 * @param sizeR - divisor of second document
+	 * @return result - similarity score
+	 */
+	public static double hellinger( SparseJoin join, double sizeQ,
+			double sizeR ){
+		double result = 0;
+		for( int i = 0; i < join.size; i++ ){
+			double r1 = join.r[i] / sizeR;
+			if( join.inQ[i] ){
+				double sq = Math.sqrt(join.q[i] / sizeQ) - Math.sqrt(r1);
+				result = result + Math.pow(sq, 2);
+			}
+			else result = result + r1;
+		}
+		return result;
+	}
+
+	/**
+	 * This method computes Jaccard's coefficient of two documents.
+	 * @param join - the two documents
+	 * @param sizeQ - divisor of first document
+	 * @param sizeR - divisor of second document
+	 * @return result - similarity score
+	 */
+	public static double jaccardsCoefficient( SparseJoin join, double sizeQ,
+			double sizeR ){
+		double intersection = 0;
+		double union = 0;
+		for( int i = 0; i < join.size; i++ ){
+			double r1 = join.r[i] / sizeR;
+			if( join.inQ[i] ){
+				double q1 = join.q[i] / sizeQ;
+				if( join.inR[i] ){
+					intersection = intersection + Math.min(r1, q1);
+				}
+				union = union + Math.max(r1, q1);
+			}
+			else union = union + r1;
+		}
+		return intersection / union;
+	}
+
+	/**
+	 * This method computes the L1 norm between two documents.
+	 * @param join - the two documents
+	 * @param sizeQ - divisor of first document
+	 * @param sizeR - divisor of second document
+	 * @return result - similarity score
+	 */
+	public static double l1norm( SparseJoin join, double sizeQ, double sizeR ){
+		double result = 0;
+		for( int i = 0; i < join.size; i++ ){
+			double r1 = join.r[i] / sizeR;
+			if( join.inQ[i] ){
+				result = result + Math.abs( (join.q[i] / sizeQ - r1) );
+			}
+			else result = result + r1;
+		}
+		return result;
+	}
+
+	/**
+	 * This method computes the KL divergence of the first document to the
+	 * second document, or the other way around. Add-one smoothing is used
+	 * (see KLdivergence.computeKLdivergence()).
+	 * @param join - the two documents
+	 * @param corpusSizeQ - corpus size of first document
+	 * @param corpusSizeR - corpus size of second document
+	 * @param relativeFreq - representation with relative frequency is used
+	 * @param reverse - true if the divergence of the second document to the
+	 * first document should be computed
+	 * @return result - similarity score
+	 */
+	public static double klDivergence( SparseJoin join, int corpusSizeQ,
+			int corpusSizeR, boolean relativeFreq, boolean reverse ){
+		if( reverse ){
+			return klDivergence(join.size, join.r, join.inR, corpusSizeR,
+					join.q, join.inQ, corpusSizeQ, relativeFreq);
+		}
+		return klDivergence(join.size, join.q, join.inQ, corpusSizeQ,
+				join.r, join.inR, corpusSizeR, relativeFreq);
+	}
+
+	private static double klDivergence( int size, double[] q, boolean[] inQ,
+			int corpusSizeQ, double[] r, boolean[] inR, int corpusSizeR,
+			boolean relativeFreq ){
+		double result = 0;
+		for( int i = 0; i < size; i++ ){
+			if( !inQ[i] ){
+				continue;
+			}
+			result = result + klTerm(q[i], corpusSizeQ, r[i], inR[i], corpusSizeR,
+					relativeFreq);
+		}
+		return result;
+	}
+
+	/**
+	 * This method computes the KL divergences of two documents to each other
+	 * in one walk through their vectors: for every word the term of the
+	 * first document and the term of the second document are added to their
+	 * own sum. Every sum is built up in the same order as by
+	 * klDivergence(SparseJoin, int, int, boolean, boolean), so the results
+	 * are the same as computing both ways separately.
+	 * @param q - first document
+	 * @param corpusSizeQ - corpus size of first document
+	 * @param r - second document
+	 * @param corpusSizeR - corpus size of second document
+	 * @param relativeFreq - representation with relative frequency is used
+	 * @param divergences - array in which the divergence of q to r (at 0) and
+	 * of r to q (at 1) are stored
+	 */
+	public static void klDivergences( SparseVector q, int corpusSizeQ,
+			SparseVector r, int corpusSizeR, boolean relativeFreq,
+			double[] divergences ){
+		double qToR = 0;
+		double rToQ = 0;
+		int i = 0;
+		int j = 0;
+		while( i < q.size || j < r.size ){
+			if( j >= r.size || (i < q.size && q.ids[i] < r.ids[j]) ){
+				qToR = qToR + klTerm(q.value(i), corpusSizeQ, 0, false,
+						corpusSizeR, relativeFreq);
+				i++;
+			}
+			else if( i >= q.size || r.ids[j] < q.ids[i] ){
+				rToQ = rToQ + klTerm(r.value(j), corpusSizeR, 0, false,
+						corpusSizeQ, relativeFreq);
+				j++;
+			}
+			else{
+				double valueQ = q.value(i);
+				double valueR = r.value(j);
+				qToR = qToR + klTerm(valueQ, corpusSizeQ, valueR, true,
+						corpusSizeR, relativeFreq);
+				rToQ = rToQ + klTerm(valueR, corpusSizeR, valueQ, true,
+						corpusSizeQ, relativeFreq);
+				i++;
+				j++;
+			}
+		}
+		divergences[0] = qToR;
+		divergences[1] = rToQ;
+	}
+
+	/**
+	 * This method computes the KL divergences of two bilingual documents to
+	 * each other in one walk through their vectors (see
+	 * klDivergences(SparseVector, int, SparseVector, int, boolean, double[])).
+	 * @param q - first document
+	 * @param corpusSizeQ - corpus size of first document
+	 * @param r - second document
+	 * @param corpusSizeR - corpus size of second document
+	 * @param relativeFreq - representation with relative frequency is used
+	 * @param divergences - array in which the divergence of q to r (at 0) and
+	 * of r to q (at 1) are stored
+	 */
+	public static void klDivergences( PairVector q, int corpusSizeQ,
+			PairVector r, int corpusSizeR, boolean relativeFreq,
+			double[] divergences ){
+		double qToR = 0;
+		double rToQ = 0;
+		int i = 0;
+		int j = 0;
+		while( i < q.size || j < r.size ){
+			if( j >= r.size || (i < q.size && q.keys[i] < r.keys[j]) ){
+				qToR = qToR + klTerm(q.values[i], corpusSizeQ, 0, false,
+						corpusSizeR, relativeFreq);
+				i++;
+			}
+			else if( i >= q.size || r.keys[j] < q.keys[i] ){
+				rToQ = rToQ + klTerm(r.values[j], corpusSizeR, 0, false,
+						corpusSizeQ, relativeFreq);
+				j++;
+			}
+			else{
+				qToR = qToR + klTerm(q.values[i], corpusSizeQ, r.values[j], true,
+						corpusSizeR, relativeFreq);
+				rToQ = rToQ + klTerm(r.values[j], corpusSizeR, q.values[i], true,
+						corpusSizeQ, relativeFreq);
+				i++;
+				j++;
+			}
+		}
+		divergences[0] = qToR;
+		divergences[1] = rToQ;
+	}
+
+	/**
+	 * This method computes the KL divergences of two documents that are
+	 * lined up by a join to each other (see klDivergences(SparseVector, int,
+	 * SparseVector, int, boolean, double[])). The join is in the order of the
+	 * ids, so the results are the same as walking through the vectors.
+	 * @param join - the two documents
+	 * @param corpusSizeQ - corpus size of first document
+	 * @param corpusSizeR - corpus size of second document
+	 * @param relativeFreq - representation with relative frequency is used
+	 * @param divergences - array in which the divergence of the first to the
+	 * second document (at 0) and of the second to the first (at 1) are stored
+	 */
+	public static void klDivergences( SparseJoin join, int corpusSizeQ,
+			int corpusSizeR, boolean relativeFreq, double[] divergences ){
+		double[] q = join.q;
+		double[] r = join.r;
+		boolean[] inQ = join.inQ;
+		boolean[] inR = join.inR;
+		double qToR = 0;
+		double rToQ = 0;
+		for( int i = 0; i < join.size; i++ ){
+			if( inQ[i] ){
+				qToR = qToR + klTerm(q[i], corpusSizeQ, r[i], inR[i], corpusSizeR,
+						relativeFreq);
+			}
+			if( inR[i] ){
+				rToQ = rToQ + klTerm(r[i], corpusSizeR, q[i], inQ[i], corpusSizeQ,
+						relativeFreq);
+			}
+		}
+		divergences[0] = qToR;
+		divergences[1] = rToQ;
+	}
+
+	/**
+	 * This method computes the term of one word in the KL divergence of a
+	 * document to another document. Add-one smoothing is used for the words
+	 * that do not occur in the other document.
+	 * @param value - value of the word in the document
+	 * @param corpusSize - corpus size of the document
+	 * @param other - value of the word in the other document
+	 * @param inOther - the word occurs in the other document
+	 * @param corpusSizeOther - corpus size of the other document
+	 * @param relativeFreq - representation with relative frequency is used
+	 * @return term
+	 */
+	private static double klTerm( double value, int corpusSize, double other,
+			boolean inOther, int corpusSizeOther, boolean relativeFreq ){
+		double q1;
+		double r1;
+		if( relativeFreq ){
+			q1 = value;
+			if( q1 == 0 ){
+				q1 = 1 / (double) (corpusSize+1);
+			}
+			if( inOther && other != 0 ){
+				r1 = other;
+			}
+			else r1 = 1 / (double) (corpusSizeOther + 1);
+		}
+		else{
+			q1 = value / (double) corpusSize;
+			if( inOther ){
+				r1 = other / (double) corpusSizeOther;
+			}
+			else r1 = 1 / (double) (corpusSizeOther + 1);
+		}
+		return q1 * Math.log(q1 / r1);
+	}
+
+	/**
+	 * This method computes the JS divergence between two documents: the
+	 * average of the KL divergences of both documents to their average
+	 * (see JSdivergence.computeJSdivergence()). The vectors are walked through
+	 * once and the average of every word is computed on the fly, so nothing
+	 * is allocated. Both KL divergences are summed word by word instead of
+	 * one after the other, so the result may differ from computing them
+	 * separately by rounding (relative differences below 1e-12).
+	 * @param q - first document
+	 * @param corpusSizeQ - corpus size of first document
+	 * @param r - second document
+	 * @param corpusSizeR - corpus size of second document
+	 * @param relativeFreq - representation with relative frequency is used
+	 * @return result - similarity score
+	 */
+	public static double jsDivergence( SparseVector q, int corpusSizeQ,
+			SparseVector r, int corpusSizeR, boolean relativeFreq ){
+		int sizeAverage = (corpusSizeQ + corpusSizeR) / 2;
+		double result = 0;
+		int i = 0;
+		int j = 0;
+		while( i < q.size || j < r.size ){
+			if( j >= r.size || (i < q.size && q.ids[i] < r.ids[j]) ){
+				result = result + jsTerm(q.value(i), true, corpusSizeQ, 0, false,
+						corpusSizeR, sizeAverage, relativeFreq);
+				i++;
+			}
+			else if( i >= q.size || r.ids[j] < q.ids[i] ){
+				result = result + jsTerm(0, false, corpusSizeQ, r.value(j), true,
+						corpusSizeR, sizeAverage, relativeFreq);
+				j++;
+			}
+			else{
+				result = result + jsTerm(q.value(i), true, corpusSizeQ,
+						r.value(j), true, corpusSizeR, sizeAverage, relativeFreq);
+				i++;
+				j++;
+			}
+		}
+		return 0.5 * result;
+	}
+
+	/**
+	 * This method computes the JS divergence between two documents of
+	 * wordpairs in the same way as jsDivergence(SparseVector, int,
+	 * SparseVector, int, boolean).
+	 * @param q - first document
+	 * @param corpusSizeQ - corpus size of first document
+	 * @param r - second document
+	 * @param corpusSizeR - corpus size of second document
+	 * @param relativeFreq - representation with relative frequency is used
+	 * @return result - similarity score
+	 */
+	public static double jsDivergence( PairVector q, int corpusSizeQ,
+			PairVector r, int corpusSizeR, boolean relativeFreq ){
+		int sizeAverage = (corpusSizeQ + corpusSizeR) / 2;
+		double result = 0;
+		int i = 0;
+		int j = 0;
+		while( i < q.size || j < r.size ){
+			if( j >= r.size || (i < q.size && q.keys[i] < r.keys[j]) ){
+				result = result + jsTerm(q.values[i], true, corpusSizeQ, 0, false,
+						corpusSizeR, sizeAverage, relativeFreq);
+				i++;
+			}
+			else if( i >= q.size || r.keys[j] < q.keys[i] ){
+				result = result + jsTerm(0, false, corpusSizeQ, r.values[j], true,
+						corpusSizeR, sizeAverage, relativeFreq);
+				j++;
+			}
+			else{
+				result = result + jsTerm(q.values[i], true, corpusSizeQ,
+						r.values[j], true, corpusSizeR, sizeAverage, relativeFreq);
+				i++;
+				j++;
+			}
+		}
+		return 0.5 * result;
+	}
+
+	/**
+	 * This method computes the JS divergence between two documents that are
+	 * lined up by a join, in the same way as jsDivergence(SparseVector, int,
+	 * SparseVector, int, boolean).
+	 * @param join - the two documents
+	 * @param corpusSizeQ - corpus size of first document
+	 * @param corpusSizeR - corpus size of second document
+	 * @param relativeFreq - representation with relative frequency is used
+	 * @return result - similarity score
+	 */
+	public static double jsDivergence( SparseJoin join, int corpusSizeQ,
+			int corpusSizeR, boolean relativeFreq ){
+		int sizeAverage = (corpusSizeQ + corpusSizeR) / 2;
+		double result = 0;
+		for( int i = 0; i < join.size; i++ ){
+			result = result + jsTerm(join.q[i], join.inQ[i], corpusSizeQ,
+					join.r[i], join.inR[i], corpusSizeR, sizeAverage, relativeFreq);
+		}
+		return 0.5 * result;
+	}
+
+	/**
+	 * This method computes the terms of one word in the KL divergences of two
+	 * documents to their average. A word that does not occur in a document
+	 * has value 0 and no term for that document.
+	 * @param valueQ - value of the word in the first document
+	 * @param inQ - the word occurs in the first document
+	 * @param corpusSizeQ - corpus size of first document
+	 * @param valueR - value of the word in the second document
+	 * @param inR - the word occurs in the second document
+	 * @param corpusSizeR - corpus size of second document
+	 * @param sizeAverage - corpus size of the average
+	 * @param relativeFreq - representation with relative frequency is used
+	 * @return terms - sum of the terms of both documents
+	 */
+	static double jsTerm( double valueQ, boolean inQ, int corpusSizeQ,
+			double valueR, boolean inR, int corpusSizeR, int sizeAverage,
+			boolean relativeFreq ){
+		double average = valueR * 0.5 + valueQ * 0.5;
+		if( relativeFreq ){
+			if( average == 0 ){
+				average = 1 / (double) (sizeAverage + 1);
+			}
+		}
+		else average = average / (double) sizeAverage;
+		double terms = 0;
+		if( inQ ){
+			terms = divergenceTerm(valueQ, corpusSizeQ, average, relativeFreq);
+		}
+		if( inR ){
+			terms = terms + divergenceTerm(valueR, corpusSizeR, average,
+					relativeFreq);
+		}
+		return terms;
+	}
+
+	/**
+	 * This method computes the term of one word in the KL divergence of a
+	 * document to the average of two documents.
+	 * @param value - value of the word in the document
+	 * @param corpusSize - corpus size of the document
+	 * @param average - (smoothed) relative frequency of the word in the
+	 * average
+	 * @param relativeFreq - representation with relative frequency is used
+	 * @return term
+	 */
+	private static double divergenceTerm( double value, int corpusSize,
+			double average, boolean relativeFreq ){
+		double q1;
+		if( relativeFreq ){
+			q1 = value;
+			if( q1 == 0 ){
+				q1 = 1 / (double) (corpusSize+1);
+			}
+		}
+		else q1 = value / (double) corpusSize;
+		return q1 * Math.log(q1 / average);
+	}
+
+	/**
+	 * This method computes the cosine of the angle between two documents
+	 * from the dot product and their norms.
+	 * @param join - words of the first document with the values of the
+	 * second document (see SparseJoin.gather())
+	 * @param statisticsQ - statistics of first document
+	 * @param sizeQ - divisor of first document
+	 * @param statisticsR - statistics of second document
+	 * @param sizeR - divisor of second document
+	 * @return result - similarity score
+	 */
+	public static double cosine( SparseJoin join, VectorStatistics statisticsQ,
+			double sizeQ, VectorStatistics statisticsR, double sizeR ){
+		return cosine(dot(join), statisticsQ, sizeQ, statisticsR, sizeR);
+	}
+
+	/**
+	 * This method computes the cosine of the angle between two documents
+	 * from their dot product and their norms.
+	 * @param dot - dot product of the values of the documents
+	 * @param statisticsQ - statistics of first document
+	 * @param sizeQ - divisor of first document
+	 * @param statisticsR - statistics of second document
+	 * @param sizeR - divisor of second document
+	 * @return result - similarity score
+	 */
+	public static double cosine( double dot, VectorStatistics statisticsQ,
+			double sizeQ, VectorStatistics statisticsR, double sizeR ){
+		double a = dot / (sizeQ * sizeR);
+		double b1 = statisticsQ.norm / sizeQ;
+		double b2 = statisticsR.norm / sizeR;
+		return a / (b1 * b2);
+	}
+
+	/**
+	 * This method computes the euclidian distance between two documents
+	 * from the dot product and their sums of squares.
+	 * @param join - words of the first document with the values of the
+	 * second document (see SparseJoin.gather())
+	 * @param statisticsQ - statistics of first document
+	 * @param sizeQ - divisor of first document
+	 * @param statisticsR - statistics of second document
+	 * @param sizeR - divisor of second document
+	 * @return result - similarity score
+	 */
+	public static double euclidianDistance( SparseJoin join,
+			VectorStatistics statisticsQ, double sizeQ,
+			VectorStatistics statisticsR, double sizeR ){
+		return euclidianDistance(dot(join), statisticsQ, sizeQ, statisticsR,
+				sizeR);
+	}
+
+	/**
+	 * This method computes the euclidian distance between two documents
+	 * from their dot product and their sums of squares.
+	 * @param dot - dot product of the values of the documents
+	 * @param statisticsQ - statistics of first document
+	 * @param sizeQ - divisor of first document
+	 * @param statisticsR - statistics of second document
+	 * @param sizeR - divisor of second document
+	 * @return result - similarity score
+	 */
+	public static double euclidianDistance( double dot,
+			VectorStatistics statisticsQ, double sizeQ,
+			VectorStatistics statisticsR, double sizeR ){
+		double result = statisticsQ.sumOfSquares / (sizeQ * sizeQ) +
+				statisticsR.sumOfSquares / (sizeR * sizeR) -
+				2 * dot / (sizeQ * sizeR);
+		// Rounding may give a (tiny) negative value for (nearly) equal documents
+		return Math.sqrt(Math.max(result, 0));
+	}
+
+	/**
+	 * This method computes the hellinger distance between two documents
+	 * from their sums and the words they have in common: the distance is
+	 * sum(q) + sum(r) - 2 * sum(sqrt(q * r)).
+	 * @param join - words of the first document with the values of the
+	 * second document (see SparseJoin.gather())
+	 * @param statisticsQ - statistics of first document
+	 * @param sizeQ - divisor of first document
+	 * @param statisticsR - statistics of second document
+	 * @param sizeR - divisor of second document
+	 * @return result - similarity score
+	 */
+	public static double hellinger( SparseJoin join,
+			VectorStatistics statisticsQ, double sizeQ,
+			VectorStatistics statisticsR, double sizeR ){
+		double roots = kernels(join).sumOfRoots(join.q, join.r, join.size);
+		return hellinger(roots, statisticsQ, sizeQ, statisticsR, sizeR);
+	}
+
+	/**
+	 * This method computes the hellinger distance between two documents
+	 * from their sums and the sum of the square roots of the products of
+	 * their values.
+	 * @param roots - sum(sqrt(q * r)) over the words of the documents
+	 * @param statisticsQ - statistics of first document
+	 * @param sizeQ - divisor of first document
+	 * @param statisticsR - statistics of second document
+	 * @param sizeR - divisor of second document
+	 * @return result - similarity score
+	 */
+	public static double hellinger( double roots, VectorStatistics statisticsQ,
+			double sizeQ, VectorStatistics statisticsR, double sizeR ){
+		double result = statisticsQ.sum / sizeQ + statisticsR.sum / sizeR -
+				2 * roots / Math.sqrt(sizeQ * sizeR);
+		return Math.max(result, 0);
+	}
+
+	/**
+	 * This method computes the L1 norm between two documents from the sum of
+	 * the absolute values of the second document and the words of the first
+	 * document: every word of the first document replaces its part of that
+	 * sum by abs(q - r). For documents without negative values this is the
+	 * same as L1norm.computeL1norm().
+	 * @param join - words of the first document with the values of the
+	 * second document (see SparseJoin.gather())
+	 * @param sizeQ - divisor of first document
+	 * @param statisticsR - statistics of second document
+	 * @param sizeR - divisor of second document
+	 * @return result - similarity score
+	 */
+	public static double l1norm( SparseJoin join, double sizeQ,
+			VectorStatistics statisticsR, double sizeR ){
+		double result = kernels(join).sumOfDifferences(
+				statisticsR.sumOfAbsolutes / sizeR, join.q, sizeQ, join.r, sizeR,
+				join.size);
+		return Math.max(result, 0);
+	}
+
+	/**
+	 * This method computes the KL divergence between two documents of which
+	 * the words of the first document are lined up with the positions of the
+	 * words in the second document (see SparseJoin.gather()), from the
+	 * probabilities of the documents and their logarithms (see
+	 * data_representation.LogVector), so no logarithm has to be computed.
+	 * Add-one smoothing is used in the same way as in
+	 * KLdivergence.computeKLdivergence().
+	 * The divergence of a document p to a document q is
+	 * sum(p * log(p)) - sum(p * log(q)): the first part is stored with the log
+	 * vector of p, the second part is a dot product over the words of the
+	 * first document, in which every word of the second document that does
+	 * not occur in the first document counts with the smoothed logarithm.
+	 * @param join - words of the first document with the positions in the
+	 * second document
+	 * @param logQ - log vector of first document
+	 * @param logR - log vector of second document
+	 * @param reverse - the divergence of the second to the first document is
+	 * computed instead
+	 * @return result - similarity score
+	 */
+	public static double klDivergence( SparseJoin join, LogVector logQ,
+			LogVector logR, boolean reverse ){
+		int[] at = join.at;
+		double cross = 0;
+		if( !reverse ){
+			double[] p = logQ.probabilities;
+			double[] logs = logR.logs;
+			double logSmooth = logR.logSmooth;
+			for( int i = 0; i < join.size; i++ ){
+				cross = cross + p[i] * (at[i] >= 0 ? logs[at[i]] : logSmooth);
+			}
+			return logQ.sumPLogP - cross;
+		}
+		double[] p = logR.probabilities;
+		double[] logs = logQ.logs;
+		double logSmooth = logQ.logSmooth;
+		// Every word is compared to the smoothed value first, the words that
+		// occur in both documents are corrected
+		cross = logR.sum * logSmooth;
+		for( int i = 0; i < join.size; i++ ){
+			if( at[i] >= 0 ){
+				cross = cross + p[at[i]] * (logs[i] - logSmooth);
+			}
+		}
+		return logR.sumPLogP - cross;
+	}
+
+	/**
+	 * This method computes the KL divergences of two documents to each other
+	 * from their log vectors (see klDivergence(SparseJoin, LogVector,
+	 * LogVector, boolean)) in one pass over the join, with the same results
+	 * as computing both ways separately.
+	 * @param join - words of the first document with the positions in the
+	 * second document
+	 * @param logQ - log vector of first document
+	 * @param logR - log vector of second document
+	 * @param divergences - array in which the divergence of the first to the
+	 * second document (at 0) and of the second to the first (at 1) are stored
+	 */
+	public static void klDivergences( SparseJoin join, LogVector logQ,
+			LogVector logR, double[] divergences ){
+		int[] at = join.at;
+		double[] pQ = logQ.probabilities;
+		double[] logsQ = logQ.logs;
+		double[] pR = logR.probabilities;
+		double[] logsR = logR.logs;
+		double crossQ = 0;
+		double crossR = logR.sum * logQ.logSmooth;
+		for( int i = 0; i < join.size; i++ ){
+			if( at[i] >= 0 ){
+				crossQ = crossQ + pQ[i] * logsR[at[i]];
+				crossR = crossR + pR[at[i]] * (logsQ[i] - logQ.logSmooth);
+			}
+			else crossQ = crossQ + pQ[i] * logR.logSmooth;
+		}
+		divergences[0] = logQ.sumPLogP - crossQ;
+		divergences[1] = logR.sumPLogP - crossR;
+	}
+
+	/**
+	 * This method computes the dot product of a join.
+	 * @param join - join of two vectors
+	 * @return dot
+	 */
+	public static double dot( SparseJoin join ){
+		return kernels(join).dot(join.q, join.r, join.size);
+	}
+
+	/**
+	 * This method returns the kernels for the loops over a join: the kernels
+	 * with the Vector API if the join lines up a document with a dense
+	 * centroid (see DenseKernels.getInstance()), and the scalar kernels
+	 * otherwise.
+	 * @param join - join of two vectors
+	 * @return kernels
+	 */
+	private static DenseKernels kernels( SparseJoin join ){
+		return join.dense ? DenseKernels.getInstance() : DenseKernels.SCALAR;
+	}
+}
@@ -4,6 +4,8 @@ import java.io.IOException;
 import java.util.Scanner;
 import java.io.File;
 import java.util.ArrayList;
+import plugin_metrics.MetricProperties;
+import plugin_metrics.MetricRegistry;
 /**
  * 
  * @author miriamhuijser
@@ -19,8 +21,6 @@ public class RankBilingual{
 		String fileNames = directory+"filenameLists.txt";
 		String sDirectory = directory+"SimilarityScores/";
 		String similarityScores = directory+"SimilarityScores.txt";
-		String cosine = "Cosine";
-		String jaccards = "Jaccards";		
 		ArrayList<String> fileNamesLists = new ArrayList<String>();
 		ArrayList<String> similarityScoresFiles = new ArrayList<String>();		
 		File file1, file2; 
@@ -45,10 +45,10 @@ public class RankBilingual{
 		for( int i = 0; i < fileNamesLists.size(); i++ ){
 			String docNamesFile = fDirectory+fileNamesLists.get(i);
 			String dataFile = sDirectory+similarityScoresFiles.get(i);
-			boolean lowScoreIsSimilar = true;
-			if( dataFile.contains(cosine) || dataFile.contains(jaccards) ){
-				lowScoreIsSimilar = false;
-			}
+			// The metric of the scores is recognised by the name of the file
+			MetricProperties properties = MetricRegistry.forFileName(dataFile);
+			boolean lowScoreIsSimilar = properties == null ||
+					!properties.higherIsSimilar;
 			Ranking r = new Ranking(dataFile, docNamesFile, numberOfDocs, 
 					lowScoreIsSimilar);
 			r.init();
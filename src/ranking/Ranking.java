@@ -27,11 +27,13 @@ public class Ranking{
 	boolean lowScoreIsSimilar;
 	AdjacencyMatrix matrix;
 	HashMap<String, String> documentDomains;
+	public boolean floatPrecision = false; // scores stored as floats
 
 	/**
 	 * Constructor
 	 * @param dataFile - name of file that contains the matrix with the
-	 * similarity scores for each pair of documents
+	 * similarity scores for each pair of documents (a .csv file or a
+	 * condensed matrix file, see io.CondensedMatrixFile)
 	 * @param docNamesFile - name of file that contains the names of the documents
 	 * @param numberOfDocs - number of documents in the dataset
 	 * @param lowScoreIsSimilar - boolean that indicates whether similarity
@@ -53,6 +55,7 @@ public class Ranking{
 	public void init(){
 		matrix = new AdjacencyMatrix(dataFile, docNamesFile, numberOfDocs, 
 				lowScoreIsSimilar );
+		matrix.setFloatPrecision(floatPrecision);
 		matrix.init();
 		labelDocumentsWithDomain();
 	}
@@ -149,19 +152,16 @@ public class Ranking{
 	 */
 	public Map<String, Double> createRankingListForDoc(int docID){
 		Map<String, Double> rankingList = new HashMap<String, Double>();
-		ArrayList<Double> row = matrix.matrixValuesPerRow.get(docID);
 		// docID > 0, not first document
-		if( !row.isEmpty() ){
-			for( int i = 0; i < row.size(); i++ ){
-				int id = i;
-				double value = row.get(i);
-				String name = matrix.documentList.get(id);
-				rankingList.put(name, value);
-			}
+		for( int i = 0; i < matrix.rowLength(docID); i++ ){
+			int id = i;
+			double value = matrix.value(docID, i);
+			String name = matrix.documentList.get(id);
+			rankingList.put(name, value);
 		}
-		for( int i = docID + 1; i < matrix.matrixValuesPerRow.size(); i++ ){
+		for( int i = docID + 1; i < matrix.rows(); i++ ){
 			int id = i;
-			double value = matrix.matrixValuesPerRow.get(i).get(docID);
+			double value = matrix.value(i, docID);
 			String name = matrix.documentList.get(id);
 			rankingList.put(name, value);
 		}